@@ -1,5 +1,6 @@
 import os
 import re
+from collections import Counter
 from time import sleep
 
 from opensextant import Place
@@ -49,6 +50,30 @@ def filter_in_feature(pl: Place, feats):
     return False
 
 
+FANOUT_THRESHOLD = 100
+
+
+def fanout_key(name: str):
+    """
+    Key for counting records by name, for high fan-out names. Python lower() folds non-ASCII letters too,
+    unlike SQLite lower(), so the counting and the check at index time must both use this.
+    """
+    return name.lower()
+
+
+def minor_feature(pl: Place):
+    """
+    Minor features are dropped from tagging for very common names. Mirrors the runtime rule in
+    GazetteerMatcher: keep only administrative and populated places, and of those not ruins or historical (xxxX, xxxH).
+    :param pl: Place
+    :return: True if place is not a major feature
+    """
+    if pl.feature_class not in ("A", "P"):
+        return True
+    fc = pl.feature_code
+    return fc is not None and (fc.endswith("X") or fc.endswith("H"))
+
+
 def oddball_omissions(pl: Place):
     if pl.feature_code == "RGNE":
         if " " in pl.name:
@@ -225,8 +250,44 @@ class Finalizer:
                 # Unique entry
                 keys.add(k)
 
+    def places_to_index(self, cc, criteria, limit=-1, filters=None, inclusion_filters=None,
+                        ignore_func=None, ignore_digits=True):
+        """
+        Rows of a country that pass the index filters, as Place objects.
+        :return: generator of Place
+        """
+        for pl in self.db.list_places(cc=cc, criteria=criteria, limit=limit):
+            if ignore_func:
+                if ignore_func(pl):
+                    continue
+            if filter_out_feature(pl, filters):
+                continue
+            if ignore_digits and pl.name.isdigit():
+                continue
+            if not filter_in_feature(pl, inclusion_filters):
+                continue
+            yield pl
+
+    @staticmethod
+    def high_fanout_names(places, threshold=FANOUT_THRESHOLD):
+        """
+        Names that would tag more than `threshold` records, counted over the rows to be indexed that the
+        /tag handler considers. Counts are by fanout_key(name), so diacritic or punctuation variants are
+        counted separately; the runtime check in GazetteerMatcher still catches those.
+        :param places: iterable of Place, as from places_to_index()
+        :param threshold: record count
+        :return: set of name keys
+        """
+        counts = Counter()
+        for pl in places:
+            if pl.search_only:
+                continue
+            if pl.name_type in ("N", "A") or (pl.name_type == "C" and pl.feature_class == "A"):
+                counts[fanout_key(pl.name)] += 1
+        return {nm for nm, count in counts.items() if count > threshold}
+
     def index(self, url, features=None, ignore_features=None, ignore_func=None,
-              ignore_digits=True, ignore_names=False, limit=-1, countries=[]):
+              ignore_digits=True, ignore_names=False, limit=-1, countries=[], prune_fanout=False):
         """
 
         :param url:  Gazetteer URL
@@ -237,6 +298,8 @@ class Finalizer:
         :param ignore_names:  True if indexer should ignore name_type=N, e.g,. postal
         :param limit:
         :param countries: array of country codes.
+        :param prune_fanout: True if minor features of very common names are indexed as search_only, so the tagger
+                            returns only the major features for such names.
         :return:
         """
 
@@ -257,26 +320,34 @@ class Finalizer:
         default_criteria = " and duplicate=0"
         if ignore_names:
             default_criteria = " and duplicate=0 and name_type!='N'"
-        # For each row in DB, index to Solr.  Maybe organize batches by row ID where dup=0.
         cc_list = countries or self.db.list_countries()
+
+        def places(cc):
+            return self.places_to_index(cc, default_criteria, limit=limit, filters=filters,
+                                        inclusion_filters=inclusion_filters, ignore_func=ignore_func,
+                                        ignore_digits=ignore_digits)
+
+        fanout_names = set()
+        pruned = 0
+        if prune_fanout:
+            # First pass over the same rows and filters as indexing below, so counts match what is tagged.
+            fanout_names = self.high_fanout_names(pl for cc in cc_list for pl in places(cc))
+            print(f"High fan-out names: {len(fanout_names)}")
+
+        # For each row in DB, index to Solr.  Maybe organize batches by row ID where dup=0.
         for cc in cc_list:
             print(f"Country '{cc}'")
-            for pl in self.db.list_places(cc=cc, criteria=default_criteria, limit=limit):
-                if ignore_func:
-                    if ignore_func(pl):
-                        continue
-                if filter_out_feature(pl, filters):
-                    continue
-                if ignore_digits and pl.name.isdigit():
-                    continue
-                if not filter_in_feature(pl, inclusion_filters):
-                    continue
+            for pl in places(cc):
+                if fanout_names and not pl.search_only and minor_feature(pl) and fanout_key(pl.name) in fanout_names:
+                    # Search only in the index; DB row is unchanged, so this is recomputed on each build.
+                    pl.search_only = True
+                    pruned += 1
                 indexer.add(pl)
             sleep(self.inter_country_delay)
             # Done with country
             indexer.save(done=True)
 
-        print(f"Indexed {indexer.count}")
+        print(f"Indexed {indexer.count}, minor features of high fan-out names not tagged: {pruned}")
         indexer.save(done=True)
         # SOLR optimization always happens.  This is different than SQLite optimization.
         indexer.optimize()
@@ -337,7 +408,7 @@ if __name__ == "__main__":
         else:
             gaz = Finalizer(args.db, debug=args.debug)
             gaz.index(args.solr, ignore_digits=True, limit=int(args.max), countries=cclist,
-                      ignore_func=oddball_omissions,
+                      ignore_func=oddball_omissions, prune_fanout=True,
                       ignore_features={"H/WLL.*",
                                        "H/STM[ABCDHIQSBX]+",
                                        "H/SPNG.*",
@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.opensextant.data.TextInput;
+
+/**
+ * Per-thread view of the document being processed: case and script characterization of the text, computed once,
+ * and language-specific filters reused across documents.  GazetteerMatcher, the geocoding rules and TaxonMatcher
+ * ask for the context of the same TextInput and get the same answers without characterizing the buffer again.
+ * <p>
+ * The context of a thread follows the last TextInput given to of(); it is recomputed when a different input,
+ * buffer or language ID is seen.  The input is held weakly, so a thread does not keep its last document alive.
+ * Instances are not thread-safe and must not be handed to other threads.
+ *
+ * @author ubaldino
+ */
+public final class DocumentContext {
+
+    private static final ThreadLocal<DocumentContext> CURRENT = ThreadLocal.withInitial(DocumentContext::new);
+
+    private WeakReference<TextInput> input = new WeakReference<>(null);
+    private WeakReference<String> buffer = new WeakReference<>(null);
+    private String langid = null;
+    private boolean lower = false;
+    private boolean upper = false;
+    private boolean mixedCase = false;
+    private boolean cjk = false;
+    private boolean middleEastern = false;
+
+    /** filter type =&gt; langid =&gt; filter */
+    private final Map<Class<?>, Map<String, Object>> filters = new HashMap<>();
+
+    private DocumentContext() {
+    }
+
+    /**
+     * Context of the given input for the current thread, characterizing the input if this thread has not seen it.
+     * Once characterized, the case fields of the TextInput itself (isLower, isUpper) are also set.
+     *
+     * @param in document
+     * @return context for this thread
+     */
+    public static DocumentContext of(TextInput in) {
+        DocumentContext ctx = CURRENT.get();
+        if (ctx.input.get() != in || ctx.buffer.get() != in.buffer || !Objects.equals(ctx.langid, in.langid)) {
+            ctx.characterize(in);
+        }
+        return ctx;
+    }
+
+    private void characterize(TextInput in) {
+        in.characterize();
+        lower = in.isLower;
+        upper = in.isUpper;
+        mixedCase = in.isMixedCase();
+        cjk = in.getCharacterization().hasCJK;
+        middleEastern = in.getCharacterization().hasMiddleEastern;
+        langid = in.langid;
+        input = new WeakReference<>(in);
+        buffer = new WeakReference<>(in.buffer);
+    }
+
+    /**
+     * Language-specific filter for this document, created once per thread, filter type and language ID.
+     * Filters obtained this way must not carry per-document state.
+     *
+     * @param type    filter class
+     * @param factory creates a filter given a language ID, which may be null
+     * @param <F>     filter type
+     * @return cached filter for the document language
+     */
+    public <F> F filter(Class<F> type, Function<String, F> factory) {
+        Map<String, Object> byLang = filters.computeIfAbsent(type, t -> new HashMap<>());
+        Object f = byLang.get(langid);
+        if (f == null) {
+            f = factory.apply(langid);
+            byLang.put(langid, f);
+        }
+        return type.cast(f);
+    }
+
+    public String getLangID() {
+        return langid;
+    }
+
+    /**
+     * @return true if document is mostly lower case
+     */
+    public boolean isLower() {
+        return lower;
+    }
+
+    /**
+     * @return true if document is mostly upper case
+     */
+    public boolean isUpper() {
+        return upper;
+    }
+
+    public boolean isMixedCase() {
+        return mixedCase;
+    }
+
+    public boolean hasCJK() {
+        return cjk;
+    }
+
+    public boolean hasMiddleEastern() {
+        return middleEastern;
+    }
+}
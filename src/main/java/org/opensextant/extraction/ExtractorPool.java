@@ -0,0 +1,289 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opensextant.ConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed set of configured extractors -- PlaceGeocoder, TaxonMatcher, PostalGeocoder, etc. -- leased to request
+ * threads.  Use a pool for extractors that keep per-document state and so serve one document at a time.
+ * Instances are built once, up front; heavyweight resources they load through the shared registries
+ * (Solr containers, stop terms, population statistics, person name dictionaries) are loaded once per process,
+ * so N instances cost far less than N times one instance.
+ * <pre>
+ *   ExtractorPool&lt;PostalGeocoder&gt; pool = new ExtractorPool&lt;&gt;("postal", 8, () -&gt; {
+ *       PostalGeocoder g = new PostalGeocoder();
+ *       g.configure();
+ *       return g;
+ *   });
+ *   List&lt;TextMatch&gt; found = pool.apply(g -&gt; g.extract(input));
+ * </pre>
+ * Borrowing waits up to the borrow timeout for an idle instance and fails with an ExtractionException after that.
+ * Every borrowed instance must be released, once; apply() does this for you.
+ *
+ * @param <T> extractor type
+ * @author ubaldino
+ */
+public class ExtractorPool<T> implements AutoCloseable {
+
+    /**
+     * Creates one configured extractor.
+     */
+    @FunctionalInterface
+    public interface Factory<T> {
+        T create() throws ConfigException;
+    }
+
+    /**
+     * Work done with a borrowed extractor.
+     */
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R apply(T extractor) throws ExtractionException;
+    }
+
+    public static final long DEFAULT_BORROW_TIMEOUT_MS = 30000;
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractorPool.class);
+
+    private final String name;
+    private final List<T> instances;
+    private final BlockingQueue<T> idle;
+    private final Set<T> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long borrowTimeout = DEFAULT_BORROW_TIMEOUT_MS;
+    private volatile boolean closed = false;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * Build size instances with the factory.  If any fails, instances already built are cleaned up.
+     *
+     * @param name    pool name, for metrics
+     * @param size    number of instances
+     * @param factory creates configured instances
+     * @throws ConfigException if an instance fails to configure
+     */
+    public ExtractorPool(String name, int size, Factory<T> factory) throws ConfigException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.name = name;
+        List<T> built = new ArrayList<>(size);
+        long t0 = System.currentTimeMillis();
+        try {
+            for (int x = 0; x < size; ++x) {
+                built.add(factory.create());
+            }
+        } catch (ConfigException | RuntimeException err) {
+            for (T ex : built) {
+                dispose(ex);
+            }
+            throw err;
+        }
+        instances = Collections.unmodifiableList(built);
+        idle = new ArrayBlockingQueue<>(size, false, built);
+        log.info("Pool {} of {} extractors ready in {} ms", name, size, System.currentTimeMillis() - t0);
+    }
+
+    /**
+     * @param ms time to wait for an idle instance, milliseconds
+     */
+    public void setBorrowTimeout(long ms) {
+        borrowTimeout = ms;
+    }
+
+    /**
+     * Borrow an instance, waiting up to the borrow timeout.
+     *
+     * @return instance to release() when done
+     * @throws ExtractionException if no instance is available in time, or pool is closed
+     */
+    public T borrow() throws ExtractionException {
+        return borrow(borrowTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param timeout time to wait for an idle instance
+     * @param unit    unit of timeout
+     * @return instance to release() when done
+     * @throws ExtractionException if no instance is available in time, or pool is closed
+     */
+    public T borrow(long timeout, TimeUnit unit) throws ExtractionException {
+        if (closed) {
+            throw new ExtractionException(String.format("Pool %s is closed", name));
+        }
+        long t0 = System.nanoTime();
+        T ex;
+        try {
+            ex = idle.poll(timeout, unit);
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+            throw new ExtractionException(String.format("Interrupted waiting on pool %s", name), err);
+        } finally {
+            waitNanos.add(System.nanoTime() - t0);
+        }
+        if (ex == null) {
+            timeouts.increment();
+            throw new ExtractionException(String.format("No extractor available from pool %s within %d ms", name,
+                    unit.toMillis(timeout)));
+        }
+        if (closed) {
+            /* Released while the pool was closing */
+            dispose(ex);
+            throw new ExtractionException(String.format("Pool %s is closed", name));
+        }
+        synchronized (leased) {
+            leased.add(ex);
+        }
+        borrows.increment();
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        return ex;
+    }
+
+    /**
+     * Return a borrowed instance to the pool.
+     *
+     * @param ex instance obtained from borrow()
+     */
+    public void release(T ex) {
+        synchronized (leased) {
+            if (!leased.remove(ex)) {
+                throw new IllegalArgumentException("Not an instance leased from pool " + name);
+            }
+        }
+        inUse.decrementAndGet();
+        if (closed) {
+            dispose(ex);
+            return;
+        }
+        idle.offer(ex);
+        /* If close() ran since the check above, its drain may have missed ex; whoever removes it disposes it */
+        if (closed && idle.remove(ex)) {
+            dispose(ex);
+        }
+    }
+
+    /**
+     * Borrow an instance, run task and release the instance.
+     *
+     * @param task work to do
+     * @param <R>  result type
+     * @return result of task
+     * @throws ExtractionException if no instance is available in time, or task fails
+     */
+    public <R> R apply(Task<T, R> task) throws ExtractionException {
+        T ex = borrow();
+        try {
+            return task.apply(ex);
+        } finally {
+            release(ex);
+        }
+    }
+
+    /**
+     * Clean up idle instances; instances still leased are cleaned up as they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        T ex;
+        while ((ex = idle.poll()) != null) {
+            dispose(ex);
+        }
+    }
+
+    private void dispose(T ex) {
+        try {
+            if (ex instanceof Extractor) {
+                ((Extractor) ex).cleanup();
+            } else if (ex instanceof AutoCloseable) {
+                ((AutoCloseable) ex).close();
+            }
+        } catch (Exception err) {
+            log.error("Pool {} failed to clean up extractor", name, err);
+        }
+    }
+
+    /**
+     * @return all instances, e.g., to report their own metrics.  Do not use them without borrowing.
+     */
+    public List<T> getInstances() {
+        return instances;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return instances.size();
+    }
+
+    public int getAvailable() {
+        return idle.size();
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getPeakInUse() {
+        return peakInUse.get();
+    }
+
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return average time spent waiting to borrow, milliseconds, including borrows that timed out.
+     */
+    public double getAverageWaitMillis() {
+        long n = borrows.sum() + timeouts.sum();
+        return n == 0 ? 0 : waitNanos.sum() / 1e6 / n;
+    }
+
+    /**
+     * @return a one-line summary suitable for logging metrics.
+     */
+    public String report() {
+        return String.format("Pool %s size=%d, in use=%d, peak=%d, borrows=%d, timeouts=%d, avg wait=%.2f ms",
+                name, getSize(), getInUse(), getPeakInUse(), getBorrowCount(), getTimeoutCount(),
+                getAverageWaitMillis());
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntsRef;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.handler.tagger.TagClusterReducer;
+import org.apache.solr.handler.tagger.Tagger;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.opensextant.ConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tagging backend that runs the Lucene tagger directly on the index of an embedded core,
+ * bypassing Solr request handling: no SolrQueryRequest, filter query evaluation or response
+ * marshalling per call.  The tagger walks the name field's terms with the field's query
+ * analyzer and reports record ids for each span straight into a TagList.
+ * <p>
+ * The tag filter -- the "fq" default of the core's /tag handler, e.g.,
+ * <code>-search_only:true AND (name_type:(N A) OR ...)</code> -- is evaluated once per index searcher
+ * into a bitset.  Likewise record ids ("id" docValues, numeric) are read once into an int[] by
+ * Lucene doc.  Both are rebuilt when the core opens a new searcher.
+ * <p>
+ * The index used is the one already loaded by the embedded core, so the name FSTs are not loaded twice.
+ *
+ * @author ubaldino
+ */
+public class LuceneTaggerBackend implements TaggerBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(LuceneTaggerBackend.class);
+
+    private final SolrCore core;
+    private final String filterQuery;
+
+    /**
+     * Per-searcher state: filter bits and record ids by Lucene doc id.
+     */
+    private static final class SearcherState {
+        final SolrIndexSearcher searcher;
+        final FixedBitSet accept;
+        final int[] recordIds;
+
+        SearcherState(SolrIndexSearcher s, FixedBitSet a, int[] ids) {
+            searcher = s;
+            accept = a;
+            recordIds = ids;
+        }
+    }
+
+    private volatile SearcherState state = null;
+
+    /**
+     * @param container      embedded Solr container
+     * @param coreName       core to tag with, e.g., "gazetteer"
+     * @param requestHandler tagger handler whose "fq" default is the tag filter, e.g., "/tag"
+     * @throws ConfigException if core is not loaded
+     */
+    public LuceneTaggerBackend(CoreContainer container, String coreName, String requestHandler)
+            throws ConfigException {
+        core = container.getCore(coreName);
+        if (core == null) {
+            throw new ConfigException("Solr core is not loaded: " + coreName);
+        }
+        filterQuery = handlerFilter(core, requestHandler);
+        log.info("Lucene tagger on CORE:{}, filter={}", coreName, filterQuery);
+    }
+
+    /**
+     * @return the "fq" in the defaults of the tagger request handler, or null
+     */
+    private static String handlerFilter(SolrCore core, String requestHandler) {
+        SolrRequestHandler handler = core.getRequestHandler(requestHandler);
+        if (handler instanceof RequestHandlerBase) {
+            NamedList<?> args = ((RequestHandlerBase) handler).getInitArgs();
+            Object defaults = args != null ? args.get("defaults") : null;
+            if (defaults instanceof NamedList) {
+                Object fq = ((NamedList<?>) defaults).get("fq");
+                return fq != null ? fq.toString() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get state for current searcher, building it if the searcher has changed.
+     */
+    private SearcherState currentState(SolrIndexSearcher searcher) throws IOException, ExtractionException {
+        SearcherState current = state;
+        if (current != null && current.searcher == searcher) {
+            return current;
+        }
+        synchronized (this) {
+            current = state;
+            if (current != null && current.searcher == searcher) {
+                return current;
+            }
+            long t0 = System.currentTimeMillis();
+            current = new SearcherState(searcher, filterBits(searcher), recordIds(searcher.getSlowAtomicReader()));
+            state = current;
+            log.info("Lucene tagger state loaded for {} docs in {} ms", searcher.maxDoc(),
+                    System.currentTimeMillis() - t0);
+            return current;
+        }
+    }
+
+    private FixedBitSet filterBits(SolrIndexSearcher searcher) throws IOException, ExtractionException {
+        final FixedBitSet bits = new FixedBitSet(searcher.maxDoc());
+        if (filterQuery == null) {
+            LeafReader reader = searcher.getSlowAtomicReader();
+            bits.set(0, searcher.maxDoc());
+            if (reader.getLiveDocs() != null) {
+                for (int doc = 0; doc < reader.maxDoc(); ++doc) {
+                    if (!reader.getLiveDocs().get(doc)) {
+                        bits.clear(doc);
+                    }
+                }
+            }
+            return bits;
+        }
+        Query filter;
+        LocalSolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams());
+        try {
+            filter = QParser.getParser(filterQuery, req).getQuery();
+        } catch (Exception err) {
+            throw new ExtractionException("Invalid tag filter: " + filterQuery, err);
+        } finally {
+            req.close();
+        }
+        searcher.search(filter, new SimpleCollector() {
+            private int docBase;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) {
+                docBase = context.docBase;
+            }
+
+            @Override
+            public void collect(int doc) {
+                bits.set(docBase + doc);
+            }
+
+            @Override
+            public boolean needsScores() {
+                return false;
+            }
+        });
+        return bits;
+    }
+
+    private static int[] recordIds(LeafReader reader) throws IOException, ExtractionException {
+        int[] ids = new int[reader.maxDoc()];
+        SortedDocValues idValues = DocValues.getSorted(reader, "id");
+        for (int doc = 0; doc < ids.length; ++doc) {
+            if (idValues.advanceExact(doc)) {
+                try {
+                    ids[doc] = Integer.parseInt(idValues.binaryValue().utf8ToString());
+                    if (ids[doc] < 0) {
+                        throw new ExtractionException("Lucene tagger requires non-negative record ids");
+                    }
+                } catch (NumberFormatException err) {
+                    throw new ExtractionException("Lucene tagger requires numeric record ids", err);
+                }
+            } else {
+                ids[doc] = -1;
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public long tag(String field, String buffer, TagList tags) throws ExtractionException {
+        RefCounted<SolrIndexSearcher> searcherRef = core.getSearcher();
+        try {
+            SolrIndexSearcher searcher = searcherRef.get();
+            final SearcherState current = currentState(searcher);
+            Terms terms = searcher.getSlowAtomicReader().terms(field);
+            if (terms == null) {
+                return 0;
+            }
+            FieldType fieldType = core.getLatestSchema().getFieldType(field);
+            Analyzer analyzer = fieldType.getQueryAnalyzer();
+            final int firstTag = tags.size();
+
+            try (TokenStream tokenStream = analyzer.tokenStream("", buffer)) {
+                Tagger tagger = new Tagger(terms, current.accept, tokenStream,
+                        TagClusterReducer.LONGEST_DOMINANT_RIGHT, false, false) {
+                    @Override
+                    protected void tagCallback(int startOffset, int endOffset, Object docIdsKey) {
+                        IntsRef docIds = lookupDocIds(docIdsKey);
+                        tags.startTag(startOffset, endOffset);
+                        for (int x = docIds.offset; x < docIds.offset + docIds.length; ++x) {
+                            int id = current.recordIds[docIds.ints[x]];
+                            if (id >= 0) {
+                                tags.addId(id);
+                            }
+                        }
+                    }
+                };
+                tagger.enableDocIdsCache(2000);
+                tagger.process();
+            }
+            return tags.distinctIds(firstTag);
+        } catch (IOException err) {
+            throw new ExtractionException("Failed to tag text", err);
+        } finally {
+            searcherRef.decref();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "lucene:" + core.getName();
+    }
+
+    @Override
+    public void close() {
+        state = null;
+        core.close();
+    }
+}
@@ -19,13 +19,25 @@ package org.opensextant.extraction;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.opensextant.ConfigException;
 import org.opensextant.util.SolrProxy;
 import org.opensextant.util.SolrUtil;
@@ -53,6 +65,44 @@ public abstract class SolrMatcherSupport implements Closeable {
     protected int getNamesTime = 0;
     protected int totalTime = 0;
 
+    /**
+     * Optional tagging backend. If null, tagging goes through the Solr request handler, returning
+     * matching records along with tags.
+     */
+    protected TaggerBackend taggerBackend = null;
+
+    /**
+     * Executor for asynchronous tagging; null means the shared default, see getExecutor().
+     */
+    private Executor executor = null;
+
+    /**
+     * Default executor for asynchronous tagging: an unbounded pool of daemon threads shared by all matchers.
+     * Tagging calls block on Solr I/O, so they are not run on the common ForkJoinPool.
+     */
+    private static final class DefaultExecutor {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "xponents-tagger-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * A tagging call that may fail with an ExtractionException.
+     *
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    protected interface TaggingCall<T> {
+        T call() throws ExtractionException;
+    }
+
     /**
      * Use this if you intend to set a non-default tagger path. E.g., /tag1
      * /tag-lang1 etc.
@@ -68,6 +118,14 @@ public abstract class SolrMatcherSupport implements Closeable {
      */
     @Override
     public void close() {
+        if (taggerBackend != null) {
+            try {
+                taggerBackend.close();
+            } catch (IOException err) {
+                this.log.error("Failure closing tagger backend", err);
+            }
+            taggerBackend = null;
+        }
         if (solr != null) {
             try {
                 solr.close();
@@ -77,6 +135,67 @@ public abstract class SolrMatcherSupport implements Closeable {
         }
     }
 
+    /**
+     * Plug in a tagging backend that returns record ids only, e.g., LuceneTaggerBackend.  Matchers that support
+     * backends resolve records on their own.  The backend is closed when this matcher is closed.
+     *
+     * @param backend tagging backend, or null for the default Solr request handler
+     */
+    public void setTaggerBackend(TaggerBackend backend) {
+        this.taggerBackend = backend;
+    }
+
+    public TaggerBackend getTaggerBackend() {
+        return taggerBackend;
+    }
+
+    /**
+     * Set the executor for tagTextAsync(), extractAsync(), etc.  Any Executor works, e.g., a fixed pool sized to
+     * the Solr connection pool, or on Java 21+ <code>Executors.newVirtualThreadPerTaskExecutor()</code>.
+     * The executor is owned by the caller and is not shut down by close().
+     *
+     * @param exec executor, or null for the shared default
+     */
+    public void setExecutor(Executor exec) {
+        this.executor = exec;
+    }
+
+    /**
+     * @return executor for asynchronous tagging
+     */
+    public Executor getExecutor() {
+        return executor != null ? executor : DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Run a tagging call on the executor.  An ExtractionException completes the future exceptionally,
+     * wrapped in a CompletionException as with CompletableFuture.supplyAsync().
+     *
+     * @param task tagging call
+     * @param <T>  result type
+     * @return future result
+     */
+    protected <T> CompletableFuture<T> async(TaggingCall<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (ExtractionException err) {
+                throw new CompletionException(err);
+            }
+        }, getExecutor());
+    }
+
+    /**
+     * Key for the domain object of a record in the reference data map. Override if tag ids are
+     * not plain strings, e.g., numeric ids.
+     *
+     * @param doc matching record
+     * @return key, by default the "id" as a string
+     */
+    protected Object recordKey(SolrDocument doc) {
+        return SolrUtil.getString(doc, "id");
+    }
+
     /**
      * Be explicit about the solr core to use for tagging.
      *
@@ -143,37 +262,127 @@ public abstract class SolrMatcherSupport implements Closeable {
      * @param buffer     text to tag
      * @param docid      id for text, only for tracking purposes
      * @param refDataMap - a map of reference data in solr, It will store
-     *                   caller's domain objects. e.g., rec.id =&gt; domain(rec)
+     *                   caller's domain objects. e.g., rec.id =&gt; domain(rec).
+     *                   If null, no documents are streamed; caller resolves tag ids on its own,
+     *                   e.g., when tagging with rows=0.
      * @return solr response
      * @throws ExtractionException tagger error
      */
     protected QueryResponse tagTextCallSolrTagger(String buffer, String docid, final Map<Object, Object> refDataMap)
             throws ExtractionException {
-        SolrTaggerRequest tagRequest = new SolrTaggerRequest(getMatcherParameters(), buffer);
+        return tagTextCallSolrTagger(buffer, docid, refDataMap, true);
+    }
+
+    /**
+     * Append tags of a tagger response to a TagList. Tags are already a TagList if decoded
+     * by TagResponseParser; otherwise, e.g., from embedded Solr, they are converted.
+     *
+     * @param response tagger response
+     * @param tags     tags are appended here
+     */
+    @SuppressWarnings("unchecked")
+    protected static void readTags(QueryResponse response, TagList tags) {
+        Object found = response.getResponse().get("tags");
+        if (found == tags) {
+            return;
+        }
+        if (found instanceof TagList) {
+            tags.addAll((TagList) found);
+        } else {
+            tags.addAll((List<NamedList<?>>) found);
+        }
+    }
+
+    /**
+     * Test if a tagger response was truncated at the tag limit.
+     *
+     * @param response tagger response
+     * @return true if DEFAULT_TAG_LIMIT matching records were found
+     */
+    protected static boolean isTagLimitReached(QueryResponse response) {
+        SolrDocumentList docList = response.getResults();
+        return docList != null && docList.getNumFound() >= DEFAULT_TAG_LIMIT;
+    }
+
+    /**
+     * Solr call: tag input buffer, as above.
+     *
+     * @param buffer      text to tag
+     * @param docid       id for text, only for tracking purposes
+     * @param refDataMap  a map of reference data in solr, or null
+     * @param failOnLimit if true throw an error when the tag limit is reached; Otherwise caller
+     *                    should test isTagLimitReached(response) and break up the input.
+     * @return solr response
+     * @throws ExtractionException tagger error
+     */
+    protected QueryResponse tagTextCallSolrTagger(String buffer, String docid, final Map<Object, Object> refDataMap,
+                                                  boolean failOnLimit)
+            throws ExtractionException {
+        return tagTextCallSolrTagger(buffer, docid, refDataMap, failOnLimit, this::createTag);
+    }
+
+    /**
+     * Solr call: tag input buffer, as above, with a caller-provided factory for domain objects.
+     *
+     * @param buffer      text to tag
+     * @param docid       id for text, only for tracking purposes
+     * @param refDataMap  a map of reference data in solr, or null
+     * @param failOnLimit if true throw an error when the tag limit is reached
+     * @param tagFactory  creates domain object for matching record, e.g., createTag
+     * @return solr response
+     * @throws ExtractionException tagger error
+     */
+    protected QueryResponse tagTextCallSolrTagger(String buffer, String docid, final Map<Object, Object> refDataMap,
+                                                  boolean failOnLimit, final Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        return tagTextCallSolrTagger(getMatcherParameters(), buffer, docid, refDataMap, failOnLimit, tagFactory);
+    }
+
+    /**
+     * Solr call: tag input buffer, as above, with request parameters owned by the caller.  This does not
+     * modify any state of this matcher, so it may be called concurrently.
+     *
+     * @param tagParams   tagger request parameters for this call
+     * @param buffer      text to tag
+     * @param docid       id for text, only for tracking purposes
+     * @param refDataMap  a map of reference data in solr, or null
+     * @param failOnLimit if true throw an error when the tag limit is reached
+     * @param tagFactory  creates domain object for matching record, e.g., createTag
+     * @return solr response
+     * @throws ExtractionException tagger error
+     */
+    protected QueryResponse tagTextCallSolrTagger(SolrParams tagParams, String buffer, String docid,
+                                                  final Map<Object, Object> refDataMap, boolean failOnLimit,
+                                                  final Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        SolrTaggerRequest tagRequest = new SolrTaggerRequest(tagParams, buffer);
         tagRequest.setPath(requestHandler);
-        // Stream the response to avoid serialization and to save memory by
-        // only keeping one SolrDocument materialized at a time
-        tagRequest.setStreamingResponseCallback(new StreamingResponseCallback() {
-            @Override
-            public void streamDocListInfo(long numFound, long start, Float maxScore) {
-                // implementation not needed
-            }
+        if (refDataMap == null) {
+            // IDs only: decode tags as primitives; see readTags()
+            tagRequest.setResponseParser(new TagResponseParser());
+        } else {
+            // Stream the response to avoid serialization and to save memory by
+            // only keeping one SolrDocument materialized at a time
+            tagRequest.setStreamingResponseCallback(new StreamingResponseCallback() {
+                @Override
+                public void streamDocListInfo(long numFound, long start, Float maxScore) {
+                    // implementation not needed
+                }
 
-            // Future optimization: it would be nice if Solr could give us the
-            // doc id without giving us a SolrDocument, allowing us to
-            // conditionally get it. It would save disk IO & speed, at the
-            // expense of putting ids into memory.
-            @Override
-            public void streamSolrDocument(final SolrDocument solrDoc) {
-                String id = SolrUtil.getString(solrDoc, "id");
-                // create a domain object for the given tag;
-                // this callback handler caches such domain obj in simple k/v map.
-                Object domainObj = createTag(solrDoc);
-                if (domainObj != null) {
-                    refDataMap.put(id, domainObj);
+                // For an id-only alternative that skips stored fields, see
+                // GazetteerMatcher.setPlaceStore()
+                @Override
+                public void streamSolrDocument(final SolrDocument solrDoc) {
+                    Object id = recordKey(solrDoc);
+                    // create a domain object for the given tag;
+                    // this callback handler caches such domain obj in simple k/v map.
+                    Object domainObj = tagFactory.apply(solrDoc);
+                    if (domainObj != null) {
+                        refDataMap.put(id, domainObj);
+                    }
                 }
-            }
-        });
+            });
+        }
 
         QueryResponse response;
         try {
@@ -188,16 +397,164 @@ public abstract class SolrMatcherSupport implements Closeable {
             StreamingResponseCallback callback = tagRequest.getStreamingResponseCallback();
             // Avoid creating objects on large buff if you know this will error out.
             if (docList.getNumFound() >= DEFAULT_TAG_LIMIT) {
+                if (!failOnLimit) {
+                    return response;
+                }
                 throw new ExtractionException(String.format("[Text ID: %s] Tag limit (n=%d) reached. Break up your input (len=%d)",
                         docid, DEFAULT_TAG_LIMIT, buffer.length()));
             }
 
-            callback.streamDocListInfo(docList.getNumFound(), docList.getStart(), docList.getMaxScore());
-            for (SolrDocument solrDoc : docList) {
-                callback.streamSolrDocument(solrDoc);
+            if (callback != null) {
+                callback.streamDocListInfo(docList.getNumFound(), docList.getStart(), docList.getMaxScore());
+                for (SolrDocument solrDoc : docList) {
+                    callback.streamSolrDocument(solrDoc);
+                }
             }
         }
 
         return response;
     }
+
+    /**
+     * Separator for concatenating short texts into one tagger request. Punctuation is dropped by the
+     * tag analyzer, so a nonsense token is used to keep the tagger from matching a phrase across two texts.
+     */
+    public static final String BATCH_SEPARATOR = "\n\n xq9zq9x \n\n";
+
+    /**
+     * Default limit on the length of a concatenated batch.
+     */
+    public static final int DEFAULT_BATCH_LENGTH = 50000;
+
+    /**
+     * Shift the offsets of a tag.
+     *
+     * @param tag   tagger tag
+     * @param shift chars to add to start and end offsets.
+     */
+    @SuppressWarnings("unchecked")
+    protected static void rebaseTag(NamedList<?> tag, int shift) {
+        NamedList<Object> t = (NamedList<Object>) tag;
+        t.setVal(t.indexOf("startOffset", 0), (Integer) t.get("startOffset") + shift);
+        t.setVal(t.indexOf("endOffset", 0), (Integer) t.get("endOffset") + shift);
+    }
+
+    /**
+     * Many short texts concatenated for a single tagger request. Tags on the concatenated buffer are
+     * split back out to each text by offset.
+     */
+    protected static class TagBatch {
+        public final String buffer;
+        private final int[] starts;
+        private final int[] ends;
+
+        public TagBatch(List<String> texts) {
+            starts = new int[texts.size()];
+            ends = new int[texts.size()];
+            StringBuilder buf = new StringBuilder();
+            for (int x = 0; x < texts.size(); ++x) {
+                if (x > 0) {
+                    buf.append(BATCH_SEPARATOR);
+                }
+                starts[x] = buf.length();
+                buf.append(texts.get(x));
+                ends[x] = buf.length();
+            }
+            buffer = buf.toString();
+        }
+
+        /**
+         * @return number of texts in batch
+         */
+        public int size() {
+            return starts.length;
+        }
+
+        /**
+         * Partition texts into batches no longer than maxLen, preserving order. A text longer than maxLen
+         * is a batch by itself.
+         *
+         * @param texts  texts
+         * @param maxLen max batch length
+         * @return batches
+         */
+        public static List<TagBatch> partition(List<String> texts, int maxLen) {
+            List<TagBatch> batches = new ArrayList<>();
+            List<String> current = new ArrayList<>();
+            int len = 0;
+            for (String text : texts) {
+                if (!current.isEmpty() && len + text.length() > maxLen) {
+                    batches.add(new TagBatch(current));
+                    current = new ArrayList<>();
+                    len = 0;
+                }
+                current.add(text);
+                len += text.length() + BATCH_SEPARATOR.length();
+            }
+            if (!current.isEmpty()) {
+                batches.add(new TagBatch(current));
+            }
+            return batches;
+        }
+
+        /**
+         * Demultiplex tags back to each text, as below.
+         *
+         * @param tags tags on the batch buffer, ordered by offset
+         * @return tags for each text, in batch order
+         */
+        public List<TagList> split(TagList tags) {
+            List<TagList> result = new ArrayList<>(starts.length);
+            for (int x = 0; x < starts.length; ++x) {
+                result.add(new TagList());
+            }
+            for (int t = 0; t < tags.size(); ++t) {
+                int idx = textAt(tags.start(t), tags.end(t));
+                if (idx >= 0) {
+                    result.get(idx).addTag(tags, t, -starts[idx]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return index of text wholly containing span, or -1
+         */
+        private int textAt(int x1, int x2) {
+            int idx = Arrays.binarySearch(starts, x1);
+            if (idx < 0) {
+                idx = -idx - 2;
+            }
+            if (idx < 0 || x2 > ends[idx]) {
+                return -1;
+            }
+            return idx;
+        }
+
+        /**
+         * Demultiplex tags back to each text. Offsets are rebased to each text; tags that are not
+         * wholly within one text are dropped.
+         *
+         * @param tags tags on the batch buffer, ordered by offset
+         * @return tags for each text, in batch order
+         */
+        public List<List<NamedList<?>>> split(List<NamedList<?>> tags) {
+            List<List<NamedList<?>>> result = new ArrayList<>(starts.length);
+            for (int x = 0; x < starts.length; ++x) {
+                result.add(new ArrayList<>());
+            }
+            if (tags == null) {
+                return result;
+            }
+            for (NamedList<?> tag : tags) {
+                int idx = textAt((Integer) tag.get("startOffset"), (Integer) tag.get("endOffset"));
+                if (idx < 0) {
+                    continue;
+                }
+                rebaseTag(tag, -starts[idx]);
+                result.get(idx).add(tag);
+            }
+            return result;
+        }
+    }
 }
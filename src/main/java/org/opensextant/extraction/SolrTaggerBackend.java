@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+
+/**
+ * Tagging backend using the Solr TaggerRequestHandler, embedded or over HTTP.  Requests
+ * ask for ids only (rows=0), so no records are returned; over HTTP, tags are decoded by TagResponseParser.
+ *
+ * @author ubaldino
+ */
+public class SolrTaggerBackend implements TaggerBackend {
+
+    private final SolrClient client;
+    private final SolrParams baseParams;
+    private final String requestHandler;
+
+    /**
+     * @param client         Solr client for the core
+     * @param params         tagger params, e.g., overlaps, tagsLimit
+     * @param requestHandler path of tagger, e.g., "/tag"
+     */
+    public SolrTaggerBackend(SolrClient client, SolrParams params, String requestHandler) {
+        this.client = client;
+        ModifiableSolrParams p = new ModifiableSolrParams(params);
+        p.set(CommonParams.FL, "id");
+        p.set(CommonParams.ROWS, 0);
+        p.set("matchText", false);
+        this.baseParams = p;
+        this.requestHandler = requestHandler;
+    }
+
+    @Override
+    public long tag(String field, String buffer, TagList tags) throws ExtractionException {
+        ModifiableSolrParams p = new ModifiableSolrParams(baseParams);
+        p.set("field", field);
+        SolrTaggerRequest tagRequest = new SolrTaggerRequest(p, buffer);
+        tagRequest.setPath(requestHandler);
+        tagRequest.setResponseParser(new TagResponseParser(tags));
+        QueryResponse response;
+        try {
+            response = tagRequest.process(client);
+        } catch (Exception err) {
+            throw new ExtractionException("Failed to tag text", err);
+        }
+        SolrMatcherSupport.readTags(response, tags);
+        SolrDocumentList docList = response.getResults();
+        return docList != null ? docList.getNumFound() : 0;
+    }
+
+    @Override
+    public String getName() {
+        return "solr" + requestHandler;
+    }
+
+    /**
+     * Client is owned by caller.
+     */
+    @Override
+    public void close() {
+    }
+}
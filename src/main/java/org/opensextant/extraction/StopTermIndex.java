@@ -0,0 +1,288 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, compiled set of stop terms keyed by language and normalized term.
+ * All terms live in one char array and one open-addressing hash table; each distinct term has a bit mask of the
+ * languages (or other term lists) it belongs to, so one probe answers "is this a stop term in any of these languages".
+ * <p>
+ * Terms are normalized by lower-casing each char; term lists declared with Builder.hyphenAsSpace() also treat '-' as ' ',
+ * e.g., the non-place names, while language stopwords match hyphens as is. Probes normalize the same way, char by char,
+ * so a span of a document buffer can be checked without creating a lower-case copy. Safe to share across threads.
+ * Up to 64 languages are supported.
+ *
+ * @author ubaldino
+ */
+public final class StopTermIndex {
+
+    private final Map<String, Long> languages;
+    private final long allLanguages;
+    /** Languages whose terms treat '-' as ' ' */
+    private final long hyphenLanguages;
+    /** Normalized term text, terms end to end */
+    private final char[] chars;
+    /** Term i is chars[offsets[i]..offsets[i+1]) */
+    private final int[] offsets;
+    private final long[] termLanguages;
+    /** term index + 1 per slot; 0 is empty */
+    private final int[] table;
+    private final int mask;
+
+    private StopTermIndex(Map<String, Long> langs, long hyphenLangs, Map<String, Long> terms) {
+        languages = langs;
+        hyphenLanguages = hyphenLangs;
+        long all = 0;
+        for (long bit : langs.values()) {
+            all |= bit;
+        }
+        allLanguages = all;
+
+        int total = 0;
+        for (String t : terms.keySet()) {
+            total += t.length();
+        }
+        int count = terms.size();
+        chars = new char[total];
+        offsets = new int[count + 1];
+        termLanguages = new long[count];
+        int size = 16;
+        while (size < count * 2) {
+            size <<= 1;
+        }
+        table = new int[size];
+        mask = size - 1;
+
+        int n = 0;
+        int pos = 0;
+        for (Map.Entry<String, Long> term : terms.entrySet()) {
+            String t = term.getKey();
+            t.getChars(0, t.length(), chars, pos);
+            offsets[n] = pos;
+            pos += t.length();
+            offsets[n + 1] = pos;
+            termLanguages[n] = term.getValue();
+
+            int slot = hash(chars, offsets[n], pos) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = ++n;
+        }
+    }
+
+    private static char normalize(char c, boolean hyphenAsSpace) {
+        return hyphenAsSpace && c == '-' ? ' ' : Character.toLowerCase(c);
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    private static int hash(char[] buf, int start, int end) {
+        int h = 0;
+        for (int x = start; x < end; ++x) {
+            h = 31 * h + buf[x];
+        }
+        return mix(h);
+    }
+
+    private static int hash(CharSequence buf, int start, int end, boolean hyphenAsSpace) {
+        int h = 0;
+        for (int x = start; x < end; ++x) {
+            h = 31 * h + normalize(buf.charAt(x), hyphenAsSpace);
+        }
+        return mix(h);
+    }
+
+    /**
+     * @param lang language ID or name of the term list given to the builder
+     * @return bit mask for lang; 0 if there are no terms for lang
+     */
+    public long languageMask(String lang) {
+        if (lang == null) {
+            return 0;
+        }
+        Long bit = languages.get(lang);
+        return bit != null ? bit : 0;
+    }
+
+    /**
+     * @return mask of all languages in index
+     */
+    public long allLanguages() {
+        return allLanguages;
+    }
+
+    /**
+     * @param lang language ID
+     * @return true if index has terms for lang
+     */
+    public boolean hasLanguage(String lang) {
+        return languageMask(lang) != 0;
+    }
+
+    /**
+     * @param langMask languages to check, from languageMask()
+     * @param text     term
+     * @return true if text is a stop term in any of the languages
+     */
+    public boolean contains(long langMask, CharSequence text) {
+        return contains(langMask, text, 0, text.length());
+    }
+
+    /**
+     * Probe a span of text, e.g., a match in the document buffer.
+     *
+     * @param langMask languages to check, from languageMask()
+     * @param text     buffer
+     * @param start    span start offset
+     * @param end      span end offset, exclusive
+     * @return true if text span is a stop term in any of the languages
+     */
+    public boolean contains(long langMask, CharSequence text, int start, int end) {
+        if (langMask == 0) {
+            return false;
+        }
+        long hyphenMask = langMask & hyphenLanguages;
+        if (hyphenMask == 0 || hyphenMask == langMask || !hasHyphen(text, start, end)) {
+            return probe(langMask, text, start, end, hyphenMask != 0);
+        }
+        /* Span with a hyphen, checked against lists with and without hyphen folding */
+        return probe(hyphenMask, text, start, end, true)
+                || probe(langMask & ~hyphenLanguages, text, start, end, false);
+    }
+
+    private static boolean hasHyphen(CharSequence text, int start, int end) {
+        for (int x = start; x < end; ++x) {
+            if (text.charAt(x) == '-') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean probe(long langMask, CharSequence text, int start, int end, boolean hyphenAsSpace) {
+        int len = end - start;
+        int slot = hash(text, start, end, hyphenAsSpace) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int t = entry - 1;
+            if ((termLanguages[t] & langMask) != 0 && offsets[t + 1] - offsets[t] == len
+                    && matches(offsets[t], text, start, end, hyphenAsSpace)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean matches(int offset, CharSequence text, int start, int end, boolean hyphenAsSpace) {
+        for (int x = start, y = offset; x < end; ++x, ++y) {
+            if (chars[y] != normalize(text.charAt(x), hyphenAsSpace)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return count of distinct normalized terms
+     */
+    public int size() {
+        return termLanguages.length;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects terms by language. Not thread-safe; build() once loaded.
+     */
+    public static final class Builder {
+        private final Map<String, Long> languages = new LinkedHashMap<>();
+        private final Map<String, Long> terms = new HashMap<>();
+        private long hyphenLanguages = 0;
+
+        private long bit(String lang) {
+            Long bit = languages.get(lang);
+            if (bit == null) {
+                if (languages.size() == Long.SIZE) {
+                    throw new IllegalArgumentException("StopTermIndex supports at most 64 languages");
+                }
+                bit = 1L << languages.size();
+                languages.put(lang, bit);
+            }
+            return bit;
+        }
+
+        /**
+         * Treat '-' as ' ' in terms of this list and in probes against it, e.g., "x-ray" matches "X Ray".
+         * Call before adding terms to the list.
+         *
+         * @param lang language ID or name of a term list
+         * @return this builder
+         */
+        public Builder hyphenAsSpace(String lang) {
+            hyphenLanguages |= bit(lang);
+            return this;
+        }
+
+        /**
+         * @param lang language ID or name of a term list
+         * @param term stop term in any case
+         * @return this builder
+         */
+        public Builder add(String lang, CharSequence term) {
+            long bit = bit(lang);
+            boolean hyphenAsSpace = (hyphenLanguages & bit) != 0;
+            StringBuilder buf = new StringBuilder(term.length());
+            for (int x = 0; x < term.length(); ++x) {
+                buf.append(normalize(term.charAt(x), hyphenAsSpace));
+            }
+            terms.merge(buf.toString(), bit, (a, b) -> a | b);
+            return this;
+        }
+
+        /**
+         * Add terms as loaded by Lucene (char[]) or other sets of strings.
+         *
+         * @param lang  language ID or name of a term list
+         * @param words terms
+         * @return this builder
+         */
+        public Builder addAll(String lang, Collection<?> words) {
+            bit(lang);
+            for (Object w : words) {
+                add(lang, w instanceof char[] ? new String((char[]) w) : w.toString());
+            }
+            return this;
+        }
+
+        public StopTermIndex build() {
+            return new StopTermIndex(new HashMap<>(languages), hyphenLanguages, terms);
+        }
+    }
+}
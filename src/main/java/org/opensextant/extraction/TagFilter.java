@@ -6,7 +6,6 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -40,13 +39,30 @@ public class TagFilter extends MatchFilter {
      */
     boolean filter_stopwords = true;
     boolean filter_on_case = true;
-    Set<String> nonPlaceStopTerms = null;
     public final static int GENERIC_LOWERCASE_MIN = 12;
 
+    /**
+     * Name of the language-neutral list of non-place terms in the stop term index.
+     */
+    public final static String NON_PLACE = "*";
+
     /*
      * Select languages for experimentation.
      */
-    private final Map<String, Set<Object>> langStopFilters = new HashMap<>();
+    private final static String[] STOPWORD_LANGS = {
+            "ja", "ko", "zh",
+            "ar", "fa", "ur",
+            "th", "tr", "id", "tl", "vi",
+            "ru", "it", "pt", "de", "nl", "es", "en"};
+
+    private static StopTermIndex defaultTerms = null;
+
+    /**
+     * Non-place terms and language stopwords; shared by all filters.
+     */
+    private final StopTermIndex stopTerms;
+    private final long nonPlaceMask;
+    private final long allLanguagesMask;
 
     /**
      * TagFilter is provides access to a superset of all stop filters for placenames, etc.
@@ -56,10 +72,29 @@ public class TagFilter extends MatchFilter {
      */
     public TagFilter() throws IOException {
         super();
+        stopTerms = getDefaultStopTerms();
+        nonPlaceMask = stopTerms.languageMask(NON_PLACE);
+        allLanguagesMask = stopTerms.allLanguages() & ~nonPlaceMask;
+    }
+
+    /**
+     * The default stop terms are loaded once and shared by all TagFilter instances.
+     *
+     * @return compiled stop terms
+     * @throws IOException if any file has a problem.
+     */
+    public static synchronized StopTermIndex getDefaultStopTerms() throws IOException {
+        if (defaultTerms == null) {
+            defaultTerms = loadDefaultStopTerms();
+        }
+        return defaultTerms;
+    }
+
+    private static StopTermIndex loadDefaultStopTerms() throws IOException {
+        StopTermIndex.Builder terms = StopTermIndex.builder().hyphenAsSpace(NON_PLACE);
         // Load specific Xponents filters to negate things that are
         // generally not place names.
         // ------------------------------------------------------
-        nonPlaceStopTerms = new HashSet<>();
         String[] defaultNonPlaceFilters = {"/filters/non-placenames.csv", // GENERAL
                 "/filters/non-placenames,spa.csv", // SPANISH
                 "/filters/non-placenames,deu.csv", // GERMAN
@@ -67,39 +102,22 @@ public class TagFilter extends MatchFilter {
                 "/filters/non-placenames,acronym.csv" // ACRONYMS
         };
         for (String f : defaultNonPlaceFilters) {
-            nonPlaceStopTerms.addAll(loadExclusions(GazetteerMatcher.class.getResourceAsStream(f)));
+            terms.addAll(NON_PLACE, loadExclusions(GazetteerMatcher.class.getResourceAsStream(f)));
         }
 
         // NOTE: these stop word sets are of format='wordset' -- as they are Lucene produced data sets
         // Whereas other languages (es, it, etc.) are provided in format='snowball'
         // StopFilterFactory is needed to load snowball filters.
         // ------------------------------------------------------
-        String[] langSet = {
-                "ja", "ko", "zh",
-                "ar", "fa", "ur",
-                "th", "tr", "id", "tl", "vi",
-                "ru", "it", "pt", "de", "nl", "es", "en"};
-        loadLanguageStopwords(langSet);
+        for (String lg : STOPWORD_LANGS) {
+            terms.addAll(lg, LuceneStopwords.getStopwords(new ClasspathResourceLoader(TagFilter.class), lg));
+        }
 
         // SPECIFIC NON-PLACES BY LANGUAGE; and GENERIC STOPWORDS
         // ------------------------------------------------------
-        Set<String> terms = loadExclusions(GazetteerMatcher.class.getResourceAsStream("/filters/non-placenames,ara.csv"));
-        langStopFilters.get("ar").addAll(terms);
-        terms = FileUtility.loadDictionary(GazetteerMatcher.class.getResource("/lang/stopwords_ar_mohataher.txt"), true);
-        langStopFilters.get("ar").addAll(terms);
-    }
-
-    /**
-     * Load default Lucene stop words to aid in language specific filtration.
-     *
-     * @param langids
-     * @throws IOException
-     * @throws ConfigException
-     */
-    private void loadLanguageStopwords(String[] langids) throws IOException, ConfigException {
-        for (String lg : langids) {
-            langStopFilters.put(lg, LuceneStopwords.getStopwords(new ClasspathResourceLoader(TagFilter.class), lg));
-        }
+        terms.addAll("ar", loadExclusions(GazetteerMatcher.class.getResourceAsStream("/filters/non-placenames,ara.csv")));
+        terms.addAll("ar", FileUtility.loadDictionary(GazetteerMatcher.class.getResource("/lang/stopwords_ar_mohataher.txt"), true));
+        return terms.build();
     }
 
     public void enableStopwordFilter(boolean b) {
@@ -110,6 +128,13 @@ public class TagFilter extends MatchFilter {
         filter_on_case = b;
     }
 
+    /**
+     * @return true if all lower case matches are filtered out
+     */
+    public boolean isCaseSensitive() {
+        return filter_on_case;
+    }
+
     /**
      * Default filtering rules: (a) If filter is in case-sensitive mode
      * (DEFAULT), all lower case matches are ignored; only mixed case or upper
@@ -123,33 +148,81 @@ public class TagFilter extends MatchFilter {
      */
     @Override
     public boolean filterOut(String t) {
-        if (filter_on_case && StringUtils.isAllLowerCase(t)) {
+        return filterOut(t, 0, t.length());
+    }
+
+    /**
+     * Same as filterOut(String) for a span of text, e.g., a match in the document buffer, without creating a String.
+     *
+     * @param buf   text
+     * @param start span start offset
+     * @param end   span end offset, exclusive
+     * @return true if span should be filtered out
+     */
+    public boolean filterOut(CharSequence buf, int start, int end) {
+        return filterOut(buf, start, end, filter_on_case);
+    }
+
+    /**
+     * As above, with case-sensitivity given by the caller rather than this filter, e.g., per request.
+     *
+     * @param buf           text
+     * @param start         span start offset
+     * @param end           span end offset, exclusive
+     * @param caseSensitive true if all lower case spans are filtered out
+     * @return true if span should be filtered out
+     */
+    public boolean filterOut(CharSequence buf, int start, int end, boolean caseSensitive) {
+        if (caseSensitive && isAllLowerCase(buf, start, end)) {
             return true;
         }
 
         if (filter_stopwords) {
-            return nonPlaceStopTerms.contains(t.toLowerCase().replace('-', ' '));
+            return stopTerms.contains(nonPlaceMask, buf, start, end);
         }
 
         return false;
     }
 
+    private static boolean isAllLowerCase(CharSequence buf, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int x = start; x < end; ++x) {
+            if (!Character.isLowerCase(buf.charAt(x))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Experimental.
      * Using proper Language ID (ISO 2-char for now), determine if the given
      * term, t, is a stop term in that language.
      *
      * @param t
-     * @param tin TextInput object, that has been characterized()
+     * @param tin TextInput object
      * @return
      */
     public boolean filterOut(TextMatch t, TextInput tin) {
+        return filterOut(t, DocumentContext.of(tin));
+    }
+
+    /**
+     * As above, given the characterization of the document already held by this thread.
+     *
+     * @param t   match
+     * @param doc document context
+     * @return true if match is a stop term
+     */
+    public boolean filterOut(TextMatch t, DocumentContext doc) {
 
         /*
          * Consider no given language ID -- only short, non-ASCII terms should be filtered out
          * against all stop filters; Otherwise there is some performance issues.
          */
-        if (tin.langid == null) {
+        if (doc.getLangID() == null) {
             if (t.isASCII()) {
                 return false; /* Not filtering out short crap, right now. */
             } else if (t.getLength() < 4) {
@@ -159,19 +232,16 @@ public class TagFilter extends MatchFilter {
 
         /* CASE A -- input has language ID, so we filter MATCH against stop filters for that language.
          * Consider language specific stop filters.
-         * NOTE: LangID should not be 'CJK' or group. langStopFilters keys stop terms by LangID
+         * NOTE: LangID should not be 'CJK' or group. stop terms are keyed by LangID
          */
-        if (langStopFilters.containsKey(tin.langid)) {
-            Set<Object> terms = langStopFilters.get(tin.langid);
-            if (terms.contains(t.getTextnorm())) {
-                return true;
-            }
+        if (stopTerms.contains(stopTerms.languageMask(doc.getLangID()), t.getTextnorm())) {
+            return true;
         }
 
-        if (tin.getCharacterization().hasCJK) {
+        if (doc.hasCJK()) {
             // CASE B. - generalization for CJK text -- filter out trivial trigram and bigrams for CJK
             return filterOutCJK(t);
-        } else if (tin.isMixedCase()) {
+        } else if (doc.isMixedCase()) {
             // CASE C. Allow Proper names
             char c = t.getText().charAt(0);
             if (Character.isUpperCase(c) && !t.isUpper()) {
@@ -193,11 +263,7 @@ public class TagFilter extends MatchFilter {
 
         String lg = langId != null ? langId : "en"; // default? eek.
 
-        if (langStopFilters.containsKey(lg)) {
-            Set<Object> terms = langStopFilters.get(lg);
-            return terms.contains(termLower);
-        }
-        return false;
+        return stopTerms.contains(stopTerms.languageMask(lg), termLower);
     }
 
     /**
@@ -242,12 +308,7 @@ public class TagFilter extends MatchFilter {
      * @return
      */
     public boolean assessAllFilters(String textnorm) {
-        for (Set<Object> terms : langStopFilters.values()) {
-            if (terms.contains(textnorm)) {
-                return true;
-            }
-        }
-        return false;
+        return stopTerms.contains(allLanguagesMask, textnorm);
     }
 
     /**
@@ -0,0 +1,270 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Tagger output in columnar form: for each tag, the start and end offset of the matched span
+ * and the record ids (the numeric "id" of matching index rows) in primitive arrays.
+ * Tags are appended in order of offset, e.g.,
+ * <pre>
+ *   tags.startTag(38, 40);
+ *   tags.addId(35);
+ *   tags.startTag(41, 49);
+ *   tags.addId(750308); tags.addId(2769912); ...
+ * </pre>
+ * Not thread-safe; each tagging call owns its own list.
+ * <p>
+ * Record ids are expected to be numeric, as they are for the Xponents gazetteer.  Other ids, e.g., from a
+ * custom index, are held as negative surrogates local to the list; use recordKey() to look up records.
+ * Tagging modes that return ids only require numeric ids.
+ *
+ * @author ubaldino
+ */
+public final class TagList {
+
+    private int size = 0;
+    private int[] starts;
+    private int[] ends;
+    /* ids of tag i are ids[idStarts[i]] .. ids[idStarts[i+1] - 1] */
+    private int[] idStarts;
+    private int[] ids;
+    private int idCount = 0;
+    /* Non-numeric record ids of this list; surrogate -1 - x stands for surrogateIds.get(x) */
+    private List<String> surrogateIds = null;
+    private Map<String, Integer> surrogates = null;
+
+    public TagList() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial number of tags
+     */
+    public TagList(int capacity) {
+        int cap = Math.max(capacity, 1);
+        starts = new int[cap];
+        ends = new int[cap];
+        idStarts = new int[cap + 1];
+        ids = new int[cap * 4];
+    }
+
+    /**
+     * Begin a new tag; follow with addId() for each record id.
+     *
+     * @param start start offset
+     * @param end   end offset
+     */
+    public void startTag(int start, int end) {
+        if (size == starts.length) {
+            int cap = size * 2;
+            starts = Arrays.copyOf(starts, cap);
+            ends = Arrays.copyOf(ends, cap);
+            idStarts = Arrays.copyOf(idStarts, cap + 1);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        ++size;
+        idStarts[size] = idCount;
+    }
+
+    /**
+     * Add a record id to the current tag.
+     *
+     * @param id record id
+     */
+    public void addId(int id) {
+        if (idCount == ids.length) {
+            ids = Arrays.copyOf(ids, idCount * 2);
+        }
+        ids[idCount++] = id;
+        idStarts[size] = idCount;
+    }
+
+    /**
+     * Copy tag i of another list onto this list, shifting its offsets.
+     *
+     * @param other source list
+     * @param i     tag index in source
+     * @param shift chars to add to offsets
+     */
+    public void addTag(TagList other, int i, int shift) {
+        startTag(other.starts[i] + shift, other.ends[i] + shift);
+        for (int x = other.idStarts[i]; x < other.idStarts[i + 1]; ++x) {
+            int id = other.ids[x];
+            addId(id < 0 ? surrogate(other.surrogateIds.get(-1 - id)) : id);
+        }
+    }
+
+    /**
+     * Append all tags of another list.
+     *
+     * @param other source list
+     */
+    public void addAll(TagList other) {
+        for (int i = 0; i < other.size; ++i) {
+            addTag(other, i, 0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * @param i tag index
+     * @return count of record ids on tag i
+     */
+    public int idCount(int i) {
+        return idStarts[i + 1] - idStarts[i];
+    }
+
+    /**
+     * @param i tag index
+     * @param j id index within tag, 0 .. idCount(i) - 1
+     * @return record id
+     */
+    public int id(int i, int j) {
+        return ids[idStarts[i] + j];
+    }
+
+    /**
+     * Key of a record id in maps of records, as given by recordKey(String) for the original id.
+     *
+     * @param i tag index
+     * @param j id index within tag, 0 .. idCount(i) - 1
+     * @return Integer id, or the original id if not numeric
+     */
+    public Object recordKey(int i, int j) {
+        int id = id(i, j);
+        return id < 0 ? surrogateIds.get(-1 - id) : Integer.valueOf(id);
+    }
+
+    /**
+     * Key for a record in maps of records: the Integer id if numeric, otherwise the id itself.
+     *
+     * @param id record id, as found in the "id" field of a record
+     * @return key
+     */
+    public static Object recordKey(String id) {
+        int num = numericId(id);
+        return num < 0 ? id : Integer.valueOf(num);
+    }
+
+    /**
+     * @return non-negative integer value of id, or -1 if not numeric
+     */
+    private static int numericId(String id) {
+        try {
+            return Math.max(Integer.parseInt(id), -1);
+        } catch (NumberFormatException err) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return surrogate for a non-numeric id, assigned on first use in this list
+     */
+    private int surrogate(String id) {
+        if (surrogates == null) {
+            surrogates = new HashMap<>();
+            surrogateIds = new ArrayList<>();
+        }
+        Integer s = surrogates.get(id);
+        if (s == null) {
+            surrogateIds.add(id);
+            s = -surrogateIds.size();
+            surrogates.put(id, s);
+        }
+        return s;
+    }
+
+    /**
+     * Count distinct record ids on tags from tag index first to the end of the list.
+     *
+     * @param first tag index
+     * @return number of distinct ids
+     */
+    public int distinctIds(int first) {
+        int from = idStarts[first];
+        if (from == idCount) {
+            return 0;
+        }
+        int[] sorted = Arrays.copyOfRange(ids, from, idCount);
+        Arrays.sort(sorted);
+        int count = 1;
+        for (int x = 1; x < sorted.length; ++x) {
+            if (sorted[x] != sorted[x - 1]) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        size = 0;
+        idCount = 0;
+        idStarts[0] = 0;
+        if (surrogates != null) {
+            surrogates.clear();
+            surrogateIds.clear();
+        }
+    }
+
+    /**
+     * Append tags from a tagger response, i.e., the "tags" list of startOffset, endOffset, ids.
+     * Non-numeric record ids are held as surrogates, see recordKey().
+     *
+     * @param tags tagger response tags, may be null
+     */
+    public void addAll(List<NamedList<?>> tags) {
+        if (tags == null) {
+            return;
+        }
+        for (NamedList<?> tag : tags) {
+            startTag((Integer) tag.get("startOffset"), (Integer) tag.get("endOffset"));
+            for (Object id : (List<?>) tag.get("ids")) {
+                if (id instanceof Number) {
+                    addId(((Number) id).intValue());
+                } else {
+                    String key = id.toString();
+                    int num = numericId(key);
+                    addId(num < 0 ? surrogate(key) : num);
+                }
+            }
+        }
+    }
+}
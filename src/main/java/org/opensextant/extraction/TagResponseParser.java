@@ -0,0 +1,214 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.DataInputInputStream;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+/**
+ * Javabin response parser for the tagger that decodes the "tags" section straight into a TagList:
+ * offsets and numeric ids are read from the stream as primitives, so no NamedList, boxed Integer, id
+ * String or List is created per tag.  The rest of the response (header, "response" doc list) is decoded
+ * as usual; in the parsed response "tags" maps to the TagList.
+ * <p>
+ * Applies to HTTP clients.  Embedded Solr does not marshal responses through a parser, so callers must still
+ * accept the List&lt;NamedList&gt; form, see SolrMatcherSupport.readTags().
+ *
+ * @author ubaldino
+ */
+public class TagResponseParser extends BinaryResponseParser {
+
+    private final TagList target;
+
+    /**
+     * Decode tags into a new TagList.
+     */
+    public TagResponseParser() {
+        this(new TagList());
+    }
+
+    /**
+     * @param tags decoded tags are appended here
+     */
+    public TagResponseParser(TagList tags) {
+        this.target = tags;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public NamedList<Object> processResponse(InputStream body, String encoding) {
+        try {
+            return (NamedList<Object>) new TagCodec(target).unmarshal(body);
+        } catch (IOException err) {
+            throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Failed to parse tagger response", err);
+        }
+    }
+
+    /**
+     * Codec that intercepts "tags" in the top level map.
+     */
+    private static final class TagCodec extends JavaBinCodec {
+        private final TagList tags;
+        private int depth = 0;
+        private byte[] bytes = new byte[32];
+        private int[] ids = new int[16];
+
+        TagCodec(TagList t) {
+            tags = t;
+        }
+
+        @Override
+        public SimpleOrderedMap<Object> readOrderedMap(DataInputInputStream dis) throws IOException {
+            SimpleOrderedMap<Object> map = new SimpleOrderedMap<>();
+            readEntries(dis, map);
+            return map;
+        }
+
+        @Override
+        public NamedList<Object> readNamedList(DataInputInputStream dis) throws IOException {
+            NamedList<Object> map = new NamedList<>();
+            readEntries(dis, map);
+            return map;
+        }
+
+        private void readEntries(DataInputInputStream dis, NamedList<Object> map) throws IOException {
+            int sz = readSize(dis);
+            ++depth;
+            try {
+                for (int i = 0; i < sz; i++) {
+                    String name = (String) readVal(dis);
+                    if (depth == 1 && "tags".equals(name)) {
+                        readTags(dis);
+                        map.add(name, tags);
+                    } else {
+                        map.add(name, readVal(dis));
+                    }
+                }
+            } finally {
+                --depth;
+            }
+        }
+
+        /**
+         * Tags: an array of named lists startOffset, endOffset, [matchText,] ids
+         */
+        private void readTags(DataInputInputStream dis) throws IOException {
+            tagByte = dis.readByte();
+            if ((tagByte >>> 5) != (ARR >>> 5)) {
+                throw new IOException("Tagger 'tags' is not an array");
+            }
+            int count = readSize(dis);
+            for (int t = 0; t < count; t++) {
+                tagByte = dis.readByte();
+                if ((tagByte >>> 5) != (NAMED_LST >>> 5) && (tagByte >>> 5) != (ORDERED_MAP >>> 5)) {
+                    throw new IOException("Tagger tag is not a named list");
+                }
+                int entries = readSize(dis);
+                int start = -1;
+                int end = -1;
+                int idCount = 0;
+                for (int e = 0; e < entries; e++) {
+                    String name = (String) readVal(dis);
+                    if ("startOffset".equals(name)) {
+                        start = readInt(dis);
+                    } else if ("endOffset".equals(name)) {
+                        end = readInt(dis);
+                    } else if ("ids".equals(name)) {
+                        idCount = readIds(dis);
+                    } else {
+                        readVal(dis);
+                    }
+                }
+                tags.startTag(start, end);
+                for (int x = 0; x < idCount; ++x) {
+                    tags.addId(ids[x]);
+                }
+            }
+        }
+
+        private int readInt(DataInputInputStream dis) throws IOException {
+            tagByte = dis.readByte();
+            if ((tagByte >>> 5) == (SINT >>> 5)) {
+                return readSmallInt(dis);
+            }
+            if (tagByte == INT) {
+                return dis.readInt();
+            }
+            Object val = readObject(dis);
+            return ((Number) val).intValue();
+        }
+
+        /**
+         * Read record ids into the scratch array.
+         *
+         * @return count of ids
+         */
+        private int readIds(DataInputInputStream dis) throws IOException {
+            tagByte = dis.readByte();
+            if ((tagByte >>> 5) != (ARR >>> 5)) {
+                throw new IOException("Tagger 'ids' is not an array");
+            }
+            int count = readSize(dis);
+            if (count > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(count, ids.length * 2));
+            }
+            for (int x = 0; x < count; ++x) {
+                ids[x] = readId(dis);
+            }
+            return count;
+        }
+
+        private int readId(DataInputInputStream dis) throws IOException {
+            tagByte = dis.readByte();
+            if ((tagByte >>> 5) == (STR >>> 5)) {
+                /* Parse UTF-8 digits in place, without creating a String */
+                int sz = readSize(dis);
+                if (sz > bytes.length) {
+                    bytes = new byte[sz * 2];
+                }
+                dis.readFully(bytes, 0, sz);
+                long id = 0;
+                for (int b = 0; b < sz; ++b) {
+                    int digit = bytes[b] - '0';
+                    if (digit < 0 || digit > 9 || sz > 10) {
+                        throw new IOException("Tagger record ids must be numeric");
+                    }
+                    id = id * 10 + digit;
+                }
+                if (id > Integer.MAX_VALUE) {
+                    throw new IOException("Tagger record id out of range");
+                }
+                return (int) id;
+            }
+            if ((tagByte >>> 5) == (SINT >>> 5)) {
+                return readSmallInt(dis);
+            }
+            if (tagByte == INT) {
+                return dis.readInt();
+            }
+            return Integer.parseInt(readObject(dis).toString());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extraction;
+
+import java.io.Closeable;
+
+/**
+ * A tagging backend finds spans of text that match names in an index and reports the
+ * numeric record ids for each span.  It does not retrieve records; callers resolve ids
+ * themselves, e.g., with a PlaceStore.  Implementations must be thread-safe.
+ *
+ * @author ubaldino
+ * @see SolrTaggerBackend
+ * @see LuceneTaggerBackend
+ */
+public interface TaggerBackend extends Closeable {
+
+    /**
+     * Tag a buffer.
+     *
+     * @param field  indexed name field to tag with, e.g., "name_tag"
+     * @param buffer text
+     * @param tags   tags are appended here, in order of offset
+     * @return number of distinct records matched, for comparison with SolrMatcherSupport.DEFAULT_TAG_LIMIT
+     * @throws ExtractionException on tagger error
+     */
+    long tag(String field, String buffer, TagList tags) throws ExtractionException;
+
+    /**
+     * @return name of backend, for logging
+     */
+    String getName();
+}
@@ -32,25 +32,33 @@ package org.opensextant.extractors.geo;
 //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~|
 // */
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
-import org.apache.solr.common.util.NamedList;
 import org.opensextant.ConfigException;
 import org.opensextant.data.LatLon;
 import org.opensextant.data.Place;
 import org.opensextant.data.TextInput;
+import org.opensextant.extraction.DocumentContext;
 import org.opensextant.extraction.ExtractionException;
+import org.opensextant.extraction.LuceneTaggerBackend;
 import org.opensextant.extraction.MatchFilter;
 import org.opensextant.extraction.SolrMatcherSupport;
 import org.opensextant.extraction.TagFilter;
+import org.opensextant.extraction.TagList;
 import org.opensextant.util.GeodeticUtility;
 import org.opensextant.util.SolrUtil;
 import org.opensextant.util.TextUtils;
@@ -61,8 +69,10 @@ import org.slf4j.LoggerFactory;
  * <code>SOLR_HOME</code> environment variable must be set to the location of
  * the Solr server.
  * <p>
- * This class is not thread-safe. It could be made to be
- * with little effort.
+ * Tagging and searching are thread-safe: each call owns its request parameters and
+ * metrics (see TagResult), so one matcher may be shared by many threads.  Configure the
+ * matcher (setAllowLowerCase, setMatchFilter, etc.) before sharing it; lower case matching may also be
+ * requested per call, see tagTextResult(TextInput, boolean, String, boolean).
  *
  * @author David Smiley - dsmiley@mitre.org
  * @author Marc Ubaldino - ubaldino@mitre.org
@@ -76,17 +86,13 @@ public class GazetteerMatcher extends SolrMatcherSupport {
     private MatchFilter userfilter = null;
     private MatchFilter continents;
 
-    /**
-     * invocation counts: default filter count and user filter count
-     */
-    private long defaultFilterCount = 0;
-    private long userFilterCount = 0;
     /**
      * lifecycle counts: default filter and matched counts. Ratio of filtered to
-     * (filter+match) gives an idea of false positive rates.
+     * (filter+match) gives an idea of false positive rates. Per-call counts are in TagResult.
      */
-    private long filteredTotal = 0;
-    private long matchedTotal = 0;
+    private final LongAdder filteredTotal = new LongAdder();
+    private final LongAdder matchedTotal = new LongAdder();
+    private final LongAdder skippedTotal = new LongAdder();
     private boolean allowLowercaseAbbrev = false;
     private static final int PHRASE_LEN = 20; /* Two short words */
 
@@ -99,9 +105,41 @@ public class GazetteerMatcher extends SolrMatcherSupport {
     private boolean enableCodeHunter = false;
 
     // All of these Solr-parameters for tagging are not user-tunable.
+    // These are set once in initialize(); each call copies them, see tagCallParams()
     private final ModifiableSolrParams params = new ModifiableSolrParams();
     private SolrGazetteer gazetteer = null;
 
+    /**
+     * ID-only tagging: tagger returns only gazetteer ids (rows=0) and Place records are
+     * resolved from an off-heap PlaceStore. Set system property "opensextant.placestore" to the
+     * store file to enable; the store is built from the gazetteer on first use.
+     */
+    public static final String PLACE_STORE_PROPERTY = "opensextant.placestore";
+    private final ModifiableSolrParams idOnlyParams = new ModifiableSolrParams();
+    private PlaceStore placeStore = null;
+    private static final int ID_LOOKUP_BATCH = 500;
+
+    /** Gazetteer records shared across documents and threads; null if disabled. */
+    private PlaceRecordCache placeCache = null;
+
+    /** Surviving records per tagged name, shared across documents and threads; null if disabled. */
+    private NameResolutionCache nameCache = null;
+
+    /**
+     * Windowed tagging: documents longer than the window size are tagged in windows split on sentence
+     * or whitespace boundaries, overlapping so names are not cut at the seams. A window that reaches
+     * the tag limit is split again.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 100000;
+    public static final int DEFAULT_WINDOW_OVERLAP = 200;
+    private static final int MIN_WINDOW_SIZE = 1000;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int windowOverlap = DEFAULT_WINDOW_OVERLAP;
+    private boolean parallelWindows = false;
+    private boolean multiScript = false;
+    private boolean pipelined = false;
+    private boolean skipUntaggable = true;
+
     public GazetteerMatcher() throws ConfigException {
         this(false);
     }
@@ -153,6 +191,8 @@ public class GazetteerMatcher extends SolrMatcherSupport {
         params.set("tagsLimit", DEFAULT_TAG_LIMIT);
         params.set(CommonParams.ROWS, DEFAULT_TAG_LIMIT);
         params.set("subTags", false);
+        /* Matched text is taken from the input buffer by offset */
+        params.set("matchText", false);
 
         /*
          * Possible overlaps: ALL, NO_SUB, LONGEST_DOMINANT_RIGHT See Solr Text
@@ -160,7 +200,110 @@ public class GazetteerMatcher extends SolrMatcherSupport {
          */
         params.set("overlaps", "LONGEST_DOMINANT_RIGHT");
 
+        /*
+         * Same tagging, but no matching documents are returned.  Tag "ids" are resolved by PlaceStore.
+         */
+        idOnlyParams.set(CommonParams.FL, "id");
+        idOnlyParams.set("tagsLimit", DEFAULT_TAG_LIMIT);
+        idOnlyParams.set(CommonParams.ROWS, 0);
+        idOnlyParams.set("subTags", false);
+        idOnlyParams.set("matchText", false);
+        idOnlyParams.set("overlaps", "LONGEST_DOMINANT_RIGHT");
+
         gazetteer = new SolrGazetteer(this.solr);
+        placeCache = PlaceRecordCache.getShared(getCoreName());
+        nameCache = NameResolutionCache.getShared(getCoreName());
+
+        String storePath = System.getProperty(PLACE_STORE_PROPERTY);
+        if (storePath != null) {
+            try {
+                setPlaceStore(PlaceStore.openOrBuild(solr.getInternalSolrClient(), new File(storePath)));
+            } catch (IOException | SolrServerException err) {
+                throw new ConfigException("Unable to open Place store at " + storePath, err);
+            }
+        }
+    }
+
+    /**
+     * Enable ID-only tagging with the given store, or disable it with null.  With a store
+     * the tagger does not retrieve stored fields for matching gazetteer rows; ids not found in the store
+     * are retrieved from the gazetteer in batch.
+     *
+     * @param store place store built from this gazetteer
+     */
+    public void setPlaceStore(PlaceStore store) {
+        this.placeStore = store;
+    }
+
+    public PlaceStore getPlaceStore() {
+        return this.placeStore;
+    }
+
+    /**
+     * Tag with the Lucene tagger directly on the embedded gazetteer index, bypassing Solr request handling.
+     * As with a PlaceStore, the tagger reports ids only; Places are resolved from the record cache,
+     * the PlaceStore if set, or the gazetteer.
+     *
+     * @param enable true to tag with LuceneTaggerBackend, false for the Solr request handler
+     * @throws ConfigException if gazetteer is not an embedded Solr core
+     */
+    public void setLuceneTagging(boolean enable) throws ConfigException {
+        if (taggerBackend != null) {
+            try {
+                taggerBackend.close();
+            } catch (IOException err) {
+                log.error("Failure closing tagger backend", err);
+            }
+            taggerBackend = null;
+        }
+        if (!enable) {
+            return;
+        }
+        if (!(solr.getInternalSolrClient() instanceof EmbeddedSolrServer)) {
+            throw new ConfigException("Lucene tagging requires an embedded Solr gazetteer");
+        }
+        EmbeddedSolrServer server = (EmbeddedSolrServer) solr.getInternalSolrClient();
+        setTaggerBackend(new LuceneTaggerBackend(server.getCoreContainer(), getCoreName(), requestHandler));
+    }
+
+    /**
+     * Replace the shared record cache for this matcher, or disable caching with null.
+     *
+     * @param cache record cache
+     */
+    public void setPlaceCache(PlaceRecordCache cache) {
+        this.placeCache = cache;
+    }
+
+    public PlaceRecordCache getPlaceCache() {
+        return this.placeCache;
+    }
+
+    /**
+     * Replace the shared name resolution cache for this matcher, or disable it with null.
+     *
+     * @param cache name cache
+     */
+    public void setNameCache(NameResolutionCache cache) {
+        this.nameCache = cache;
+    }
+
+    public NameResolutionCache getNameCache() {
+        return this.nameCache;
+    }
+
+    /**
+     * Drop cached records and name resolutions. Shared caches are cleared when an embedded gazetteer core
+     * is reloaded through SolrContainerRegistry; call this when the index changes otherwise, e.g., a remote
+     * gazetteer is rebuilt.
+     */
+    public void clearCaches() {
+        if (placeCache != null) {
+            placeCache.clear();
+        }
+        if (nameCache != null) {
+            nameCache.clear();
+        }
     }
 
     @Override
@@ -170,7 +313,24 @@ public class GazetteerMatcher extends SolrMatcherSupport {
 
     @Override
     public SolrParams getMatcherParameters() {
-        return params;
+        return isIdOnly() ? idOnlyParams : params;
+    }
+
+    /**
+     * @return true if tagger returns ids only, and Places are resolved by this matcher
+     */
+    private boolean isIdOnly() {
+        return placeStore != null || taggerBackend != null;
+    }
+
+    /**
+     * @param fld tag field
+     * @return a copy of the tagger parameters for one call
+     */
+    private ModifiableSolrParams tagCallParams(String fld) {
+        ModifiableSolrParams p = new ModifiableSolrParams(getMatcherParameters());
+        p.set("field", fld);
+        return p;
     }
 
     /**
@@ -226,6 +386,73 @@ public class GazetteerMatcher extends SolrMatcherSupport {
         this.enableCodeHunter = b;
     }
 
+    /**
+     * Set the window size and overlap for tagging large documents.
+     *
+     * @param size    window size in chars
+     * @param overlap chars shared by adjacent windows; should be longer than the longest place name.
+     */
+    public void setTaggingWindow(int size, int overlap) {
+        if (size < MIN_WINDOW_SIZE || overlap < 0 || overlap >= size / 2) {
+            throw new IllegalArgumentException(String.format("Invalid tagging window size=%d, overlap=%d", size, overlap));
+        }
+        this.windowSize = size;
+        this.windowOverlap = overlap;
+    }
+
+    /**
+     * Tag windows of large documents in parallel on the executor of this matcher (see setExecutor()).
+     *
+     * @param b flag
+     */
+    public void setParallelTagging(boolean b) {
+        this.parallelWindows = b;
+    }
+
+    /**
+     * Skip tagging of texts that cannot yield a candidate under case-sensitive rules -- no capitalized or
+     * non-Latin letters and no long lower case phrases, e.g., numeric tables or short lower case chatter.
+     * On by default; has no effect if lower case matches are allowed.  See hasTaggableText().
+     *
+     * @param b flag
+     */
+    public void setSkipUntaggableText(boolean b) {
+        this.skipUntaggable = b;
+    }
+
+    /**
+     * @return count of texts not sent to the tagger as they could not yield candidates
+     */
+    public long getSkippedCount() {
+        return skippedTotal.sum();
+    }
+
+    /**
+     * Pipelined tagging of large documents: while the tags of one window are filtered and assembled into
+     * candidates on the calling thread, the next window is tagged (and its records resolved) on the executor of
+     * this matcher.  Applies to documents longer than the tagging window; see setTaggingWindow().
+     * For 1 MB+ documents a window of 50,000 to 100,000 chars keeps both stages busy.
+     *
+     * @param b flag
+     */
+    public void setPipelinedTagging(boolean b) {
+        this.pipelined = b;
+    }
+
+    /**
+     * Multi-script tagging for mixed-language documents, e.g., Arabic with English or Chinese with English.
+     * tagText(TextInput, boolean) splits the buffer into runs of one script and tags each script's runs with
+     * its own name field (name_tag, name_tag_cjk, name_tag_ar) concurrently, on the executor of this matcher.
+     * Tags are merged into one candidate list with offsets in the whole buffer.
+     * Documents in a single script are tagged once, as usual, with the field for that script rather than by langid.
+     * If a bounded executor is set, size it for these per-script tasks in addition to any tagTextAsync() calls.
+     *
+     * @param b flag
+     */
+    public void setMultiScriptTagging(boolean b) {
+        this.multiScript = b;
+    }
+
     /**
      * User-provided filters to filter out matched names immediately. Avoid
      * filtering out things that are indeed places, but require disambiguation
@@ -271,14 +498,15 @@ public class GazetteerMatcher extends SolrMatcherSupport {
     public List<Place> searchAdvanced(String place, boolean as_solr, int maxLen)
             throws SolrServerException, IOException {
 
+        ModifiableSolrParams query = new ModifiableSolrParams(params);
         if (as_solr) {
-            params.set("q", place);
+            query.set("q", place);
         } else {
             // Bare keyword query needs to be quoted as "word word word"
-            params.set("q", "\"" + place + "\"");
+            query.set("q", "\"" + place + "\"");
         }
 
-        QueryResponse response = solr.getInternalSolrClient().query(params, SolrRequest.METHOD.GET);
+        QueryResponse response = solr.getInternalSolrClient().query(query, SolrRequest.METHOD.GET);
 
         List<Place> places = new ArrayList<>();
         for (SolrDocument solrDoc : response.getResults()) {
@@ -364,14 +592,196 @@ public class GazetteerMatcher extends SolrMatcherSupport {
      * @throws ExtractionException
      */
     public List<PlaceCandidate> tagText(TextInput t, boolean tagOnly) throws ExtractionException {
-        String fld = DEFAULT_TAG_FIELD;
+        return tagText(t, tagOnly, multiScript ? null : tagFieldFor(t));
+    }
+
+    /**
+     * As above, allowing lower case matches for this call only; see tagTextResult(TextInput, boolean, String, boolean)
+     *
+     * @param t         text
+     * @param tagOnly   True if you wish to get the matched phrases only.
+     * @param lowerCase true if lower case matches are allowed
+     * @return geocoded matches. see tagText()
+     * @throws ExtractionException on err
+     */
+    public List<PlaceCandidate> tagText(TextInput t, boolean tagOnly, boolean lowerCase) throws ExtractionException {
+        return tagTextResult(t, tagOnly, multiScript ? null : tagFieldFor(t), lowerCase).candidates;
+    }
+
+    /**
+     * Geotag a document as in tagText(TextInput, boolean), on the executor of this matcher (see setExecutor()).
+     * Compose the future with other extractors' work on the same document, e.g.,
+     * <pre>
+     *   CompletableFuture&lt;List&lt;PlaceCandidate&gt;&gt; geo = matcher.tagTextAsync(input, false);
+     *   CompletableFuture&lt;List&lt;TextMatch&gt;&gt; taxons = taxonMatcher.extractAsync(input, params);
+     *   geo.thenCombine(taxons, ...)
+     * </pre>
+     * Errors complete the future exceptionally with a CompletionException wrapping the ExtractionException.
+     *
+     * @param t       text
+     * @param tagOnly True if you wish to get the matched phrases only.
+     * @return future candidates
+     */
+    public CompletableFuture<List<PlaceCandidate>> tagTextAsync(TextInput t, boolean tagOnly) {
+        return async(() -> tagText(t, tagOnly));
+    }
+
+    /**
+     * Geotag a document as in tagTextResult(), on the executor of this matcher.
+     *
+     * @param input   text
+     * @param tagOnly True if you wish to get the matched phrases only.
+     * @param fld     gazetteer field to use for tagging
+     * @return future result with candidates and metrics for this call
+     */
+    public CompletableFuture<TagResult> tagTextResultAsync(TextInput input, boolean tagOnly, String fld) {
+        return async(() -> tagTextResult(input, tagOnly, fld));
+    }
+
+    /* Scripts tagged with their own name field; index into SCRIPT_FIELDS */
+    private static final int NO_SCRIPT = -1;
+    private static final int GENERAL_SCRIPT = 0;
+    private static final int CJK_SCRIPT = 1;
+    private static final int AR_SCRIPT = 2;
+    private static final String[] SCRIPT_FIELDS = { DEFAULT_TAG_FIELD, CJK_TAG_FIELD, AR_TAG_FIELD };
+
+    private static int scriptOf(int cp) {
+        if (cp < 0x0600) {
+            return Character.isLetter(cp) ? GENERAL_SCRIPT : NO_SCRIPT;
+        }
+        switch (Character.UnicodeScript.of(cp)) {
+        case HAN:
+        case HIRAGANA:
+        case KATAKANA:
+        case HANGUL:
+        case BOPOMOFO:
+            return CJK_SCRIPT;
+        case ARABIC:
+            return AR_SCRIPT;
+        case COMMON:
+        case INHERITED:
+        case UNKNOWN:
+            return NO_SCRIPT;
+        default:
+            return GENERAL_SCRIPT;
+        }
+    }
+
+    /**
+     * Split text into runs of one script: CJK, Arabic or general (Latin, Cyrillic, etc.).  Digits, punctuation and
+     * whitespace stay with the run they follow, so runs cover the whole buffer.
+     *
+     * @param buf text
+     * @return runs as {start, end, script}, in order
+     */
+    protected static List<int[]> scriptRuns(String buf) {
+        List<int[]> runs = new ArrayList<>();
+        int runStart = 0;
+        int runScript = NO_SCRIPT;
+        int x = 0;
+        while (x < buf.length()) {
+            int cp = buf.codePointAt(x);
+            int script = scriptOf(cp);
+            if (script != NO_SCRIPT && script != runScript) {
+                if (runScript != NO_SCRIPT) {
+                    runs.add(new int[] { runStart, x, runScript });
+                    runStart = x;
+                }
+                runScript = script;
+            }
+            x += Character.charCount(cp);
+        }
+        if (!buf.isEmpty()) {
+            runs.add(new int[] { runStart, buf.length(), runScript == NO_SCRIPT ? GENERAL_SCRIPT : runScript });
+        }
+        return runs;
+    }
+
+    /**
+     * @param t text
+     * @return name field to tag with, given the language of text
+     */
+    protected static String tagFieldFor(TextInput t) {
         if (t.langid != null) {
             String testField = lang2nameField.get(t.langid);
             if (testField != null) {
-                fld = testField;
+                return testField;
+            }
+        }
+        return DEFAULT_TAG_FIELD;
+    }
+
+    /**
+     * Tag many short texts -- tweets, profile locations, message subjects -- with one tagger request per
+     * batch of texts, rather than one request per text. Texts are grouped by tag field (see lang2nameField),
+     * concatenated with BATCH_SEPARATOR, tagged, and tags are demultiplexed back to each text by offset.
+     * Each text is then filtered as in tagText(TextInput, boolean).
+     *
+     * @param inputs  texts
+     * @param tagOnly True if you wish to get the matched phrases only.
+     * @return candidates for each input, in order of inputs
+     * @throws ExtractionException on err
+     */
+    public List<List<PlaceCandidate>> tagText(List<TextInput> inputs, boolean tagOnly) throws ExtractionException {
+        List<List<PlaceCandidate>> results = new ArrayList<>(inputs.size());
+        Map<String, List<Integer>> byField = new LinkedHashMap<>();
+        for (int x = 0; x < inputs.size(); ++x) {
+            if (isUntaggable(inputs.get(x), allowLowerCase)) {
+                skippedTotal.increment();
+                results.add(new ArrayList<>());
+                continue;
+            }
+            results.add(null);
+            byField.computeIfAbsent(tagFieldFor(inputs.get(x)), fld -> new ArrayList<>()).add(x);
+        }
+
+        boolean idOnly = isIdOnly();
+        for (Map.Entry<String, List<Integer>> group : byField.entrySet()) {
+            ModifiableSolrParams callParams = tagCallParams(group.getKey());
+            List<Integer> members = group.getValue();
+            List<String> texts = new ArrayList<>(members.size());
+            for (int x : members) {
+                texts.add(inputs.get(x).buffer);
+            }
+
+            int next = 0;
+            for (TagBatch batch : TagBatch.partition(texts, DEFAULT_BATCH_LENGTH)) {
+                long t0 = System.currentTimeMillis();
+                TextInput first = inputs.get(members.get(next));
+                TagResult batchCall = newCall(callParams, allowLowerCase);
+                /* Raw records are kept for the batch; each text gets its own Place objects below */
+                Map<Object, Object> docs = new HashMap<>();
+                TagList tags = tagWindows(batchCall, new TextInput(first.id, batch.buffer), docs,
+                        idOnly ? null : doc -> doc);
+                List<TagList> inputTags = batch.split(tags);
+
+                for (TagList textTags : inputTags) {
+                    int x = members.get(next);
+                    ++next;
+                    TextInput input = inputs.get(x);
+                    Map<Object, Object> beanMap = new HashMap<>();
+                    if (idOnly) {
+                        if (!textTags.isEmpty()) {
+                            resolvePlaces(textTags, beanMap, input.id);
+                        }
+                    } else {
+                        for (int t = 0; t < textTags.size(); ++t) {
+                            for (int j = 0; j < textTags.idCount(t); ++j) {
+                                Object solrId = textTags.recordKey(t, j);
+                                SolrDocument doc = (SolrDocument) docs.get(solrId);
+                                if (doc != null && !beanMap.containsKey(solrId)) {
+                                    beanMap.put(solrId, createTag(doc));
+                                }
+                            }
+                        }
+                    }
+                    TagResult call = newCall(callParams, allowLowerCase);
+                    call.tagNamesTime = batchCall.tagNamesTime;
+                    results.set(x, assembleCandidates(call, input, textTags, beanMap, tagOnly, t0));
+                }
             }
         }
-        return tagText(t, tagOnly, fld);
+        return results;
     }
 
     /**
@@ -379,6 +789,7 @@ public class GazetteerMatcher extends SolrMatcherSupport {
      * document. Optionally just return the PlaceCandidates with name only and
      * no Place objects attached. Names of contients are passed back as matches,
      * with geo matches. Continents are filtered out by default.
+     * Documents longer than the tagging window are tagged in overlapping windows; see setTaggingWindow().
      *
      * @param input   text object
      * @param tagOnly True if you wish to get the matched phrases only. False if
@@ -389,6 +800,39 @@ public class GazetteerMatcher extends SolrMatcherSupport {
      * @throws ExtractionException on err
      */
     public List<PlaceCandidate> tagText(TextInput input, boolean tagOnly, String fld) throws ExtractionException {
+        return tagTextResult(input, tagOnly, fld).candidates;
+    }
+
+    /**
+     * Geotag a document as in tagText(TextInput, boolean, String), returning the candidates together
+     * with the metrics for this call.  Use this rather than getTaggingNamesTime(), etc. if the matcher
+     * is shared by many threads.
+     *
+     * @param input   text object
+     * @param tagOnly True if you wish to get the matched phrases only.
+     * @param fld     gazetteer field to use for tagging; null to tag each script with its own field,
+     *                see setMultiScriptTagging()
+     * @return result with candidates and metrics for this call
+     * @throws ExtractionException on err
+     */
+    public TagResult tagTextResult(TextInput input, boolean tagOnly, String fld) throws ExtractionException {
+        return tagTextResult(input, tagOnly, fld, allowLowerCase);
+    }
+
+    /**
+     * Geotag a document as in tagTextResult(TextInput, boolean, String), allowing lower case matches for this call
+     * only, e.g., as requested by job parameters.  The setting of the matcher is not changed, so a shared matcher
+     * may serve calls with different settings.
+     *
+     * @param input     text object
+     * @param tagOnly   True if you wish to get the matched phrases only.
+     * @param fld       gazetteer field to use for tagging, or null; see above
+     * @param lowerCase true if lower case matches are allowed, see setAllowLowerCase()
+     * @return result with candidates and metrics for this call
+     * @throws ExtractionException on err
+     */
+    public TagResult tagTextResult(TextInput input, boolean tagOnly, String fld, boolean lowerCase)
+            throws ExtractionException {
         // "tagsCount":10, "tags":[{ "ids":[35], "endOffset":40,
         // "startOffset":38},
         // { "ids":[750308, 2769912, 2770041, 10413973, 10417546],
@@ -399,9 +843,6 @@ public class GazetteerMatcher extends SolrMatcherSupport {
         // "place_id":"USGS1992921", "name":"Monterrey", "cc":"PR"}, {
         // "place_id":"USGS1991763", "name":"Monterrey", "cc":"PR"}, ]
 
-        // Reset counts.
-        this.defaultFilterCount = 0;
-        this.userFilterCount = 0;
         // during post-processing tags we may have to distinguish between
         // tagging/tokenizing
         // general vs. cjk vs. ar. But not yet though.
@@ -409,27 +850,94 @@ public class GazetteerMatcher extends SolrMatcherSupport {
 
         long t0 = System.currentTimeMillis();
         log.debug("TEXT SIZE = {}", input.buffer.length());
-        params.set("field", fld);
+        TagResult call = newCall(tagCallParams(fld != null ? fld : DEFAULT_TAG_FIELD), lowerCase);
+        if (isUntaggable(input, lowerCase)) {
+            log.debug("DOC={} No taggable text", input.id);
+            skippedTotal.increment();
+            call.skipped = true;
+            call.totalTime = (int) (System.currentTimeMillis() - t0);
+            recordLastCall(call);
+            return call;
+        }
+        boolean idOnly = isIdOnly();
         Map<Object, Object> beanMap = new HashMap<>(100);
-        QueryResponse response = tagTextCallSolrTagger(input.buffer, input.id, beanMap);
-        if (beanMap.isEmpty()) {
-            // Nothing found.
-            return new ArrayList<>();
+        Function<SolrDocument, Object> tagFactory = idOnly ? null : this::createTag;
+        if (pipelined && fld != null && input.buffer.length() > windowSize) {
+            tagPipelined(call, input, tagOnly, tagFactory, t0);
+            return call;
         }
+        TagList tags = fld != null ? tagWindows(call, input, beanMap, tagFactory)
+                : tagScripts(call, input, beanMap, tagFactory);
+        if (idOnly && !tags.isEmpty()) {
+            resolvePlaces(tags, beanMap, input.id);
+        }
+        assembleCandidates(call, input, tags, beanMap, tagOnly, t0);
+        return call;
+    }
 
-        input.characterize();
-
-        LanguageFilter langFilter = new LanguageFilter(input.langid);
-
-        @SuppressWarnings("unchecked")
-        List<NamedList<?>> tags = (List<NamedList<?>>) response.getResponse().get("tags");
+    /**
+     * Filter tags and assemble PlaceCandidates for one input.
+     *
+     * @param call    state and metrics for this call; candidates are set here
+     * @param input   text
+     * @param tags    tags for this input, with offsets relative to input.buffer
+     * @param beanMap id =&gt; Place for all tag ids
+     * @param tagOnly true if no Places should be attached to candidates
+     * @param t0      start time of tagging, for metrics
+     * @return candidates
+     * @throws ExtractionException on err
+     */
+    private List<PlaceCandidate> assembleCandidates(TagResult call, TextInput input, TagList tags,
+                                                    Map<Object, Object> beanMap, boolean tagOnly, long t0)
+            throws ExtractionException {
+        if (beanMap.isEmpty() || tags.isEmpty()) {
+            // Nothing found.
+            call.totalTime = (int) (System.currentTimeMillis() - t0);
+            recordLastCall(call);
+            return call.candidates;
+        }
 
-        this.tagNamesTime = response.getQTime();
-        long t1 = t0 + tagNamesTime;
+        long t1 = t0 + call.tagNamesTime;
         long t2 = System.currentTimeMillis();
-        boolean geocode = !tagOnly;
+        CandidateAssembly assembly = new CandidateAssembly(call, input, tagOnly);
+        assembly.add(tags, beanMap);
+        call.getNamesTime = (int) (t2 - t1);
+        return assembly.finish(t0);
+    }
 
-        /*
+    /**
+     * Filters tags and assembles PlaceCandidates for one input.  Tags may be added in several batches, e.g.,
+     * per tagging window, as long as batches are added in offset order.
+     */
+    private class CandidateAssembly {
+        private final TagResult call;
+        private final TextInput input;
+        private final LanguageFilter langFilter;
+        private final boolean geocode;
+        private final String tagField;
+        private final int caseFlags;
+        private final boolean normalCaseHandling;
+        // names matched is used only for debugging, currently.
+        private final Set<String> namesMatched;
+        private int[] keptIds = new int[16];
+        private int lastStart = -1;
+        private boolean ordered = true;
+
+        CandidateAssembly(TagResult call, TextInput input, boolean tagOnly) {
+            this.call = call;
+            this.input = input;
+            /* Characterized once per document and thread; rules and TaxonMatcher reuse the same context */
+            DocumentContext doc = DocumentContext.of(input);
+            langFilter = doc.filter(LanguageFilter.class, LanguageFilter::new);
+            geocode = !tagOnly;
+            tagField = call.params.get("field");
+            caseFlags = (doc.isLower() ? 1 : 0) | (doc.isUpper() ? 2 : 0) | (call.allowLowerCase ? 4 : 0)
+                    | (allowLowercaseAbbrev ? 8 : 0) | (enableCodeHunter ? 16 : 0);
+            normalCaseHandling = !(call.allowLowerCase || allowLowercaseAbbrev || enableCodeHunter);
+            namesMatched = new HashSet<>();
+        }
+
+        /**
          * Retrieve all offsets into a long list. These offsets will report a
          * text span and all the gazetteer record IDs that are associated to
          * that span. The text could either be a name, a code or some other
@@ -439,265 +947,358 @@ public class GazetteerMatcher extends SolrMatcherSupport {
          * WARNING: lots of optimizations occur here due to the potentially
          * large volume of tags and gazetteer data that is involved. And this is
          * relatively early in the pipline.
+         *
+         * @param tags    tags, with offsets relative to input.buffer
+         * @param beanMap id =&gt; Place for all tag ids
+         * @throws ExtractionException on err
          */
-        log.debug("DOC={} TAGS SIZE={}", input.id, tags.size());
-
-        TreeMap<Integer, PlaceCandidate> candidates = new TreeMap<>();
-
-        // names matched is used only for debugging, currently.
-        Set<String> namesMatched = new HashSet<>();
-
-        for (NamedList<?> tag : tags) {
-
-            boolean validMatch = true;
-            int x1 = (Integer) tag.get("startOffset");
-            int x2 = (Integer) tag.get("endOffset");
-            int len = x2 - x1;
-            if (len == 1) {
-                // Ignoring place names whose length is less than 2 chars
-                ++this.defaultFilterCount;
-                continue;
-            }
-            // +1 char after last matched
-            // Could have enabled the "matchText" option from the tagger to get
-            // this, but since we already have the content as a String then
-            // we might as well not make the tagger do any more work.
+        void add(TagList tags, Map<Object, Object> beanMap) throws ExtractionException {
+            log.debug("DOC={} TAGS SIZE={}", input.id, tags.size());
 
-            String matchText = (String) tag.get("matchText");
-
-            /* Heuristic: Filter out particular tokens by length just by language */
-            if (langFilter.filterOut(matchText)) {
-                ++this.defaultFilterCount;
-                continue;
-            }
+            /*
+             * Tags arrive in offset order, so candidates are appended in order.
+             * No objects are created for spans until they pass the cheap text filters.
+             */
+            List<PlaceCandidate> candidates = call.candidates;
 
-            // IF the matched text span contains odd punctuation, we'll pass on it.
-            if (TextUtils.hasIrregularPunctuation(matchText)) {
-                ++this.defaultFilterCount;
-                continue;
-            }
+            for (int t = 0; t < tags.size(); ++t) {
 
-            // Get char immediately following match, for light NLP rules.
-            char postChar = 0;
-            char preChar;
-            if (x2 < input.buffer.length()) {
-                postChar = input.buffer.charAt(x2);
-            }
-            if (x1 > 0) {
-                preChar = input.buffer.charAt(x1 - 1);
-                if (assessApostrophe(preChar, matchText)) {
-                    ++this.defaultFilterCount;
+                boolean validMatch = true;
+                int x1 = tags.start(t);
+                int x2 = tags.end(t);
+                int len = x2 - x1;
+                if (len == 1) {
+                    // Ignoring place names whose length is less than 2 chars
+                    ++call.defaultFilterCount;
                     continue;
                 }
-            }
 
-            // Then filter out trivial matches. E.g., Us is filtered out. vs. US would.
-            // be allowed. If lowercase abbreviations are allowed, then all matches are passed.
-            boolean normalCaseHandling = !(allowLowerCase || allowLowercaseAbbrev || enableCodeHunter);
-            if (len <= PHRASE_LEN && normalCaseHandling && TextUtils.isASCII(matchText) && TextUtils.isLower(matchText)) {
-                ++this.defaultFilterCount;
-                continue;
-            }
+                /* Heuristic: Filter out particular tokens by length just by language */
+                if (langFilter.filterOut(len)) {
+                    ++call.defaultFilterCount;
+                    continue;
+                }
 
-            if (TextUtils.countFormattingSpace(matchText) > 1) {
-                // Phrases with words broken across more than one line are not
-                // valid matches.
-                // Phrase with a single TAB is okay
-                ++this.defaultFilterCount;
-                continue;
-            }
-            // Eliminate any newlines and extra whitespace in match
-            matchText = TextUtils.squeeze_whitespace(matchText);
+                // Get char immediately following match, for light NLP rules.
+                char postChar = 0;
+                if (x2 < input.buffer.length()) {
+                    postChar = input.buffer.charAt(x2);
+                }
+                if (x1 > 0 && assessApostrophe(input.buffer.charAt(x1 - 1), input.buffer, x1)) {
+                    ++call.defaultFilterCount;
+                    continue;
+                }
 
-            /*
-             * Filter out trivial tags. Due to normalization, we tend to get
-             * lots of false positives that can be eliminated early. This is
-             * testing matches against the most general set of stop words.
-             */
-            if (filter.filterOut(matchText)) {
-                ++this.defaultFilterCount;
-                continue;
-            }
+                // +1 char after last matched
+                // The "matchText" option of the tagger is not used;
+                // we already have the content as a String, so
+                // we might as well not make the tagger do any more work.
 
-            PlaceCandidate pc = new PlaceCandidate(x1, x2);
-            pc.setText(matchText);
+                String matchText = input.buffer.substring(x1, x2);
 
-            /*
-             * Filter out tags that user determined ahead of time as not-places
-             * for their context.
-             */
-            if (userfilter != null) {
-                if (userfilter.filterOut(pc.getTextnorm())) {
-                    log.debug("User Filter:{}", matchText);
-                    ++this.userFilterCount;
+                // IF the matched text span contains odd punctuation, we'll pass on it.
+                if (TextUtils.hasIrregularPunctuation(matchText)) {
+                    ++call.defaultFilterCount;
                     continue;
                 }
-            }
 
-            /*
-             * Continent filter is needed, as many mentions of contients confuse
-             * real geotagging/geocoding.
-             */
-            if (continents.filterOut(pc.getTextnorm())) {
-                pc.isContinent = true;
-                pc.setFilteredOut(true);
-                candidates.put(pc.start, pc);
-                continue;
-            }
+                // Then filter out trivial matches. E.g., Us is filtered out. vs. US would.
+                // be allowed. If lowercase abbreviations are allowed, then all matches are passed.
+                if (len <= PHRASE_LEN && normalCaseHandling && TextUtils.isASCII(matchText) && TextUtils.isLower(matchText)) {
+                    ++call.defaultFilterCount;
+                    continue;
+                }
 
-            /*
-             * Further testing is done if lang ID is provided AND if we have a
-             * stop list for that language. Otherwise, short terms are filtered
-             * out if they appear in any lang stop list. NOTE: internally
-             * TagFilter here checks only languages other than English, Spanish
-             * and Vietnamese.
-             */
-            if (this.enableCaseFilter && filter.filterOut(pc, input)) {
-                ++this.defaultFilterCount;
-                log.debug("STOPWORD {} {}", input.langid, pc.getText());
-                continue;
-            }
-            /*
-             * Everything Else.
-             * ============================
-             * Found UPPER CASE text in a mixed-cased document.
-             * Conservatively, this is likely an acronym or some heading.
-             * But possibly still a valid place name.
-             * HEURISTIC: acronyms are relatively short.
-             * HEURISTIC: region codes can be acronyms and are valid places
-             * using such place candidates you may score short acronym matches lower than
-             * fully named ones when inferring boundaries (states, provinces, etc)
-             */
-            pc.inferTextSense(input.isLower, input.isUpper);
-            pc.setSurroundingTokens(input.buffer);
-
-            @SuppressWarnings("unchecked")
-            List<Object> placeRecordIds = (List<Object>) tag.get("ids");
-            namesMatched.clear();
-
-            /* Very common names -- will be filtered to mainly A, P */
-            boolean largeGeoCount = placeRecordIds.size() > 100;
-
-            for (Object solrId : placeRecordIds) {
-                /* beanMap is populated by createTag() */
-                Place pGeo = (Place) beanMap.get(solrId);
-                if (pGeo == null) {
-                    // Uknown reason why beanMap may not contain the relevant tag info -- very large docs?
-                    throw new ExtractionException(String.format("[Text ID: %s] Place instance not found in-memory for gazetteer tag ID %s", input.id, solrId));
+                if (TextUtils.countFormattingSpace(matchText) > 1) {
+                    // Phrases with words broken across more than one line are not
+                    // valid matches.
+                    // Phrase with a single TAB is okay
+                    ++call.defaultFilterCount;
+                    continue;
                 }
+                // Eliminate any newlines and extra whitespace in match
+                matchText = TextUtils.squeeze_whitespace(matchText);
 
-                if (!GeodeticUtility.isCoord(pGeo)) {
-                    // Substantial USGS and other gazetteer entries have non-zero coordinates.  AVOID.
+                /*
+                 * Filter out trivial tags. Due to normalization, we tend to get
+                 * lots of false positives that can be eliminated early. This is
+                 * testing matches against the most general set of stop words.
+                 */
+                if (filter.filterOut(matchText, 0, matchText.length(), call.caseSensitive)) {
+                    ++call.defaultFilterCount;
                     continue;
                 }
 
-                /* OPTIMIZE: Pare down very large location matches */
-                if (largeGeoCount) {
-                    if (!(pGeo.isAdministrative() || pGeo.isPopulated())) {
-                        // Omit non-major places
-                        continue;
-                    }
-                    if (pGeo.getFeatureCode() != null &&
-                            (pGeo.getFeatureCode().endsWith("X") || pGeo.getFeatureCode().endsWith("H"))) {
-                        // Omit Ruins or historical features.  Not perfect match here.
+                PlaceCandidate pc = new PlaceCandidate(x1, x2);
+                pc.setText(matchText);
+
+                /*
+                 * Filter out tags that user determined ahead of time as not-places
+                 * for their context.
+                 */
+                if (userfilter != null) {
+                    if (userfilter.filterOut(pc.getTextnorm())) {
+                        log.debug("User Filter:{}", matchText);
+                        ++call.userFilterCount;
                         continue;
                     }
                 }
-                log.debug("{} = {}", pc.getText(), pGeo);
 
-                /* TEST: "In" (Text) match "IN" (Place) ?
-                 * TEST: "`Îs" (Text) match "IS" (Place) ?
+                /*
+                 * Continent filter is needed, as many mentions of contients confuse
+                 * real geotagging/geocoding.
                  */
-                if (pGeo.isCode() && !pGeo.getName().equalsIgnoreCase(pc.getText())) {
-                    validMatch = false;
-                    break;
+                if (continents.filterOut(pc.getTextnorm())) {
+                    pc.isContinent = true;
+                    pc.setFilteredOut(true);
+                    ordered &= x1 > lastStart;
+                    lastStart = x1;
+                    candidates.add(pc);
+                    continue;
                 }
 
-                /* Short matches on lowercase abbreviations
-                 * TEST: "Abc." (Text) matches "Abc" (Place)   normal
-                 * TEST: "Abc" (Text) matches "Abc." (Place)   normal
-                 * TEST: "abc" (Text) matches "abc" (Place)    allowLowercaseAbbrev = True
-                 * TEST: "abc" (Text) matches "abc" (Place)    else if Place represents an abbreviation , then filter out
+                /*
+                 * Further testing is done if lang ID is provided AND if we have a
+                 * stop list for that language. Otherwise, short terms are filtered
+                 * out if they appear in any lang stop list. NOTE: internally
+                 * TagFilter here checks only languages other than English, Spanish
+                 * and Vietnamese.
                  */
-                if (pc.isAbbrevLength()) {
-                    if (pc.isLower()) {
-                        // Lower case is allowed only if flags indicate so.
-                        validMatch = allowLowercaseAbbrev || allowLowerCase;
-                    }
+                if (enableCaseFilter && filter.filterOut(pc, input)) {
+                    ++call.defaultFilterCount;
+                    log.debug("STOPWORD {} {}", input.langid, pc.getText());
+                    continue;
+                }
+                /*
+                 * Everything Else.
+                 * ============================
+                 * Found UPPER CASE text in a mixed-cased document.
+                 * Conservatively, this is likely an acronym or some heading.
+                 * But possibly still a valid place name.
+                 * HEURISTIC: acronyms are relatively short.
+                 * HEURISTIC: region codes can be acronyms and are valid places
+                 * using such place candidates you may score short acronym matches lower than
+                 * fully named ones when inferring boundaries (states, provinces, etc)
+                 */
+                pc.inferTextSense(input.isLower, input.isUpper);
+                pc.setSurroundingTokens(input.buffer);
 
-                    // This should invalidate matching trivial "me", "oh", "we", etc. in mixed case text
-                    // If allowLowercaseAbbrev is enabled, then
-                    if (!validMatch) {
-                        break;
-                    }
+                int placeRecordCount = tags.idCount(t);
+                namesMatched.clear();
 
-                    // If Code Hunter is enabled we do not attempt too much here.
-                    if (!enableCodeHunter && !pc.isAbbreviation) {
-                        // Adjust flags for potential abbreviation matches
-                        // Example: Colo (Text) match ? Colo. (Place)
-                        assessAbbreviation(pc, pGeo, postChar, input.isUpper);
-                    }
-                }
+                /* Very common names -- will be filtered to mainly A, P.  Indexes built with gaz_finalize.py already
+                 * omit minor features of such names from tagging, so this applies to older indexes and name variants. */
+                boolean largeGeoCount = placeRecordCount > 100;
 
-                if (log.isDebugEnabled()) {
-                    namesMatched.add(pGeo.getName());
+                /*
+                 * A name resolves to the same records on every document; see NameResolutionCache.
+                 */
+                NameResolutionCache.Key nameKey = null;
+                long fingerprint = 0;
+                NameResolutionCache.Resolution resolved = null;
+                if (nameCache != null) {
+                    nameKey = new NameResolutionCache.Key(tagFieldAt(call, tagField, x1), pc.getText(), caseFlags);
+                    fingerprint = NameResolutionCache.fingerprint(tags, t);
+                    resolved = nameCache.get(nameKey, fingerprint);
                 }
 
-                /* COUNTRY feature bias:
-                 * Country names are the only names you can reasonably set ahead
-                 * of time. All other names need to be assessed in context.
-                 * Negate country names, e.g., "Georgia", by exception.
-                 */
-                if (pGeo.isCountry()) {
-                    pc.isCountry = true;
+                if (resolved != null) {
+                    ++call.nameCacheHits;
+                    validMatch = resolved.valid;
+                    if (validMatch) {
+                        if (resolved.country) {
+                            pc.isCountry = true;
+                        }
+                        if (resolved.acronym) {
+                            pc.isAbbreviation = true;
+                            pc.isAcronym = true;
+                        }
+                        for (int solrId : resolved.ids) {
+                            Place pGeo = (Place) beanMap.get(solrId);
+                            if (pGeo == null) {
+                                throw new ExtractionException(String.format("[Text ID: %s] Place instance not found in-memory for gazetteer tag ID %s", input.id, solrId));
+                            }
+                            if (log.isDebugEnabled()) {
+                                namesMatched.add(pGeo.getName());
+                            }
+                            if (geocode) {
+                                pGeo.defaultHierarchicalPath();
+                                ScoredPlace placeHolder = new ScoredPlace();
+                                placeHolder.setPlace(pGeo);
+                                pc.addPlace(placeHolder);
+                            }
+                        }
+                    }
+                } else {
+                    if (keptIds.length < placeRecordCount) {
+                        keptIds = new int[placeRecordCount];
+                    }
+                    int kept = 0;
+                    boolean country = false;
+                    boolean acronym = false;
+                    boolean cacheable = nameKey != null;
+                    /* Folded hash of match text, computed for the first code record */
+                    int textHash = 0;
+                    boolean textHashed = false;
+
+                    for (int j = 0; j < placeRecordCount; ++j) {
+                        int solrId = tags.id(t, j);
+                        Object recordKey = tags.recordKey(t, j);
+                        /* beanMap is populated by createTag() */
+                        Place pGeo = (Place) beanMap.get(recordKey);
+                        if (pGeo == null) {
+                            // Uknown reason why beanMap may not contain the relevant tag info -- very large docs?
+                            throw new ExtractionException(String.format("[Text ID: %s] Place instance not found in-memory for gazetteer tag ID %s", input.id, recordKey));
+                        }
+
+                        if (!GeodeticUtility.isCoord(pGeo)) {
+                            // Substantial USGS and other gazetteer entries have non-zero coordinates.  AVOID.
+                            continue;
+                        }
+
+                        /* Name and feature flags computed when the record was loaded */
+                        int nameFlags = GazetteerPlace.nameFlagsOf(pGeo);
+
+                        /* OPTIMIZE: Pare down very large location matches */
+                        if (largeGeoCount) {
+                            if ((nameFlags & GazetteerPlace.MAJOR_FEATURE) == 0) {
+                                // Omit non-major places
+                                continue;
+                            }
+                            if ((nameFlags & GazetteerPlace.HISTORICAL_FEATURE) != 0) {
+                                // Omit Ruins or historical features.  Not perfect match here.
+                                continue;
+                            }
+                        }
+                        log.debug("{} = {}", pc.getText(), pGeo);
+                        keptIds[kept++] = solrId;
+                        /* Surrogates for non-numeric ids are local to this call; see TagList */
+                        cacheable &= solrId >= 0;
+
+                        /* TEST: "In" (Text) match "IN" (Place) ?
+                         * TEST: "`Îs" (Text) match "IS" (Place) ?
+                         */
+                        if ((nameFlags & GazetteerPlace.CODE) != 0) {
+                            if (!textHashed) {
+                                textHash = GazetteerPlace.foldedHash(pc.getText());
+                                textHashed = true;
+                            }
+                            if (!GazetteerPlace.nameEqualsIgnoreCase(pGeo, pc.getText(), textHash)) {
+                                validMatch = false;
+                                break;
+                            }
+                        }
+
+                        /* Short matches on lowercase abbreviations
+                         * TEST: "Abc." (Text) matches "Abc" (Place)   normal
+                         * TEST: "Abc" (Text) matches "Abc." (Place)   normal
+                         * TEST: "abc" (Text) matches "abc" (Place)    allowLowercaseAbbrev = True
+                         * TEST: "abc" (Text) matches "abc" (Place)    else if Place represents an abbreviation , then filter out
+                         */
+                        if (pc.isAbbrevLength()) {
+                            if (pc.isLower()) {
+                                // Lower case is allowed only if flags indicate so.
+                                validMatch = allowLowercaseAbbrev || call.allowLowerCase;
+                            }
+
+                            // This should invalidate matching trivial "me", "oh", "we", etc. in mixed case text
+                            // If allowLowercaseAbbrev is enabled, then
+                            if (!validMatch) {
+                                break;
+                            }
+
+                            // If Code Hunter is enabled we do not attempt too much here.
+                            if (!enableCodeHunter && !pc.isAbbreviation) {
+                                // Adjust flags for potential abbreviation matches
+                                // Example: Colo (Text) match ? Colo. (Place)
+                                // Depends on text following the match, so not cached.
+                                cacheable &= (nameFlags & GazetteerPlace.ABBREVIATION) == 0;
+                                assessAbbreviation(pc, nameFlags, postChar, input.isUpper);
+                                /* Match text may now include a trailing "." */
+                                textHashed = false;
+                            }
+                        }
+
+                        if (log.isDebugEnabled()) {
+                            namesMatched.add(pGeo.getName());
+                        }
+
+                        /* COUNTRY feature bias:
+                         * Country names are the only names you can reasonably set ahead
+                         * of time. All other names need to be assessed in context.
+                         * Negate country names, e.g., "Georgia", by exception.
+                         */
+                        if ((nameFlags & GazetteerPlace.COUNTRY) != 0) {
+                            pc.isCountry = true;
+                            country = true;
+                        }
+
+                        /* CODE token filtering:
+                         * Example, if 'GA' appears randomly in document out of context  of qualifying a city or county,
+                         * then it is likely just the letters'GA' and not representing state of 'Georgia (GA)'.
+                         */
+                        if ((nameFlags & GazetteerPlace.CODE) != 0 && pc.isUpper()) {
+                            pc.isAbbreviation = true;
+                            pc.isAcronym = true;
+                            acronym = true;
+                        }
+
+                        if (geocode) {
+                            pGeo.defaultHierarchicalPath();
+                            // Default score for geo will be calculated in PlaceCandidate
+                            ScoredPlace placeHolder = new ScoredPlace();
+                            placeHolder.setPlace(pGeo);
+                            pc.addPlace(placeHolder);
+                        }
+                    }
+
+                    if (cacheable) {
+                        nameCache.put(nameKey, fingerprint, validMatch, Arrays.copyOf(keptIds, kept), country, acronym);
+                    }
                 }
 
-                /* CODE token filtering:
-                 * Example, if 'GA' appears randomly in document out of context  of qualifying a city or county,
-                 * then it is likely just the letters'GA' and not representing state of 'Georgia (GA)'.
-                 */
-                if (pGeo.isCode() && pc.isUpper()) {
-                    pc.isAbbreviation = true;
-                    pc.isAcronym = true;
+                // Lang filter -- apply length filter by lang now to Feature Typee.
+                if (validMatch && langFilter.filterOut(pc)) {
+                    pc.addRule("LangFilter+" + input.langid);
+                    validMatch = false;
                 }
 
-                if (geocode) {
-                    pGeo.defaultHierarchicalPath();
-                    // Default score for geo will be calculated in PlaceCandidate
-                    ScoredPlace placeHolder = new ScoredPlace();
-                    placeHolder.setPlace(pGeo);
-                    pc.addPlace(placeHolder);
+                // Only add PlaceCandidate if it has associated locations after filtering
+                if (validMatch && pc.hasPlaces()) {
+                    ordered &= x1 > lastStart;
+                    lastStart = x1;
+                    candidates.add(pc);
+                    log.debug("Text {} matched {}", pc.getText(), namesMatched);
+                } else {
+                    log.debug("Place has no places, or is filtered out. TOK={}", pc.getText());
                 }
-            }
 
-            // Lang filter -- apply length filter by lang now to Feature Typee.
-            if (validMatch && langFilter.filterOut(pc)) {
-                pc.addRule("LangFilter+" + input.langid);
-                validMatch = false;
-            }
+            } // for tag
+        }
 
-            // Only add PlaceCandidate if it has associated locations after filtering
-            if (validMatch && pc.hasPlaces()) {
-                candidates.put(pc.start, pc);
-                log.debug("Text {} matched {}", pc.getText(), namesMatched);
-            } else {
-                log.debug("Place has no places, or is filtered out. TOK={}", pc.getText());
+        /**
+         * Order candidates and record metrics for the call.
+         *
+         * @param t0 start time of tagging
+         * @return candidates
+         */
+        List<PlaceCandidate> finish(long t0) {
+            List<PlaceCandidate> candidates = call.candidates;
+            if (!ordered) {
+                sortByStart(candidates);
             }
+            call.totalTime = (int) (System.currentTimeMillis() - t0);
+            recordLastCall(call);
 
-        } // for tag
-        long t3 = System.currentTimeMillis();
+            if (log.isDebugEnabled()) {
+                summarizeExtraction(candidates, input.id);
+            }
 
-        this.getNamesTime = (int) (t2 - t1);
-        this.totalTime = (int) (t3 - t0);
+            filteredTotal.add(call.defaultFilterCount + call.userFilterCount);
+            matchedTotal.add(candidates.size());
 
-        if (log.isDebugEnabled()) {
-            summarizeExtraction(candidates.values(), input.id);
+            return candidates;
         }
-
-        this.filteredTotal += this.defaultFilterCount + this.userFilterCount;
-        this.matchedTotal += candidates.size();
-
-        return new ArrayList<>(candidates.values());
     }
 
     private static final String CONTRACTIONS = "SsTtDd";
@@ -713,14 +1314,60 @@ public class GazetteerMatcher extends SolrMatcherSupport {
      * @return true this starts with the 'S,'T, 'D in a contraction.
      */
     private static boolean assessApostrophe(final char c, final String t) {
+        return assessApostrophe(c, t, 0);
+    }
+
+    /**
+     * As above, for the match starting at offset x1 in buf; match length is at least 2.
+     */
+    private static boolean assessApostrophe(final char c, final String buf, final int x1) {
         if (c == '\'' || c == '\u2019') {
-            char c0 = t.charAt(0);
-            return (CONTRACTIONS.indexOf(c0) >= 0 && t.charAt(1) == ' ');
+            char c0 = buf.charAt(x1);
+            return (CONTRACTIONS.indexOf(c0) >= 0 && buf.charAt(x1 + 1) == ' ');
         }
         return false;
     }
 
-    private void assessAbbreviation(PlaceCandidate pc, Place pGeo, char postChar, boolean docIsUPPER) {
+    /**
+     * @param call      state for this call
+     * @param tagField  name field of the call
+     * @param x1        offset of a tag
+     * @return name field the tag was found with, which varies by script run if tagged per script
+     */
+    private static String tagFieldAt(TagResult call, String tagField, int x1) {
+        List<int[]> runs = call.scriptRuns;
+        if (runs == null || runs.isEmpty()) {
+            return tagField;
+        }
+        int lo = 0;
+        int hi = runs.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (runs.get(mid)[1] <= x1) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return SCRIPT_FIELDS[runs.get(lo)[2]];
+    }
+
+    /**
+     * Sort candidates by start offset, keeping the last of any with the same start.
+     */
+    private static void sortByStart(List<PlaceCandidate> candidates) {
+        candidates.sort(Comparator.comparingInt(pc -> pc.start));
+        int w = 0;
+        for (int r = 0; r < candidates.size(); ++r) {
+            if (w > 0 && candidates.get(w - 1).start == candidates.get(r).start) {
+                --w;
+            }
+            candidates.set(w++, candidates.get(r));
+        }
+        candidates.subList(w, candidates.size()).clear();
+    }
+
+    private void assessAbbreviation(PlaceCandidate pc, int nameFlags, char postChar, boolean docIsUPPER) {
         /*
          * - Block re-entry to this logic. If Match is already marked as ABBREV,
          * then no need to review
@@ -735,7 +1382,7 @@ public class GazetteerMatcher extends SolrMatcherSupport {
         }
 
         // Assess geoname only if it is an abbreviation.
-        if (pGeo.isAbbreviation()) {
+        if ((nameFlags & GazetteerPlace.ABBREVIATION) != 0) {
             if (postChar == '.') {
                 // Add the post-punctuation to the match ONLY if a potential GEO matches.
                 pc.isAbbreviation = true;
@@ -769,11 +1416,532 @@ public class GazetteerMatcher extends SolrMatcherSupport {
      * @return filtration ratio
      */
     public double getFiltrationRatio() {
-        return (double) this.filteredTotal / (filteredTotal + matchedTotal);
+        long filtered = filteredTotal.sum();
+        return (double) filtered / (filtered + matchedTotal.sum());
+    }
+
+    /**
+     * Keep the metrics of the most recent call for getTaggingNamesTime(), etc.  With concurrent callers
+     * these are only approximate; see TagResult.
+     */
+    private void recordLastCall(TagResult call) {
+        this.tagNamesTime = call.tagNamesTime;
+        this.getNamesTime = call.getNamesTime;
+        this.totalTime = call.totalTime;
+    }
+
+    /**
+     * Tags found in one window of text, with offsets relative to the whole document.
+     */
+    private static class WindowTags {
+        final TagList tags = new TagList();
+        final Map<Object, Object> beans = new HashMap<>();
+        int qtime = 0;
+
+        void add(WindowTags other) {
+            tags.addAll(other.tags);
+            beans.putAll(other.beans);
+            qtime += other.qtime;
+        }
+    }
+
+    /**
+     * Tag the input buffer, in windows if it is longer than the window size.
+     *
+     * @param call       state for this call; tagger time is recorded here
+     * @param input      text
+     * @param beanMap    id =&gt; domain object map to populate
+     * @param tagFactory creates domain objects from matching records; null if tagger should return ids only
+     * @return tags, ordered by offset, with offsets relative to input buffer
+     * @throws ExtractionException on err
+     */
+    private TagList tagWindows(TagResult call, TextInput input, Map<Object, Object> beanMap,
+                               Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        String buf = input.buffer;
+        List<int[]> ranges = windowRanges(buf, windowSize);
+        if (ranges.size() > 1) {
+            log.debug("DOC={} Tagging {} windows, len={}", input.id, ranges.size(), buf.length());
+        }
+
+        WindowTags all = new WindowTags();
+        if (parallelWindows && ranges.size() > 1) {
+            List<CompletableFuture<WindowTags>> pending = new ArrayList<>(ranges.size());
+            for (int[] r : ranges) {
+                pending.add(async(() -> tagWindow(call.params, input, r[0], r[1], tagFactory)));
+            }
+            for (CompletableFuture<WindowTags> f : pending) {
+                all.add(await(f));
+            }
+        } else {
+            for (int[] r : ranges) {
+                all.add(tagWindow(call.params, input, r[0], r[1], tagFactory));
+            }
+        }
+        beanMap.putAll(all.beans);
+        call.tagNamesTime = all.qtime;
+        return all.tags;
+    }
+
+    /**
+     * Wait for a tagging task, unwrapping its ExtractionException.
+     */
+    protected static <T> T await(CompletableFuture<T> task) throws ExtractionException {
+        try {
+            return task.join();
+        } catch (CompletionException err) {
+            if (err.getCause() instanceof ExtractionException) {
+                throw (ExtractionException) err.getCause();
+            }
+            throw new ExtractionException("Tagging failed", err.getCause());
+        }
+    }
+
+    /**
+     * @param buf        text
+     * @param windowSize window size in chars
+     * @return spans {start, end} of the tagging windows covering buf
+     */
+    protected static List<int[]> windowRanges(String buf, int windowSize) {
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        while (buf.length() - start > windowSize) {
+            int cut = findBoundary(buf, start + windowSize, start + windowSize / 2);
+            ranges.add(new int[] { start, cut });
+            start = cut;
+        }
+        if (start < buf.length() || ranges.isEmpty()) {
+            ranges.add(new int[] { start, buf.length() });
+        }
+        return ranges;
+    }
+
+    /**
+     * Start of the text sent to the tagger for the span starting at ownStart: half the overlap
+     * before the span, moved forward so the window does not start mid-word.
+     *
+     * @param buf      text
+     * @param ownStart start of span
+     * @param overlap  chars shared by adjacent windows
+     * @return start of window, between 0 and ownStart
+     */
+    protected static int windowStart(String buf, int ownStart, int overlap) {
+        if (ownStart <= 0) {
+            return ownStart;
+        }
+        int winStart = Math.max(0, ownStart - overlap / 2);
+        while (winStart > 0 && winStart < ownStart && !Character.isWhitespace(buf.charAt(winStart - 1))) {
+            ++winStart;
+        }
+        return winStart;
+    }
+
+    /**
+     * Tags for the runs of one script.
+     */
+    private static class ScriptTags {
+        final List<int[]> runs;
+        final List<TagList> tags = new ArrayList<>();
+        final Map<Object, Object> beans = new HashMap<>();
+        int qtime = 0;
+
+        ScriptTags(List<int[]> r) {
+            runs = r;
+        }
+    }
+
+    /**
+     * Tag each script run of the input with the name field for its script.  Runs of one script are tagged
+     * together in batches (see TagBatch); scripts are tagged concurrently.
+     *
+     * @param call       state for this call; tagger time is recorded here
+     * @param input      text
+     * @param beanMap    id =&gt; domain object map to populate
+     * @param tagFactory creates domain objects from matching records; null if tagger should return ids only
+     * @return tags, ordered by offset, with offsets relative to input buffer
+     * @throws ExtractionException on err
+     */
+    private TagList tagScripts(TagResult call, TextInput input, Map<Object, Object> beanMap,
+                               Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        Map<Integer, List<int[]>> byScript = new TreeMap<>();
+        call.scriptRuns = scriptRuns(input.buffer);
+        for (int[] run : call.scriptRuns) {
+            byScript.computeIfAbsent(run[2], s -> new ArrayList<>()).add(run);
+        }
+        if (byScript.size() <= 1) {
+            int script = byScript.isEmpty() ? GENERAL_SCRIPT : byScript.keySet().iterator().next();
+            TagResult scriptCall = newCall(tagCallParams(SCRIPT_FIELDS[script]), call.allowLowerCase);
+            TagList tags = tagWindows(scriptCall, input, beanMap, tagFactory);
+            call.tagNamesTime = scriptCall.tagNamesTime;
+            return tags;
+        }
+
+        log.debug("DOC={} Tagging {} scripts", input.id, byScript.size());
+        List<CompletableFuture<ScriptTags>> pending = new ArrayList<>();
+        for (Map.Entry<Integer, List<int[]>> script : byScript.entrySet()) {
+            String fld = SCRIPT_FIELDS[script.getKey()];
+            pending.add(async(() -> tagScript(input, fld, script.getValue(), tagFactory)));
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        List<TagList> runTags = new ArrayList<>();
+        int qtime = 0;
+        for (CompletableFuture<ScriptTags> f : pending) {
+            ScriptTags result = await(f);
+            runs.addAll(result.runs);
+            runTags.addAll(result.tags);
+            beanMap.putAll(result.beans);
+            qtime += result.qtime;
+        }
+
+        /* Runs do not overlap, so tags are in offset order once runs are */
+        Integer[] order = new Integer[runs.size()];
+        for (int x = 0; x < order.length; ++x) {
+            order[x] = x;
+        }
+        Arrays.sort(order, Comparator.comparingInt(x -> runs.get(x)[0]));
+        TagList tags = new TagList();
+        for (int x : order) {
+            TagList rt = runTags.get(x);
+            int shift = runs.get(x)[0];
+            for (int t = 0; t < rt.size(); ++t) {
+                tags.addTag(rt, t, shift);
+            }
+        }
+        call.tagNamesTime = qtime;
+        return tags;
+    }
+
+    /**
+     * Tag the runs of one script.
+     */
+    private ScriptTags tagScript(TextInput input, String fld, List<int[]> runs,
+                                 Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        ScriptTags result = new ScriptTags(runs);
+        ModifiableSolrParams callParams = tagCallParams(fld);
+        List<String> texts = new ArrayList<>(runs.size());
+        for (int[] run : runs) {
+            texts.add(input.buffer.substring(run[0], run[1]));
+        }
+        for (TagBatch batch : TagBatch.partition(texts, DEFAULT_BATCH_LENGTH)) {
+            TagResult batchCall = newCall(callParams, allowLowerCase);
+            TagList tags = tagWindows(batchCall, new TextInput(input.id, batch.buffer), result.beans, tagFactory);
+            result.tags.addAll(batch.split(tags));
+            result.qtime += batchCall.tagNamesTime;
+        }
+        return result;
+    }
+
+    /**
+     * Tag windows in order, filtering the tags of each window while the next one is tagged.
+     * Candidates and metrics are set on call.
+     *
+     * @param call       state and metrics for this call
+     * @param input      text
+     * @param tagOnly    true if no Places should be attached to candidates
+     * @param tagFactory creates domain objects from matching records; null if tagger should return ids only
+     * @param t0         start time of call
+     * @throws ExtractionException on err
+     */
+    private void tagPipelined(TagResult call, TextInput input, boolean tagOnly,
+                              Function<SolrDocument, Object> tagFactory, long t0)
+            throws ExtractionException {
+        List<int[]> ranges = windowRanges(input.buffer, windowSize);
+        log.debug("DOC={} Pipelined tagging {} windows, len={}", input.id, ranges.size(), input.buffer.length());
+
+        CandidateAssembly assembly = new CandidateAssembly(call, input, tagOnly);
+        CompletableFuture<WindowTags> next = tagWindowAsync(call.params, input, ranges.get(0), tagFactory);
+        int qtime = 0;
+        long filterTime = 0;
+        for (int w = 0; w < ranges.size(); ++w) {
+            WindowTags current = await(next);
+            if (w + 1 < ranges.size()) {
+                next = tagWindowAsync(call.params, input, ranges.get(w + 1), tagFactory);
+            }
+            qtime += current.qtime;
+            if (!current.tags.isEmpty() && !current.beans.isEmpty()) {
+                long t1 = System.currentTimeMillis();
+                assembly.add(current.tags, current.beans);
+                filterTime += System.currentTimeMillis() - t1;
+            }
+        }
+        call.tagNamesTime = qtime;
+        call.getNamesTime = (int) filterTime;
+        assembly.finish(t0);
+    }
+
+    /**
+     * Tag one window on the executor, resolving records if tagger returns ids only.
+     */
+    private CompletableFuture<WindowTags> tagWindowAsync(SolrParams tagParams, TextInput input, int[] range,
+                                                         Function<SolrDocument, Object> tagFactory) {
+        return async(() -> {
+            WindowTags result = tagWindow(tagParams, input, range[0], range[1], tagFactory);
+            if (tagFactory == null && !result.tags.isEmpty()) {
+                resolvePlaces(result.tags, result.beans, input.id);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Tag the span [ownStart, ownEnd) of the input buffer.  The window sent to the tagger extends
+     * half the overlap on either side; only tags starting within the span are kept, so tags at
+     * the seams are reported by exactly one window.
+     */
+    private WindowTags tagWindow(SolrParams tagParams, TextInput input, int ownStart, int ownEnd,
+                                 Function<SolrDocument, Object> tagFactory)
+            throws ExtractionException {
+        String buf = input.buffer;
+        int winStart = windowStart(buf, ownStart, windowOverlap);
+        int winEnd = ownEnd;
+        if (ownEnd < buf.length()) {
+            winEnd = Math.min(buf.length(), ownEnd + windowOverlap / 2);
+        }
+        boolean whole = winStart == 0 && winEnd == buf.length();
+        String text = whole ? buf : buf.substring(winStart, winEnd);
+
+        WindowTags result = new WindowTags();
+        TagList tags = whole ? result.tags : new TagList();
+        boolean limitReached;
+        long t0 = System.currentTimeMillis();
+        if (taggerBackend != null) {
+            limitReached = taggerBackend.tag(tagParams.get("field"), text, tags) >= DEFAULT_TAG_LIMIT;
+            result.qtime = (int) (System.currentTimeMillis() - t0);
+        } else {
+            QueryResponse response = tagTextCallSolrTagger(tagParams, text, input.id,
+                    tagFactory == null ? null : result.beans, false, tagFactory);
+            limitReached = isTagLimitReached(response);
+            if (!limitReached) {
+                readTags(response, tags);
+                result.qtime = response.getQTime();
+            }
+        }
+        if (limitReached) {
+            int size = ownEnd - ownStart;
+            if (size < MIN_WINDOW_SIZE) {
+                throw new ExtractionException(String.format("[Text ID: %s] Tag limit (n=%d) reached in window at %d, len=%d",
+                        input.id, DEFAULT_TAG_LIMIT, ownStart, size));
+            }
+            int cut = findBoundary(buf, ownStart + size / 2, ownStart + size / 4);
+            log.debug("DOC={} Tag limit reached; Splitting window {}:{} at {}", input.id, ownStart, ownEnd, cut);
+            WindowTags left = tagWindow(tagParams, input, ownStart, cut, tagFactory);
+            left.add(tagWindow(tagParams, input, cut, ownEnd, tagFactory));
+            return left;
+        }
+
+        if (!whole) {
+            for (int t = 0; t < tags.size(); ++t) {
+                int x1 = tags.start(t) + winStart;
+                if (x1 >= ownStart && x1 < ownEnd) {
+                    result.tags.addTag(tags, t, winStart);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The tag filter's own case setting applies unless a call overrides the setting of this matcher.
+     *
+     * @param lowerCase true if lower case matches are allowed for a call
+     * @return true if all lower case matches are filtered out for that call
+     */
+    private boolean isCaseSensitive(boolean lowerCase) {
+        return lowerCase == allowLowerCase ? filter.isCaseSensitive() : !lowerCase;
+    }
+
+    /**
+     * State for one call, with lower case matching allowed or not for this call.
+     */
+    private TagResult newCall(SolrParams callParams, boolean lowerCase) {
+        return new TagResult(callParams, lowerCase, isCaseSensitive(lowerCase));
+    }
+
+    /**
+     * @return true if tagging input can be skipped; see setSkipUntaggableText()
+     */
+    private boolean isUntaggable(TextInput input, boolean lowerCase) {
+        return skipUntaggable && !(lowerCase || allowLowercaseAbbrev || enableCodeHunter)
+                && isCaseSensitive(lowerCase) && !hasTaggableText(input.buffer);
+    }
+
+    /**
+     * Cheap pre-scan for case-sensitive tagging, following the case rules applied to tags: all lower case single
+     * words are filtered by TagFilter, lower case ASCII phrases up to PHRASE_LEN are filtered by tagText(), and
+     * phrases broken by blank lines are invalid.  A text that has none of the following cannot yield a candidate:
+     * <ul>
+     * <li>a letter that is not lower case -- capitalized, upper case, or a script without case (CJK, Arabic, ...)</li>
+     * <li>a word mixing letters and digits</li>
+     * <li>a phrase of lower case words longer than PHRASE_LEN, or with non-ASCII letters</li>
+     * </ul>
+     *
+     * @param buf text
+     * @return true if text may have taggable names
+     */
+    protected static boolean hasTaggableText(String buf) {
+        int len = buf.length();
+        int phraseStart = -1;
+        int words = 0;
+        boolean ascii = true;
+        char prev = 0;
+        int x = 0;
+        while (x < len) {
+            char c = buf.charAt(x);
+            if (Character.isSurrogate(c)) {
+                return true;
+            }
+            if (!Character.isLetterOrDigit(c)) {
+                if (isFormattingChar(c) && isFormattingChar(prev)) {
+                    phraseStart = -1;
+                }
+                prev = c;
+                ++x;
+                continue;
+            }
+            int wordStart = x;
+            boolean letters = false;
+            boolean digits = false;
+            boolean asciiWord = true;
+            while (x < len && Character.isLetterOrDigit(c = buf.charAt(x))) {
+                if (Character.isLetter(c)) {
+                    if (!Character.isLowerCase(c)) {
+                        return true;
+                    }
+                    letters = true;
+                    asciiWord &= c < 0x80;
+                } else {
+                    digits = true;
+                }
+                ++x;
+            }
+            prev = buf.charAt(x - 1);
+            if (!letters) {
+                continue;
+            }
+            if (digits) {
+                return true;
+            }
+            if (phraseStart < 0) {
+                phraseStart = wordStart;
+                words = 0;
+                ascii = true;
+            }
+            ++words;
+            ascii &= asciiWord;
+            if (words > 1 && (!ascii || x - phraseStart > PHRASE_LEN)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFormattingChar(char c) {
+        return c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * Find a place to split text, preferring end of line or sentence, then whitespace.
+     *
+     * @param buf    text
+     * @param target preferred offset
+     * @param floor  do not look back further than this offset
+     * @return offset of first char after the boundary, or target if no boundary found.
+     */
+    protected static int findBoundary(String buf, int target, int floor) {
+        for (int x = target; x > floor; --x) {
+            char c = buf.charAt(x - 1);
+            if (c == '\n') {
+                return x;
+            }
+            if ((c == '.' || c == '!' || c == '?') && x < buf.length() && Character.isWhitespace(buf.charAt(x))) {
+                return x + 1;
+            }
+        }
+        for (int x = target; x > floor; --x) {
+            if (Character.isWhitespace(buf.charAt(x - 1))) {
+                return x;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Resolve tag ids to Place objects from the record cache and PlaceStore, fetching any missing from
+     * the gazetteer.
+     *
+     * @param tags    tags
+     * @param beanMap id =&gt; Place map to populate
+     * @param docid   doc id, for error reporting
+     * @throws ExtractionException if gazetteer lookup fails
+     */
+    private void resolvePlaces(TagList tags, Map<Object, Object> beanMap, String docid)
+            throws ExtractionException {
+        List<Object> misses = new ArrayList<>();
+        for (int t = 0; t < tags.size(); ++t) {
+            for (int j = 0; j < tags.idCount(t); ++j) {
+                Integer solrId = tags.id(t, j);
+                if (beanMap.containsKey(solrId)) {
+                    continue;
+                }
+                Place geo = placeCache != null ? placeCache.getPlace(solrId) : null;
+                if (geo == null && placeStore != null) {
+                    geo = placeStore.get(solrId);
+                }
+                if (geo != null) {
+                    beanMap.put(solrId, geo);
+                } else {
+                    /* Placeholder avoids counting the same miss twice */
+                    beanMap.put(solrId, null);
+                    misses.add(solrId);
+                }
+            }
+        }
+        if (misses.isEmpty()) {
+            return;
+        }
+
+        log.debug("DOC={} Place store misses={}", docid, misses.size());
+        ModifiableSolrParams idQuery = new ModifiableSolrParams();
+        idQuery.set(CommonParams.FL, SolrGazetteer.DEFAULT_FIELDS);
+        for (int x = 0; x < misses.size(); x += ID_LOOKUP_BATCH) {
+            List<Object> batch = misses.subList(x, Math.min(x + ID_LOOKUP_BATCH, misses.size()));
+            StringBuilder q = new StringBuilder("{!terms f=id}");
+            for (Object solrId : batch) {
+                if (q.charAt(q.length() - 1) != '}') {
+                    q.append(',');
+                }
+                q.append(solrId);
+            }
+            idQuery.set(CommonParams.Q, q.toString());
+            idQuery.set(CommonParams.ROWS, batch.size());
+            try {
+                QueryResponse response = solr.getInternalSolrClient().query(idQuery, SolrRequest.METHOD.POST);
+                for (SolrDocument solrDoc : response.getResults()) {
+                    beanMap.put(recordKey(solrDoc), createTag(solrDoc));
+                }
+            } catch (SolrServerException | IOException err) {
+                throw new ExtractionException("Failed to retrieve gazetteer records for document=" + docid, err);
+            }
+        }
+    }
+
+    /**
+     * Records are keyed as in TagList: gazetteer ids are numeric and keyed by Integer id; other ids are
+     * keyed as they are, see TagList.recordKey().
+     */
+    @Override
+    protected Object recordKey(SolrDocument doc) {
+        return TagList.recordKey(SolrUtil.getString(doc, "id"));
     }
 
     @Override
     public Object createTag(SolrDocument tag) {
+        if (placeCache != null) {
+            return placeCache.getPlace(recordKey(tag), tag);
+        }
         return createPlace(tag);
     }
 
@@ -790,10 +1958,10 @@ public class GazetteerMatcher extends SolrMatcherSupport {
         // Place bean = SolrProxy.createPlace(gazEntry);
         String plid = SolrUtil.getString(gazEntry, "place_id");
         String nm = SolrUtil.getString(gazEntry, "name");
-        Place geo = new Place(plid, nm);
+        GazetteerPlace geo = new GazetteerPlace(plid, nm);
         SolrUtil.populatePlace(gazEntry, geo);
 
-        return geo;
+        return geo.index();
     }
 
     private void summarizeExtraction(Collection<PlaceCandidate> candidates, String docid) {
@@ -0,0 +1,178 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import org.opensextant.data.Place;
+import org.opensextant.util.TextUtils;
+
+/**
+ * A Place loaded from the gazetteer, with name metadata the tagger checks for every tag computed once when the
+ * record is loaded: code, abbreviation and short-name flags and a hash of the case-folded name.  The per-tag checks
+ * in GazetteerMatcher are then integer comparisons; see nameEqualsIgnoreCase().
+ * <p>
+ * Metadata reflects the record as loaded. Call index() again if name, name type or feature are changed afterwards.
+ *
+ * @author ubaldino
+ */
+public class GazetteerPlace extends Place {
+
+    /** Name is a code, e.g., "IN" for India */
+    public static final int CODE = 0x01;
+    /** Name is an abbreviation, e.g., "Colo." */
+    public static final int ABBREVIATION = 0x02;
+    /** Name is no longer than an abbreviation, see PlaceCandidate.ABBREVIATION_MAX_LEN */
+    public static final int SHORT_NAME = 0x04;
+    /** Name is all upper case */
+    public static final int UPPER_NAME = 0x08;
+    public static final int COUNTRY = 0x10;
+    /** Administrative boundary or populated place */
+    public static final int MAJOR_FEATURE = 0x20;
+    /** Ruins or historical feature, feature code ending in X or H */
+    public static final int HISTORICAL_FEATURE = 0x40;
+
+    /** Bit set of the flags above */
+    public int nameFlags = 0;
+    /** Hash of the case-folded name, see foldedHash() */
+    public int foldedNameHash = 0;
+
+    public GazetteerPlace(String placeId, String name) {
+        super(placeId, name);
+    }
+
+    /**
+     * Compute name metadata from the current fields of this Place.
+     *
+     * @return this place
+     */
+    public GazetteerPlace index() {
+        nameFlags = nameFlags(this);
+        foldedNameHash = foldedHash(getName());
+        return this;
+    }
+
+    /**
+     * Set metadata already computed for the same record, e.g., by a record cache.
+     *
+     * @param flags      name flags
+     * @param foldedHash folded name hash
+     */
+    void setNameMetadata(int flags, int foldedHash) {
+        nameFlags = flags;
+        foldedNameHash = foldedHash;
+    }
+
+    public boolean hasFlag(int flag) {
+        return (nameFlags & flag) != 0;
+    }
+
+    /**
+     * @param p any place
+     * @return name flags for p
+     */
+    public static int nameFlags(Place p) {
+        int flags = 0;
+        String nm = p.getName();
+        if (p.isCode()) {
+            flags |= CODE;
+        }
+        if (p.isAbbreviation()) {
+            flags |= ABBREVIATION;
+        }
+        if (nm != null && nm.length() <= PlaceCandidate.ABBREVIATION_MAX_LEN) {
+            flags |= SHORT_NAME;
+        }
+        if (nm != null && TextUtils.isUpper(nm)) {
+            flags |= UPPER_NAME;
+        }
+        if (p.isCountry()) {
+            flags |= COUNTRY;
+        }
+        if (p.isAdministrative() || p.isPopulated()) {
+            flags |= MAJOR_FEATURE;
+        }
+        String fc = p.getFeatureCode();
+        if (fc != null && (fc.endsWith("X") || fc.endsWith("H"))) {
+            flags |= HISTORICAL_FEATURE;
+        }
+        return flags;
+    }
+
+    /**
+     * @param p any place
+     * @return name flags loaded with p, or computed now if p is not a GazetteerPlace
+     */
+    public static int nameFlagsOf(Place p) {
+        return p instanceof GazetteerPlace ? ((GazetteerPlace) p).nameFlags : nameFlags(p);
+    }
+
+    /**
+     * Fold a char as String.equalsIgnoreCase() does, so equal folded text implies equalsIgnoreCase().
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * @param s text
+     * @return hash of case-folded text; 0 for null
+     */
+    public static int foldedHash(CharSequence s) {
+        return s == null ? 0 : foldedHash(s, 0, s.length());
+    }
+
+    /**
+     * Hash a span of text, e.g., a match in the document buffer, without a copy.
+     *
+     * @param s     text
+     * @param start span start
+     * @param end   span end, exclusive
+     * @return hash of case-folded span
+     */
+    public static int foldedHash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int x = start; x < end; ++x) {
+            h = 31 * h + fold(s.charAt(x));
+        }
+        return h;
+    }
+
+    /**
+     * Same as getName().equalsIgnoreCase(text), rejecting most mismatches by hash alone.
+     *
+     * @param text           text
+     * @param textFoldedHash foldedHash(text)
+     * @return true if name equals text ignoring case
+     */
+    public boolean nameEqualsIgnoreCase(String text, int textFoldedHash) {
+        return foldedNameHash == textFoldedHash && getName().equalsIgnoreCase(text);
+    }
+
+    /**
+     * As above for any place.
+     *
+     * @param p              place
+     * @param text           text
+     * @param textFoldedHash foldedHash(text)
+     * @return true if name of p equals text ignoring case
+     */
+    public static boolean nameEqualsIgnoreCase(Place p, String text, int textFoldedHash) {
+        if (p instanceof GazetteerPlace) {
+            return ((GazetteerPlace) p).nameEqualsIgnoreCase(text, textFoldedHash);
+        }
+        return p.getName().equalsIgnoreCase(text);
+    }
+}
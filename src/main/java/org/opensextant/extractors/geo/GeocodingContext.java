@@ -0,0 +1,294 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.opensextant.data.Country;
+import org.opensextant.data.Geocoding;
+import org.opensextant.data.Place;
+import org.opensextant.data.TextInput;
+import org.opensextant.extraction.DocumentContext;
+import org.opensextant.processing.Parameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Everything PlaceGeocoder learns about one document while geocoding it: countries, boundaries and locations
+ * mentioned or inferred, and the working state of each GeocodeRule.  A new context is created for each document
+ * and passed through PlaceGeocoder.extract() and GeocodeRule.evaluate(), so the geocoder and its rules hold only
+ * configuration and one configured geocoder may serve many threads.
+ * <p>
+ * The context is the Country, Boundary and Location observer for the rules evaluating the document.
+ * While a document is evaluated the context is also bound to the evaluating thread, see current().
+ * A context is used by one thread at a time; PlaceGeocoder hands it to the coordinate stage and takes it back
+ * when that stage is joined.  Data-parallel rules (see RuleGraph) read it from several threads at once, so the
+ * document and rule state accessors are thread-safe.
+ *
+ * @author ubaldino
+ */
+public class GeocodingContext implements CountryObserver, BoundaryObserver, LocationObserver {
+
+    /**
+     * Resolves a coordinate found in text to a known place, e.g., PlaceGeocoder.evaluateCoordinate()
+     */
+    public interface CoordinateResolver {
+        Place resolve(Geocoding geo) throws Exception;
+    }
+
+    private static final ThreadLocal<GeocodingContext> CURRENT = new ThreadLocal<>();
+    private static final Logger log = LoggerFactory.getLogger(GeocodingContext.class);
+
+    private final TextInput input;
+    private final Parameters params;
+    private final Map<String, Country> countryCatalog;
+    private final CoordinateResolver resolver;
+    private DocumentContext document = null;
+
+    /**
+     * Countries mentioned, inferred, or otherwise relevant
+     */
+    private final Map<String, CountryCount> relevantCountries = new HashMap<>();
+    /**
+     * Provinces mentioned, inferred or otherwise relevant.
+     */
+    private final Map<String, PlaceCount> relevantProvinces = new HashMap<>();
+    /**
+     * Places inferred by their proximity to concrete coordinate references.
+     */
+    private final Map<String, Place> relevantLocations = new HashMap<>();
+    /** rule =&gt; rule state for this document; rules do not override equals() */
+    private final Map<Object, Object> ruleStates = new ConcurrentHashMap<>();
+
+    /**
+     * @param input          document
+     * @param params         request parameters, or null
+     * @param countryCatalog country code =&gt; Country, to resolve country codes observed
+     * @param resolver       resolves coordinates to places, or null
+     */
+    public GeocodingContext(TextInput input, Parameters params, Map<String, Country> countryCatalog,
+                            CoordinateResolver resolver) {
+        this.input = input;
+        this.params = params;
+        this.countryCatalog = countryCatalog;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return context of the document being geocoded on this thread, or null
+     */
+    public static GeocodingContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make this the context of the calling thread.
+     *
+     * @return previous context of this thread, to pass to restore()
+     */
+    public GeocodingContext enter() {
+        GeocodingContext prev = CURRENT.get();
+        CURRENT.set(this);
+        return prev;
+    }
+
+    /**
+     * @param prev context returned by enter()
+     */
+    public static void restore(GeocodingContext prev) {
+        if (prev == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(prev);
+        }
+    }
+
+    public TextInput getInput() {
+        return input;
+    }
+
+    /**
+     * @return request parameters or null
+     */
+    public Parameters getParameters() {
+        return params;
+    }
+
+    /**
+     * @return characterization of the document text
+     */
+    public synchronized DocumentContext getDocument() {
+        if (document == null) {
+            document = DocumentContext.of(input);
+        }
+        return document;
+    }
+
+    /**
+     * Working state a rule keeps while evaluating this document, created on first use.
+     *
+     * @param rule rule or other owner of state
+     * @param init creates empty state
+     * @param <S>  state type
+     * @return state of rule for this document
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S ruleState(Object rule, Supplier<S> init) {
+        return (S) ruleStates.computeIfAbsent(rule, r -> init.get());
+    }
+
+    /**
+     * Record how often country references are made.
+     *
+     * @param c country obj
+     */
+    @Override
+    public void countryInScope(Country c) {
+        if (c == null) {
+            return;
+        }
+        CountryCount counter = relevantCountries.computeIfAbsent(c.getCountryCode(), newCount -> new CountryCount(c));
+        ++counter.count;
+    }
+
+    /**
+     * Record how often country references are made.
+     *
+     * @param cc country code
+     */
+    @Override
+    public void countryInScope(String cc) {
+        Country ctry = countryCatalog != null ? countryCatalog.get(cc) : null;
+        if (ctry == null) {
+            log.debug("Unknown country code {}", cc);
+            return;
+        }
+        countryInScope(ctry);
+    }
+
+    @Override
+    public boolean countryObserved(String cc) {
+        if (cc == null) {
+            return false;
+        }
+        return relevantCountries.containsKey(cc);
+    }
+
+    @Override
+    public boolean countryObserved(Country C) {
+        if (C == null) {
+            return false;
+        }
+        return relevantCountries.containsKey(C.getCountryCode());
+    }
+
+    @Override
+    public int countryCount() {
+        return relevantCountries.size();
+    }
+
+    /**
+     * Calculate country mention totals and ratios. These ratios help qualify what
+     * the document is about. These may be mentions in text or inferred mentions to the countries
+     * listed, e.g., a coord infers a particular country.
+     */
+    @Override
+    public Map<String, CountryCount> countryMentionCount() {
+        int total = 0;
+        for (CountryCount cnt : relevantCountries.values()) {
+            total += cnt.count;
+        }
+        for (CountryCount cnt : relevantCountries.values()) {
+            cnt.total = total;
+        }
+        return relevantCountries;
+    }
+
+    /**
+     * Observer pattern that sees any time a possible boundary (state, province, district, etc) is mentioned.
+     * Example:  mention "Florida"  linked to location Florida(ADM1, FL, US) infers the boundary "US.FL"
+     * As would  "Miami" (PPL, FL, US) also infer "US.FL".
+     *
+     * @param nameNorm text or name related to the place, p
+     * @param p        ID of a boundary.
+     */
+    @Override
+    public void boundaryLevel1InScope(String nameNorm, Place p) {
+        String key = p.getHierarchicalPath();
+        if (key == null) {
+            return;
+        }
+
+        PlaceCount counter = relevantProvinces.computeIfAbsent(key, newCounter -> new PlaceCount(key));
+        counter.add(nameNorm);
+    }
+
+    @Override
+    public void boundaryLevel2InScope(String nameNorm, Place p) {
+        // NOT Implmemented.
+    }
+
+    /**
+     * Weight mentions or indirect references to Provinces in the document
+     */
+    @Override
+    public Map<String, PlaceCount> placeMentionCount() {
+        int total = 0;
+        for (PlaceCount cnt : relevantProvinces.values()) {
+            total += cnt.getCount();
+        }
+        for (PlaceCount cnt : relevantProvinces.values()) {
+            cnt.total = total;
+        }
+        return relevantProvinces;
+    }
+
+    /**
+     * When coordinates are found track them. A coordinate informs us of city, province, and country.
+     * If the location is off shore or in no-mans' land, this fails quietly.
+     */
+    @Override
+    public void locationInScope(Geocoding geo) {
+        if (resolver == null) {
+            return;
+        }
+        try {
+            Place cityOrProv = resolver.resolve(geo);
+            if (cityOrProv == null) {
+                return;
+            }
+            cityOrProv.defaultHierarchicalPath();
+            relevantLocations.put(cityOrProv.getPlaceID(), cityOrProv);
+            // for coordinates, the text that infers the location is not relevant in boundaryLevel1InScope()
+            boundaryLevel1InScope("coordinate", cityOrProv);
+            countryInScope(cityOrProv.getCountryCode());
+        } catch (Exception err) {
+            log.error("Spatial search error", err);
+        }
+    }
+
+    /**
+     * Tell us if this place P was inferred by hard location mentions
+     */
+    @Override
+    public boolean placeObserved(Place p) {
+        return relevantLocations.containsKey(p.getKey());
+    }
+}
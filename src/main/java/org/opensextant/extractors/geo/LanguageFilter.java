@@ -74,11 +74,16 @@ public class LanguageFilter extends MatchFilter {
      */
     @Override
     public boolean filterOut(String value) {
+        return filterOut(value.length());
+    }
+
+    /** Rule out text based on the language and length of text alone, without the text itself.
+     */
+    public boolean filterOut(int text_len) {
         if (!eval) {
             return false;
         }
         int eval_len = TOKEN_LEN.getOrDefault(this.lang, TOKEN_LEN_DEFAULT);
-        int text_len = value.length();
         return text_len < eval_len;
     }
 
@@ -0,0 +1,156 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import org.opensextant.extraction.TagList;
+import org.opensextant.util.StripedLruCache;
+
+/**
+ * Bounded cache of how a tagged name resolves to gazetteer records, shared across documents and threads.
+ * For a given match text, tag field and case profile, the records that survive GazetteerMatcher's per-record
+ * checks -- coordinates, pruning of very common names, code and abbreviation-length checks -- are the same on
+ * every document. A cached Resolution holds the surviving record ids and the flags they set on the candidate,
+ * so repeated names skip the per-record loop.
+ * <p>
+ * Each entry carries a fingerprint of the tag's record ids, and is ignored if the tagger returns different ids
+ * for the name. Records may also change under the same ids when the gazetteer is rebuilt; shared caches are
+ * cleared when the core is reloaded or released in SolrContainerRegistry, and clear() drops entries otherwise.
+ * The cache is bounded by an estimate of heap consumed, evicting least-recently used names; see StripedLruCache.
+ * Set the system property "opensextant.namecache.mb" to size shared caches; 0 disables them.
+ *
+ * @author ubaldino
+ */
+public final class NameResolutionCache extends StripedLruCache<NameResolutionCache.Key, NameResolutionCache.Resolution> {
+
+    public static final String CACHE_SIZE_PROPERTY = "opensextant.namecache.mb";
+    public static final int DEFAULT_CACHE_MB = 16;
+    /**
+     * Name, tag field and case flags of a match.
+     */
+    public static final class Key {
+        final String field;
+        final String text;
+        final int flags;
+        private final int hash;
+
+        public Key(String field, String text, int flags) {
+            this.field = field;
+            this.text = text;
+            this.flags = flags;
+            this.hash = (31 * field.hashCode() + text.hashCode()) * 31 + flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && flags == other.flags && text.equals(other.text) && field.equals(other.field);
+        }
+    }
+
+    /**
+     * Immutable outcome of resolving one name.
+     */
+    public static final class Resolution {
+        final long fingerprint;
+        /** False if the name is not a valid match */
+        final boolean valid;
+        /** Record ids that survive, in tag order */
+        final int[] ids;
+        final boolean country;
+        final boolean acronym;
+        final int bytes;
+
+        Resolution(long fingerprint, boolean valid, int[] ids, boolean country, boolean acronym) {
+            this.fingerprint = fingerprint;
+            this.valid = valid;
+            this.ids = ids;
+            this.country = country;
+            this.acronym = acronym;
+            this.bytes = 96 + 4 * ids.length;
+        }
+    }
+
+    /**
+     * Fingerprint of the record ids of a tag, in order.
+     *
+     * @param tags tags
+     * @param t    tag index
+     * @return hash of ids
+     */
+    public static long fingerprint(TagList tags, int t) {
+        int count = tags.idCount(t);
+        long h = count;
+        for (int j = 0; j < count; ++j) {
+            h = (h ^ tags.id(t, j)) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        return h;
+    }
+
+    /**
+     * @param maxBytes approximate heap limit for cached names
+     */
+    public NameResolutionCache(long maxBytes) {
+        super("Name cache", maxBytes, (key, res) -> res.bytes + 2 * key.text.length());
+    }
+
+    /**
+     * Get the shared cache for a Solr core.
+     *
+     * @param coreName Solr core, e.g., "gazetteer"
+     * @return shared cache or null if caching is disabled
+     */
+    public static NameResolutionCache getShared(String coreName) {
+        return getShared(coreName, NameResolutionCache.class, CACHE_SIZE_PROPERTY, DEFAULT_CACHE_MB,
+                NameResolutionCache::new);
+    }
+
+    /**
+     * @param key         name
+     * @param fingerprint fingerprint of the tag's record ids
+     * @return cached resolution, or null if not cached or cached for other records
+     */
+    public Resolution get(Key key, long fingerprint) {
+        Resolution res = peek(key);
+        if (res == null || res.fingerprint != fingerprint) {
+            recordMiss();
+            return null;
+        }
+        recordHit();
+        return res;
+    }
+
+    /**
+     * @param key         name
+     * @param fingerprint fingerprint of the tag's record ids
+     * @param valid       false if name is not a valid match
+     * @param ids         surviving record ids
+     * @param country     true if any surviving record is a country
+     * @param acronym     true if a surviving record is a code and the match is upper case
+     */
+    public void put(Key key, long fingerprint, boolean valid, int[] ids, boolean country, boolean acronym) {
+        put(key, new Resolution(fingerprint, valid, ids, country, acronym));
+    }
+}
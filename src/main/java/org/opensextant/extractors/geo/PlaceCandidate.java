@@ -5,7 +5,9 @@
  */
 package org.opensextant.extractors.geo;
 
+import java.nio.CharBuffer;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 import org.apache.commons.text.similarity.LevenshteinDistance;
@@ -196,10 +198,26 @@ public class PlaceCandidate extends TextMatch {
     private String[] tokens = null;
     private static final int contextWidth = 40;
 
+    /*
+     * Context tokens are computed on first use from the source buffer; most candidates never need them.
+     * contextSource is the shared document buffer, not a copy; contextWindow is [preStart, preEnd, postStart, postEnd].
+     */
+    private CharSequence contextSource = null;
+    private int[] contextWindow = null;
+    private boolean preTokensSet = false;
+    private boolean postTokensSet = false;
+    /** Text as of inferTextSense(), split into tokens on first use */
+    private String sensedText = null;
+
+    /** Count of candidates given context, and count of token arrays actually created from context */
+    private static final LongAdder contextDeferred = new LongAdder();
+    private static final LongAdder contextMaterialized = new LongAdder();
+
     /**
      * Get some sense of tokens surrounding match. Possibly optimize this by
      * getting token list from SolrTextTagger (which provides the
-     * lang-specifics)
+     * lang-specifics). Tokens are not split out until getPrematchTokens() or getPostmatchTokens()
+     * is called.
      *
      * @param sourceBuffer
      */
@@ -211,8 +229,13 @@ public class PlaceCandidate extends TextMatch {
          * Get right most or left most whole tokens, for now whitespace
          * delimited. TODO: ensure whole tokens are retrieved.
          */
-        setPrematchTokens(TextUtils.tokensRight(sourceBuffer.substring(window[0], window[1])));
-        setPostmatchTokens(TextUtils.tokensLeft(sourceBuffer.substring(window[2], window[3])));
+        contextSource = sourceBuffer;
+        contextWindow = window;
+        preTokens = null;
+        postTokens = null;
+        preTokensSet = false;
+        postTokensSet = false;
+        contextDeferred.increment();
 
         if (window[1] != 0) {
             preChar = sourceBuffer.charAt(window[1]); /* offset greater than 0 */
@@ -516,11 +539,12 @@ public class PlaceCandidate extends TextMatch {
         int editDist = LevenshteinDistance.getDefaultInstance().apply(getTextnorm(),
                 g.getNamenorm());
         int score = startingScore - editDist;
-        if (isUpper() && (g.isAbbreviation() || TextUtils.isUpper(g.getName()))) {
+        int nameFlags = GazetteerPlace.nameFlagsOf(g);
+        if (isUpper() && (nameFlags & (GazetteerPlace.ABBREVIATION | GazetteerPlace.UPPER_NAME)) != 0) {
             ++score;
         }
         // Mismatch in case for abbreviation.
-        else if (!isUpper() && g.isAbbreviation()) {
+        else if (!isUpper() && (nameFlags & GazetteerPlace.ABBREVIATION) != 0) {
             --score;
         }
         // Mismatch in name diacritics downgrades name score here.
@@ -756,6 +780,11 @@ public class PlaceCandidate extends TextMatch {
      * @return the preceding tokens
      */
     public String[] getPrematchTokens() {
+        if (!preTokensSet && contextSource != null) {
+            preTokens = TextUtils.tokensRight(getPrematchText().toString());
+            preTokensSet = true;
+            contextMaterialized.increment();
+        }
         return preTokens;
     }
 
@@ -764,12 +793,18 @@ public class PlaceCandidate extends TextMatch {
      */
     public void setPrematchTokens(String[] toks) {
         this.preTokens = toks;
+        this.preTokensSet = true;
     }
 
     /**
      * @return tokens following name span
      */
     public String[] getPostmatchTokens() {
+        if (!postTokensSet && contextSource != null) {
+            postTokens = TextUtils.tokensLeft(getPostmatchText().toString());
+            postTokensSet = true;
+            contextMaterialized.increment();
+        }
         return postTokens;
     }
 
@@ -778,6 +813,41 @@ public class PlaceCandidate extends TextMatch {
      */
     public void setPostmatchTokens(String[] toks) {
         this.postTokens = toks;
+        this.postTokensSet = true;
+    }
+
+    /**
+     * @return text window preceding name span, as a view on the source buffer; empty if no context
+     */
+    public CharSequence getPrematchText() {
+        if (contextSource == null) {
+            return "";
+        }
+        return CharBuffer.wrap(contextSource, contextWindow[0], contextWindow[1]);
+    }
+
+    /**
+     * @return text window following name span, as a view on the source buffer; empty if no context
+     */
+    public CharSequence getPostmatchText() {
+        if (contextSource == null) {
+            return "";
+        }
+        return CharBuffer.wrap(contextSource, contextWindow[2], contextWindow[3]);
+    }
+
+    /**
+     * @return count of candidates given surrounding context since startup
+     */
+    public static long getContextCount() {
+        return contextDeferred.sum();
+    }
+
+    /**
+     * @return count of context token arrays created, pre- or post-match, since startup
+     */
+    public static long getContextMaterializedCount() {
+        return contextMaterialized.sum();
     }
 
     public String getSurroundingText() {
@@ -867,6 +937,7 @@ public class PlaceCandidate extends TextMatch {
      * @return token word count
      */
     public int getWordCount() {
+        splitTokens();
         return wordCount;
     }
 
@@ -881,8 +952,8 @@ public class PlaceCandidate extends TextMatch {
         if (getText() == null) {
             return;
         }
-        this.tokens = tokenizer.split(getText());
-        this.wordCount = tokens.length;
+        this.tokens = null;
+        this.sensedText = getText();
         this.hasDiacritics = TextUtils.hasDiacritics(getText());
 
         /*
@@ -900,9 +971,20 @@ public class PlaceCandidate extends TextMatch {
      * @return
      */
     public String[] getTokens() {
+        splitTokens();
         return tokens;
     }
 
+    /**
+     * Split text into tokens on first use, after inferTextSense().
+     */
+    private void splitTokens() {
+        if (tokens == null && sensedText != null) {
+            tokens = tokenizer.split(sensedText);
+            wordCount = tokens.length;
+        }
+    }
+
     private Map<String, Place> linkedGeography = null;
 
     /**
@@ -18,6 +18,11 @@ package org.opensextant.extractors.geo;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import javax.management.JMException;
 
 import org.apache.solr.client.solrj.SolrServerException;
 import org.opensextant.ConfigException;
@@ -33,6 +38,7 @@ import org.opensextant.extractors.xtax.TaxonMatch;
 import org.opensextant.extractors.xtax.TaxonMatcher;
 import org.opensextant.processing.Parameters;
 import org.opensextant.util.GeonamesUtility;
+import org.opensextant.util.SolrContainerRegistry;
 import org.opensextant.util.TextUtils;
 import org.slf4j.LoggerFactory;
 
@@ -46,11 +52,16 @@ import org.slf4j.LoggerFactory;
  * <li>geo.rules.* pkg: disambiguation rules to choose the best location for
  * tagged names</li>
  * </ul>
+ * Once configured, a PlaceGeocoder holds configuration only: rules, taggers, filters and reference data.
+ * Everything observed on a document -- countries, provinces and locations in scope, and the working state of each
+ * rule -- is kept in a GeocodingContext created for that document by extract(), so one configured geocoder
+ * may geocode documents on many threads.  Configure it (setParameters(), addRule(), etc.) before sharing it.
+ * Within extract(), coordinate and taxon tagging run on the stage executor (see setStageExecutor()) while the
+ * gazetteer is tagged on the calling thread.
  *
  * @author Marc C. Ubaldino, MITRE, ubaldino at mitre dot org
  */
-public class PlaceGeocoder extends GazetteerMatcher
-        implements Extractor, CountryObserver, BoundaryObserver, LocationObserver {
+public class PlaceGeocoder extends GazetteerMatcher implements Extractor {
 
     public static final String VERSION = "3.8";
     public static final String METHOD_DEFAULT = String.format("PlaceGeocoder v%s", VERSION);
@@ -64,8 +75,13 @@ public class PlaceGeocoder extends GazetteerMatcher
     private Map<String, Country> countryCatalog = null;
     private GeonamesUtility nameHelper = null;
     public final Set<String> taxonCatalogs = new HashSet<>();
+    /* Updated by every thread sharing this geocoder; ExtractionMetrics is not thread-safe, so lock on the metrics */
     private final ExtractionMetrics taggingTimes = new ExtractionMetrics("tagging");
     private final ExtractionMetrics matcherTotalTimes = new ExtractionMetrics("matcher-total");
+    private final ExtractionMetrics gazetteerTimes = new ExtractionMetrics("stage-gazetteer");
+    private final ExtractionMetrics coordinateTimes = new ExtractionMetrics("stage-coordinates");
+    private final ExtractionMetrics taxonTimes = new ExtractionMetrics("stage-taxons");
+    private Executor stageExecutor = null;
 
     /**
      * Rules -- specific ones that are globals. Generic rules that have no state or
@@ -93,6 +109,23 @@ public class PlaceGeocoder extends GazetteerMatcher
         LANG_SPECIFIC_FILTERS.add(TextUtils.japaneseLang);
     }
 
+    private static Map<String, Integer> defaultPopulationStats = null;
+
+    /**
+     * Population by location of major cities, loaded once and shared by all PlaceGeocoder instances, e.g., those
+     * in an ExtractorPool.
+     *
+     * @return read-only map of location =&gt; population
+     * @throws IOException if city data is missing
+     */
+    public static synchronized Map<String, Integer> getDefaultPopulationStats() throws IOException {
+        if (defaultPopulationStats == null) {
+            defaultPopulationStats = Collections.unmodifiableMap(GeonamesUtility
+                    .mapPopulationByLocation(GeonamesUtility.loadMajorCities("/geonames.org/cities15000.txt")));
+        }
+        return defaultPopulationStats;
+    }
+
     /**
      * A default Geocoding app that demonstrates how to invoke the geocoding pipline
      * start to finish. It makes use of XCoord to parse/geocode coordinates,
@@ -148,13 +181,35 @@ public class PlaceGeocoder extends GazetteerMatcher
         throw new ConfigException("Configure by URL Not available");
     }
 
+    private static String report(ExtractionMetrics metrics) {
+        synchronized (metrics) {
+            return metrics.toString();
+        }
+    }
+
     /**
      * We have some emerging metrics to report out...
      */
     public void reportMetrics() {
         log.info("=======================\nTAGGING METRICS");
-        log.info(taggingTimes.toString());
-        log.info(matcherTotalTimes.toString());
+        log.info(report(taggingTimes));
+        log.info(report(matcherTotalTimes));
+        log.info(report(gazetteerTimes));
+        log.info(report(coordinateTimes));
+        log.info(report(taxonTimes));
+        for (RuleStats st : getRuleStats()) {
+            log.info(st.report());
+        }
+        log.info(SolrContainerRegistry.report());
+        if (getPlaceCache() != null) {
+            log.info(getPlaceCache().report());
+        }
+        if (getNameCache() != null) {
+            log.info(getNameCache().report());
+        }
+        log.info("Texts skipped as untaggable: {}", getSkippedCount());
+        log.info("Context tokens materialized {} of {} candidates", PlaceCandidate.getContextMaterializedCount(),
+                PlaceCandidate.getContextCount());
     }
 
     /**
@@ -202,12 +257,9 @@ public class PlaceGeocoder extends GazetteerMatcher
 
         /* assess country names and codes */
         countryRule = new CountryRule();
-        countryRule.setCountryObserver(this);
 
         /* assess NAME, CODE patterns */
         nameWithAdminRule = new NameCodeRule(this.taggingParams);
-        nameWithAdminRule.setBoundaryObserver(this);
-        nameWithAdminRule.setCountryObserver(this);
 
         // Nonsense is filtered out, rather than scored and ranked low.
         addRule(new NonsenseFilter());
@@ -225,8 +277,6 @@ public class PlaceGeocoder extends GazetteerMatcher
          * assess coordinates related to ADM1, CC
          */
         coordRule = new CoordinateAssociationRule();
-        coordRule.setCountryObserver(this);
-        coordRule.setLocationObserver(this);
 
         if (xcoord == null && (isCoordExtractionEnabled())) {
             xcoord = new XCoord();
@@ -236,7 +286,6 @@ public class PlaceGeocoder extends GazetteerMatcher
              * assess ADM1 related to found NAMES as a result of coordinates
              */
             adm1Rule = new ProvinceAssociationRule();
-            adm1Rule.setCountryObserver(this);
 
             addRule(coordRule);
             addRule(adm1Rule);
@@ -244,11 +293,7 @@ public class PlaceGeocoder extends GazetteerMatcher
 
         // Major Places
         try {
-            Map<String, Integer> popstats = GeonamesUtility
-                    .mapPopulationByLocation(GeonamesUtility.loadMajorCities("/geonames.org/cities15000.txt"));
-            MajorPlaceRule majorPlaceRule = new MajorPlaceRule(popstats);
-            majorPlaceRule.setCountryObserver(this);
-            majorPlaceRule.setBoundaryObserver(this);
+            MajorPlaceRule majorPlaceRule = new MajorPlaceRule(getDefaultPopulationStats());
             addRule(majorPlaceRule);
         } catch (IOException err) {
             throw new ConfigException("Missing City population data", err);
@@ -287,7 +332,6 @@ public class PlaceGeocoder extends GazetteerMatcher
         // to Ohio unless the city or state was mentioned separately.
         //
         ContextualOrganizationRule placeInOrgRule = new ContextualOrganizationRule();
-        placeInOrgRule.setBoundaryObserver(this);
         addRule(placeInOrgRule);
 
         // Simple patterns such as city of x or abc county.
@@ -296,13 +340,9 @@ public class PlaceGeocoder extends GazetteerMatcher
 
         HeatMapRule heatmapper = new HeatMapRule();
         addRule(heatmapper);
-        heatmapper.setCountryObserver(this);
 
         chooser = new LocationChooserRule();
         chooser.setDefaultMethod(METHOD_DEFAULT);
-        chooser.setCountryObserver(this);
-        chooser.setBoundaryObserver(this);
-        chooser.setLocationObserver(this);
 
         countryCatalog = this.getGazetteer().getCountries();
 
@@ -326,6 +366,7 @@ public class PlaceGeocoder extends GazetteerMatcher
      */
     public void addRule(GeocodeRule r) {
         rules.add(r);
+        ruleGraph = null;
     }
 
     /**
@@ -334,6 +375,102 @@ public class PlaceGeocoder extends GazetteerMatcher
     public void setRules(List<GeocodeRule> rlist) {
         rules.clear();
         rules.addAll(rlist);
+        ruleGraph = null;
+    }
+
+    private volatile RuleGraph ruleGraph = null;
+    private int ruleParallelThreshold = RuleGraph.DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * @return evaluation plan for the rules added, built from what each rule reads and writes
+     */
+    public RuleGraph getRuleGraph() {
+        RuleGraph g = ruleGraph;
+        if (g == null) {
+            g = new RuleGraph(rules);
+            g.setParallelThreshold(ruleParallelThreshold);
+            ruleGraph = g;
+        }
+        return g;
+    }
+
+    /**
+     * @return profiles of all rules, in the order they are evaluated, aggregated across documents
+     */
+    public List<RuleStats> getRuleStats() {
+        List<GeocodeRule> all = new ArrayList<>();
+        all.add(countryRule);
+        all.add(nameWithAdminRule);
+        all.add(langFilter);
+        all.addAll(rules);
+        all.add(chooser);
+        all.add(provinceNameSetter);
+        List<RuleStats> stats = new ArrayList<>();
+        for (GeocodeRule r : all) {
+            if (r != null) {
+                stats.add(r.getStats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Zero the profiles of all rules.
+     */
+    public void resetRuleStats() {
+        for (RuleStats st : getRuleStats()) {
+            st.reset();
+        }
+    }
+
+    private String mbeanGroup = null;
+
+    /**
+     * Export rule profiles as JMX MBeans, one per rule, named
+     * <code>org.opensextant.xponents:type=GeocodeRule,geocoder=NAME,name=RULE</code>.  Call after configure() and
+     * after adding rules.  MBeans are unregistered by close().
+     *
+     * @param name name distinguishing this geocoder from others in the JVM
+     * @throws ConfigException if MBeans cannot be registered
+     */
+    public void registerMBeans(String name) throws ConfigException {
+        unregisterMBeans();
+        try {
+            for (RuleStats st : getRuleStats()) {
+                st.register(name);
+            }
+            mbeanGroup = name;
+        } catch (JMException err) {
+            throw new ConfigException("Unable to register rule MBeans", err);
+        }
+    }
+
+    /**
+     * Remove the MBeans registered by registerMBeans().
+     */
+    public void unregisterMBeans() {
+        if (mbeanGroup == null) {
+            return;
+        }
+        try {
+            for (RuleStats st : getRuleStats()) {
+                st.unregister(mbeanGroup);
+            }
+        } catch (JMException err) {
+            log.error("Unable to unregister rule MBeans", err);
+        }
+        mbeanGroup = null;
+    }
+
+    /**
+     * Documents with at least this many candidates have data-parallel rules evaluated across threads of the stage
+     * executor, see RuleGraph and setStageExecutor().
+     *
+     * @param n minimum candidate count
+     */
+    public void setRuleParallelThreshold(int n) {
+        ruleParallelThreshold = n;
+        ruleGraph = null;
     }
 
     /**
@@ -347,12 +484,51 @@ public class PlaceGeocoder extends GazetteerMatcher
 
     @Override
     public void close() {
+        unregisterMBeans();
         super.close();
         if (taxonTagger != null) {
             taxonTagger.close();
         }
     }
 
+    /**
+     * Set the executor for the coordinate and taxon stages of extract(), which run while the gazetteer is tagged on
+     * the calling thread.  Use <code>Runnable::run</code> to run all stages on the calling thread.
+     * A bounded executor must allow two stage tasks per concurrent extract() call in addition to any
+     * extractAsync() calls it also runs, or those calls wait on each other.
+     * The executor is owned by the caller and is not shut down by close().
+     *
+     * @param exec executor, or null for the executor of this matcher, see setExecutor()
+     */
+    public void setStageExecutor(Executor exec) {
+        stageExecutor = exec;
+    }
+
+    /**
+     * @return executor for the coordinate and taxon stages of extract()
+     */
+    public Executor getStageExecutor() {
+        return stageExecutor != null ? stageExecutor : getExecutor();
+    }
+
+    /**
+     * Run one stage of extract() on the stage executor, timing it.
+     */
+    private <T> CompletableFuture<T> stage(ExtractionMetrics timer, TaggingCall<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long t0 = System.currentTimeMillis();
+            try {
+                return task.call();
+            } catch (ExtractionException err) {
+                throw new CompletionException(err);
+            } finally {
+                synchronized (timer) {
+                    timer.addTimeSince(t0);
+                }
+            }
+        }, getStageExecutor());
+    }
+
     private Parameters taggingParams = new Parameters();
 
     public void setParameters(Parameters p) {
@@ -384,32 +560,6 @@ public class PlaceGeocoder extends GazetteerMatcher
         taggingParams.tag_names = b;
     }
 
-    private void reset() {
-        this.relevantCountries.clear();
-        this.relevantProvinces.clear();
-        this.relevantLocations.clear();
-
-        personNameRule.reset();
-        countryRule.reset();
-        chooser.reset();
-        for (GeocodeRule r : rules) {
-            r.reset();
-        }
-    }
-
-    /**
-     * Countries mentioned, inferred, or otherwise relevant
-     */
-    private final Map<String, CountryCount> relevantCountries = new HashMap<>();
-    /**
-     * Provinces mentioned, inferred or otherwise relevant.
-     */
-    private final Map<String, PlaceCount> relevantProvinces = new HashMap<>();
-    /**
-     * Places inferred by their proximity to concrete coordinate references.
-     */
-    private final Map<String, Place> relevantLocations = new HashMap<>();
-
     /**
      * See {@link #extract(TextInput, Parameters)} below.
      * This is the default extraction routine. If you need to tune extraction call
@@ -420,6 +570,19 @@ public class PlaceGeocoder extends GazetteerMatcher
         return extract(input, null);
     }
 
+    /**
+     * Geocode a document as in extract(TextInput, Parameters), on the executor of this geocoder (see setExecutor()),
+     * so it may overlap with other extractors working on the same document.
+     * Each call has its own GeocodingContext, so asynchronous calls on one instance may run concurrently.
+     *
+     * @param input     text
+     * @param jobParams parameters, or null
+     * @return future matches; errors complete it with a CompletionException wrapping the ExtractionException
+     */
+    public CompletableFuture<List<TextMatch>> extractAsync(TextInput input, Parameters jobParams) {
+        return async(() -> extract(input, jobParams));
+    }
+
     /**
      * Extractor.extract() calls first XCoord to get coordinates, then
      * PlacenameMatcher In the end you
@@ -440,10 +603,27 @@ public class PlaceGeocoder extends GazetteerMatcher
      * Both methods yield a geocoding.
      *
      * @param input input buffer, doc ID, and optional langID.
+     * @param jobParams parameters for this document, or null. Lower case tagging is applied to this call only.
      * @return TextMatch instances which are all PlaceCandidates.
      * @throws ExtractionException on err
      */
     public List<TextMatch> extract(TextInput input, Parameters jobParams) throws ExtractionException {
+        GeocodingContext ctx = new GeocodingContext(input, jobParams, countryCatalog, this::evaluateCoordinate);
+        GeocodingContext prev = ctx.enter();
+        try {
+            return extract(ctx);
+        } finally {
+            GeocodingContext.restore(prev);
+        }
+    }
+
+    /**
+     * The geocoding pipeline for the document of the given context. Rules and observers record what they
+     * learn about the document in ctx only.
+     */
+    private List<TextMatch> extract(GeocodingContext ctx) throws ExtractionException {
+        TextInput input = ctx.getInput();
+        Parameters jobParams = ctx.getParameters();
         boolean tagOnly = false;
         /*
         tagOnly:
@@ -452,27 +632,39 @@ public class PlaceGeocoder extends GazetteerMatcher
         */
 
         long t1 = System.currentTimeMillis();
-        reset();
-
-        if (jobParams != null) {
-            this.setAllowLowerCase(jobParams.tag_lowercase);
-        }
 
         List<TextMatch> matches = new ArrayList<>();
 
-        // 0. GEOTAG raw text. Flag tag-only = false, in otherwords do extra work for
-        // geocoding.
+        // Stages 0, 1 and 2 below are independent until rule evaluation: coordinates and taxons are tagged on the
+        // stage executor while the gazetteer is tagged here.  The coordinate stage is the only user of ctx
+        // until it is joined.
         //
-        List<PlaceCandidate> candidates = tagText(input, tagOnly);
-
         // 1. COORDINATES. If caller thinks their data may have coordinates, then  attempt to parse lat/lon.
         // Any coordinates found fire rules for resolve lat/lon to a Province/Country if possible.
         //
-        matches.addAll(parseGeoCoordinates(input));
+        CompletableFuture<List<TextMatch>> coordinates = stage(coordinateTimes, () -> parseGeoCoordinates(ctx));
+
+        // 2. NON-PLACE ID. Tag person and org names to negate celebrity names or
+        // well-known individuals who share a city name. "Tom Jackson", "Bill Clinton"
+        //
+        CompletableFuture<List<TextMatch>> nonPlaces = stage(taxonTimes, () -> taxonTagger.extract(input, jobParams));
+
+        // 0. GEOTAG raw text. Flag tag-only = false, in otherwords do extra work for
+        // geocoding.
+        //
+        long t0 = System.currentTimeMillis();
+        List<PlaceCandidate> candidates = jobParams != null ? tagText(input, tagOnly, jobParams.tag_lowercase)
+                : tagText(input, tagOnly);
+        synchronized (gazetteerTimes) {
+            gazetteerTimes.addTimeSince(t0);
+        }
+
+        matches.addAll(await(coordinates));
 
         if (candidates == null) {
             return matches;
         }
+        List<TextMatch> taxons = await(nonPlaces);
 
         /*
          * 3.RULE EVALUATION: accumulate all the evidence from everything found so far.
@@ -490,38 +682,35 @@ public class PlaceGeocoder extends GazetteerMatcher
          * f. Province association rule -- for each found place, weight geos falling in Provinces positively ID'd.
          * g. Location Chooser rule -- assemble all evidence and account for weights.
          */
-        countryRule.evaluate(candidates);
-        nameWithAdminRule.evaluate(candidates);
+        countryRule.evaluate(ctx, candidates);
+        nameWithAdminRule.evaluate(ctx, candidates);
 
-        // 2. NON-PLACE ID. Tag person and org names to negate celebrity names or
-        // well-known individuals who share a city name. "Tom Jackson", "Bill Clinton"
-        //
-        parseKnownNonPlaces(input, candidates, matches, jobParams);
+        // 2. NON-PLACE ID, continued: negate candidates that are known persons or organizations.
+        parseKnownNonPlaces(ctx, taxons, candidates, matches);
 
         // Measure duration of tagging.
-        this.taggingTimes.addTimeSince(t1);
+        synchronized (taggingTimes) {
+            taggingTimes.addTimeSince(t1);
+        }
 
         if (candidates.isEmpty()) {
             // May contain found taxons from known places step above.
             return matches;
         }
         if (LANG_SPECIFIC_FILTERS.contains(input.langid)) {
-            langFilter.reset();
-            langFilter.evaluate(candidates);
+            langFilter.evaluate(ctx, candidates);
         }
 
-        // Evaluate independent rules, and any that user has added.
+        // Evaluate independent rules, and any that user has added, in the order of the rule graph.
+        // Large documents have data-parallel rules evaluated across threads of the stage executor.
         //
-        for (GeocodeRule r : rules) {
-            r.evaluate(candidates);
-        }
+        getRuleGraph().evaluate(ctx, candidates, getStageExecutor());
 
         // Last rule: score, choose, add confidence.
         //
-        chooser.setTextCase(input);
-        chooser.evaluate(candidates, jobParams);
+        chooser.evaluate(ctx, candidates, jobParams);
         if (provinceNameSetter != null) {
-            provinceNameSetter.evaluate(candidates);
+            provinceNameSetter.evaluate(ctx, candidates);
         }
         // Leverage the resulting state of the Chooser -- at the mention level and the document level
         // To further refine filterable nonsense.
@@ -537,8 +726,10 @@ public class PlaceGeocoder extends GazetteerMatcher
         matches.addAll(candidates);
 
         // Measure full processing duration for this doc.
-        this.matcherTotalTimes.addBytes(input.buffer.length());
-        this.matcherTotalTimes.addTimeSince(t1);
+        synchronized (matcherTotalTimes) {
+            matcherTotalTimes.addBytes(input.buffer.length());
+            matcherTotalTimes.addTimeSince(t1);
+        }
 
         return matches;
     }
@@ -589,15 +780,14 @@ public class PlaceGeocoder extends GazetteerMatcher
      * If no geo matches are found, we still parse the data if person name matching
      * is enabled. Poor-man's named-entity extraction
      *
-     * @throws ExtractionException
+     * @param nonPlaces taxons tagged in the document
      */
-    private void parseKnownNonPlaces(TextInput input, List<PlaceCandidate> candidates, List<TextMatch> matches,
-                                     Parameters params) throws ExtractionException {
-
-        List<TextMatch> nonPlaces = taxonTagger.extract(input, params);
+    private void parseKnownNonPlaces(GeocodingContext ctx, List<TextMatch> nonPlaces, List<PlaceCandidate> candidates,
+                                     List<TextMatch> matches) {
         if (nonPlaces.isEmpty()) {
             return;
         }
+        TextInput input = ctx.getInput();
         /* Taxon Matcher tags for all taxons in your own `taxcat` tagger index
          * The default one has JRC, WFB, person names, nationalities.
          * ALL these taxons will be tagged and compared against geogrpahic names.
@@ -657,7 +847,7 @@ public class PlaceGeocoder extends GazetteerMatcher
                             int x = t.indexOf("cc+");
                             if (x >= 0) {
                                 String isocode = t.substring(x + 3);
-                                this.countryInScope(isocode);
+                                ctx.countryInScope(isocode);
                             }
                         }
                     }
@@ -694,165 +884,24 @@ public class PlaceGeocoder extends GazetteerMatcher
      * Concrete lat/lon or MGRS grid locations infer location, city, province,
      * country
      */
-    private List<TextMatch> parseGeoCoordinates(TextInput input) {
+    private List<TextMatch> parseGeoCoordinates(GeocodingContext ctx) {
         List<TextMatch> coords = new ArrayList<>();
         if (!isCoordExtractionEnabled()) {
             return coords;
         }
 
-        coords = xcoord.extract(input);
+        coords = xcoord.extract(ctx.getInput());
         if (!coords.isEmpty()) {
-            coordRule.addCoordinates(coords);
-            adm1Rule.setProvinces(relevantProvinces.values());
-        }
-        return coords;
-    }
-
-    /**
-     * Record how often country references are made.
-     *
-     * @param c country obj
-     */
-    @Override
-    public void countryInScope(Country c) {
-        if (c == null) {
-            return;
-        }
-        CountryCount counter = relevantCountries.computeIfAbsent(c.getCountryCode(), newCount -> new CountryCount(c));
-        ++counter.count;
-    }
-
-    @Override
-    public int countryCount() {
-        return relevantCountries.size();
-    }
-
-    /**
-     * Calculate country mention totals and ratios. These ratios help qualify what
-     * the document is about. These may be mentions in text or inferred mentions to the countries
-     * listed, e.g., a coord infers a particular country.
-     */
-    @Override
-    public Map<String, CountryCount> countryMentionCount() {
-        int total = 0;
-        for (CountryCount cnt : relevantCountries.values()) {
-            total += cnt.count;
-        }
-        for (CountryCount cnt : relevantCountries.values()) {
-            cnt.total = total;
-        }
-        return relevantCountries;
-    }
-
-    /**
-     * Weight mentions or indirect references to Provinces in the document
-     *
-     * @return
-     */
-    @Override
-    public Map<String, PlaceCount> placeMentionCount() {
-        int total = 0;
-        // Accumulate total.
-        for (PlaceCount cnt : relevantProvinces.values()) {
-            total += cnt.getCount();
-        }
-
-        // One more time to set totals.
-        for (PlaceCount cnt : relevantProvinces.values()) {
-            cnt.total = total;
-        }
-        return relevantProvinces;
-    }
-
-    /**
-     * Record how often country references are made.
-     *
-     * @param cc
-     */
-    @Override
-    public void countryInScope(String cc) {
-        Country ctry = countryCatalog.get(cc);
-        if (ctry == null) {
-            log.debug("Unknown country code {}", cc);
-            return;
-        }
-        CountryCount counter = relevantCountries.computeIfAbsent(ctry.getCountryCode(), newCount -> new CountryCount(ctry));
-        ++counter.count;
-    }
-
-    @Override
-    public boolean countryObserved(String cc) {
-        if (cc == null) {
-            return false;
-        }
-        return relevantCountries.containsKey(cc);
-    }
-
-    @Override
-    public boolean countryObserved(Country C) {
-        if (C == null) {
-            return false;
-        }
-        return relevantCountries.containsKey(C.getCountryCode());
-    }
-
-    /**
-     * When coordinates are found track them. A coordinate is critical -- it informs
-     * us of city,  province, and country. If the location is off shore or in no-mans' land,
-     * these chains of observers should respect that and fail quietly.
-     * There are at least two opportunities here:
-     * 1. Given a geo coordinate, use that hard location to disambiguate other named places
-     * 2. Given a geo coordinate identify the nearest known place(s).
-     * Such places may not be presented in the document or text. The first improves overall
-     * location accuracy, the second offers location enrichment and discovery.
-     */
-    @Override
-    public void locationInScope(Geocoding geo) {
-        try {
-            Place cityOrProv = evaluateCoordinate(geo);
-            if (cityOrProv == null) {
-                return;
+            // May run on a stage thread; rule state goes to ctx.
+            GeocodingContext prev = ctx.enter();
+            try {
+                coordRule.addCoordinates(ctx, coords);
+                adm1Rule.setProvinces(ctx.placeMentionCount().values());
+            } finally {
+                GeocodingContext.restore(prev);
             }
-
-            // IF FOUND, this relates to "resolve_provinces" parameter.
-            //
-            // TODO: for provinces found by proximity here
-            // play off distinct province vs. city features. relevantProvinces allows
-            // overwriting existing key.
-            // We may need to track all key/value pairs.
-            cityOrProv.defaultHierarchicalPath();
-            relevantLocations.put(cityOrProv.getPlaceID(), cityOrProv);
-            // for coordinates, the text that infers the location is not relevant in boundaryLevel1InScope()
-            boundaryLevel1InScope("coordinate", cityOrProv);
-            countryInScope(cityOrProv.getCountryCode());
-        } catch (Exception err) {
-            log.error("Spatial search error", err);
-        }
-    }
-
-    /**
-     * Observer pattern that sees any time a possible boundary (state, province, district, etc) is mentioned.
-     * Example:  mention "Florida"  linked to location Florida(ADM1, FL, US) infers the boundary "US.FL"
-     * As would  "Miami" (PPL, FL, US) also infer "US.FL".  We care more about the distinct and various mentions more
-     * than the location counts.  I.e., "Florida" has 185 locations worldwide, multiples in some countries.
-     *
-     * @param nameNorm text or name related to the place, p
-     * @param p        ID of a boundary.
-     */
-    @Override
-    public void boundaryLevel1InScope(String nameNorm, Place p) {
-        String key = p.getHierarchicalPath();
-        if (key == null) {
-            return;
         }
-
-        PlaceCount counter = relevantProvinces.computeIfAbsent(key, newCounter -> new PlaceCount(key));
-        counter.add(nameNorm);
-    }
-
-    @Override
-    public void boundaryLevel2InScope(String nameNorm, Place p) {
-        // NOT Implmemented.
+        return coords;
     }
 
     /**
@@ -864,8 +913,6 @@ public class PlaceGeocoder extends GazetteerMatcher
         return extract(new TextInput(null, input_buf));
     }
 
-    Map<String, Integer> locationBias = new HashMap<>();
-
     /**
      * Find nearest city within r=25 KM to infer geography of a given coordinate,
      * e.g., What state is
@@ -976,12 +1023,4 @@ public class PlaceGeocoder extends GazetteerMatcher
         }
         return found;
     }
-
-    /**
-     * Tell us if this place P was inferred by hard location mentions
-     */
-    @Override
-    public boolean placeObserved(Place p) {
-        return this.relevantLocations.containsKey(p.getKey());
-    }
 }
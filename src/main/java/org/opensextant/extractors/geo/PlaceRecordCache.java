@@ -0,0 +1,152 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import org.apache.solr.common.SolrDocument;
+import org.opensextant.data.Place;
+import org.opensextant.util.SolrUtil;
+import org.opensextant.util.StripedLruCache;
+
+/**
+ * Bounded cache of immutable gazetteer records keyed by gazetteer row "id", shared across
+ * documents and threads. Common names -- Springfield, San Jose, Paris -- are tagged on nearly
+ * every document; with this cache their records are parsed once and each document receives
+ * a fresh Place built from the cached record, as Place objects are modified during geocoding.
+ * <p>
+ * The cache is bounded by an estimate of heap consumed, evicting least-recently used records; see StripedLruCache.
+ * Shared instances are kept per Solr core, as ids are only unique within a core.
+ * Set the system property "opensextant.placecache.mb" to size shared caches; 0 disables them.
+ *
+ * @author ubaldino
+ */
+public final class PlaceRecordCache extends StripedLruCache<Object, PlaceRecordCache.Record> {
+
+    public static final String CACHE_SIZE_PROPERTY = "opensextant.placecache.mb";
+    public static final int DEFAULT_CACHE_MB = 64;
+    /**
+     * An immutable gazetteer record.
+     */
+    public static final class Record {
+        final String placeId;
+        final String name;
+        final String cc;
+        final String adm1;
+        final String adm2;
+        final String featClass;
+        final String featCode;
+        final char nameType;
+        final double lat;
+        final double lon;
+        final int idBias;
+        /* Name metadata, see GazetteerPlace */
+        final int nameFlags;
+        final int foldedNameHash;
+        /* Approximate heap size of this record, in bytes. */
+        final int bytes;
+
+        Record(SolrDocument gazEntry) {
+            placeId = SolrUtil.getString(gazEntry, "place_id");
+            name = SolrUtil.getString(gazEntry, "name");
+            cc = SolrUtil.getString(gazEntry, "cc");
+            adm1 = SolrUtil.getString(gazEntry, "adm1");
+            adm2 = SolrUtil.getString(gazEntry, "adm2");
+            featClass = SolrUtil.getString(gazEntry, "feat_class");
+            featCode = SolrUtil.getString(gazEntry, "feat_code");
+            nameType = SolrUtil.getChar(gazEntry, "name_type");
+            double[] xy = SolrUtil.getCoordinate(gazEntry, "geo");
+            lat = xy[0];
+            lon = xy[1];
+            idBias = SolrUtil.getInteger(gazEntry, "id_bias");
+            GazetteerPlace geo = populate(new GazetteerPlace(placeId, name)).index();
+            nameFlags = geo.nameFlags;
+            foldedNameHash = geo.foldedNameHash;
+            bytes = 72 + sizeOf(placeId) + sizeOf(name) + sizeOf(cc) + sizeOf(adm1) + sizeOf(adm2)
+                    + sizeOf(featClass) + sizeOf(featCode);
+        }
+
+        private static int sizeOf(String s) {
+            return s == null ? 0 : 40 + s.length();
+        }
+
+        /**
+         * @return a new Place populated from this record.
+         */
+        public Place toPlace() {
+            GazetteerPlace geo = populate(new GazetteerPlace(placeId, name));
+            geo.setNameMetadata(nameFlags, foldedNameHash);
+            return geo;
+        }
+
+        private GazetteerPlace populate(GazetteerPlace geo) {
+            if (nameType > 0) {
+                geo.setName_type(nameType);
+            }
+            geo.setCountryCode(cc);
+            geo.setAdmin1(adm1);
+            geo.setAdmin2(adm2);
+            geo.setFeatureClass(featClass);
+            geo.setFeatureCode(featCode);
+            geo.setLatitude(lat);
+            geo.setLongitude(lon);
+            geo.setId_bias(idBias);
+            return geo;
+        }
+    }
+
+    /**
+     * @param maxBytes approximate heap limit for cached records
+     */
+    public PlaceRecordCache(long maxBytes) {
+        super("Place cache", maxBytes, (id, rec) -> rec.bytes);
+    }
+
+    /**
+     * Get the shared cache for a Solr core.
+     *
+     * @param coreName Solr core, e.g., "gazetteer"
+     * @return shared cache or null if caching is disabled
+     */
+    public static PlaceRecordCache getShared(String coreName) {
+        return getShared(coreName, PlaceRecordCache.class, CACHE_SIZE_PROPERTY, DEFAULT_CACHE_MB,
+                PlaceRecordCache::new);
+    }
+
+    /**
+     * Get a new Place for the given gazetteer record, using the cached record for this id if present.
+     *
+     * @param id       gazetteer id
+     * @param gazEntry record from the gazetteer, used on cache miss
+     * @return new Place object
+     */
+    public Place getPlace(Object id, SolrDocument gazEntry) {
+        Record rec = get(id);
+        if (rec == null) {
+            rec = new Record(gazEntry);
+            put(id, rec);
+        }
+        return rec.toPlace();
+    }
+
+    /**
+     * @param id gazetteer id
+     * @return new Place from cached record, or null if not cached.
+     */
+    public Place getPlace(Object id) {
+        Record rec = get(id);
+        return rec == null ? null : rec.toPlace();
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.LukeRequest;
+import org.apache.solr.client.solrj.response.LukeResponse;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.opensextant.data.Place;
+import org.opensextant.util.SolrUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact, memory-mapped store of gazetteer Place records keyed by gazetteer row "id".
+ * This is built once from the gazetteer core and then used by GazetteerMatcher to resolve the ids
+ * returned by the tagger, so the tagger need not fetch and decompress stored fields for every
+ * matched row.  Records live off-heap; only the Place objects handed out are allocated.
+ * <p>
+ * File layout, all big-endian:
+ * <pre>
+ *   header   MAGIC, VERSION, count, index numDocs (int x4), string heap length (long), index version (long)
+ *   ids      long[count]  -- sorted gazetteer ids
+ *   rows     int[count]   -- record row for ids[i]
+ *   records  RECORD_LEN bytes x count -- lat, lon, id_bias, string refs (place_id, name, cc, adm1, adm2,
+ *            feat_class, feat_code), name_type
+ *   strings  (unsigned short length, UTF-8 bytes)*
+ * </pre>
+ * Gazetteer ids must be numeric, which they are for the Xponents gazetteer.  Any id that is not in
+ * the store is reported as missing and caller should fall back to Solr.
+ * <p>
+ * The header records the version and document count of the index the store was built from.
+ * Ids are only meaningful for that index, so openOrBuild() rebuilds a store that does not match
+ * the gazetteer it is opened against.
+ *
+ * @author ubaldino
+ */
+public class PlaceStore implements Closeable {
+
+    public static final int MAGIC = 0x58504c53; /* "XPLS" */
+    public static final int VERSION = 2;
+    private static final int HEADER_LEN = 32;
+    /* lat, lon  + id_bias + 7 string refs + name_type */
+    static final int RECORD_LEN = 8 + 8 + 4 + (7 * 4) + 4;
+    /* Short strings -- codes, feature types, place IDs -- are stored once */
+    private static final int DEDUP_MAX_LEN = 12;
+    private static final int BUILD_BATCH = 10000;
+
+    private static final Logger log = LoggerFactory.getLogger(PlaceStore.class);
+
+    private final File storeFile;
+    private final int count;
+    private final int indexDocs;
+    private final long indexVersion;
+    private final MappedByteBuffer ids;
+    private final MappedByteBuffer rows;
+    private final MappedByteBuffer records;
+    private final MappedByteBuffer strings;
+
+    private PlaceStore(File f) throws IOException {
+        storeFile = f;
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LEN);
+            ch.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a Place store: " + f);
+            }
+            int ver = header.getInt();
+            if (ver != VERSION) {
+                throw new IOException(String.format("Place store version %d is not supported: %s", ver, f));
+            }
+            count = header.getInt();
+            indexDocs = header.getInt();
+            long stringsLen = header.getLong();
+            indexVersion = header.getLong();
+
+            long pos = HEADER_LEN;
+            ids = ch.map(FileChannel.MapMode.READ_ONLY, pos, mapSize(8L * count));
+            pos += 8L * count;
+            rows = ch.map(FileChannel.MapMode.READ_ONLY, pos, mapSize(4L * count));
+            pos += 4L * count;
+            records = ch.map(FileChannel.MapMode.READ_ONLY, pos, mapSize((long) RECORD_LEN * count));
+            pos += (long) RECORD_LEN * count;
+            strings = ch.map(FileChannel.MapMode.READ_ONLY, pos, mapSize(stringsLen));
+        }
+    }
+
+    private static long mapSize(long sz) throws IOException {
+        if (sz > Integer.MAX_VALUE) {
+            throw new IOException("Place store section exceeds 2GB; split the gazetteer");
+        }
+        return sz;
+    }
+
+    /**
+     * Open an existing store.
+     *
+     * @param f store file
+     * @return store
+     * @throws IOException if file is missing or not a valid store.
+     */
+    public static PlaceStore open(File f) throws IOException {
+        PlaceStore store = new PlaceStore(f);
+        log.info("Opened Place store {}, records={}", f, store.count);
+        return store;
+    }
+
+    /**
+     * Open the store at the given file, building it from the gazetteer index first if it does not exist
+     * or if it was built from a different version of the index.
+     *
+     * @param index gazetteer solr client
+     * @param f     store file
+     * @return store
+     * @throws IOException         on I/O err
+     * @throws SolrServerException on Solr err while building
+     */
+    public static PlaceStore openOrBuild(SolrClient index, File f) throws IOException, SolrServerException {
+        LukeResponse stamp = indexStamp(index);
+        if (!f.exists()) {
+            build(index, f, stamp);
+        } else if (!isCurrent(f, stamp)) {
+            log.info("Place store {} does not match gazetteer index version={}, numDocs={}; Rebuilding", f,
+                    stamp.getIndexInfo().get("version"), stamp.getNumDocs());
+            build(index, f, stamp);
+        }
+        return open(f);
+    }
+
+    /**
+     * Index version and document count, as reported by the Luke handler.
+     */
+    private static LukeResponse indexStamp(SolrClient index) throws IOException, SolrServerException {
+        LukeRequest luke = new LukeRequest();
+        luke.setNumTerms(0);
+        luke.setShowSchema(false);
+        LukeResponse response = luke.process(index);
+        if (response.getNumDocs() == null || !(response.getIndexInfo().get("version") instanceof Number)) {
+            throw new IOException("Gazetteer index does not report version and numDocs");
+        }
+        return response;
+    }
+
+    private static long indexVersion(LukeResponse stamp) {
+        return ((Number) stamp.getIndexInfo().get("version")).longValue();
+    }
+
+    /**
+     * Check the header only; the stale store may still be mapped by other matchers, see build().
+     */
+    private static boolean isCurrent(File f, LukeResponse stamp) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            in.readInt();
+            int docs = in.readInt();
+            in.readLong();
+            long ver = in.readLong();
+            return docs == stamp.getNumDocs() && ver == indexVersion(stamp);
+        } catch (EOFException err) {
+            return false;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return version of the gazetteer index this store was built from
+     */
+    public long getIndexVersion() {
+        return indexVersion;
+    }
+
+    /**
+     * @return number of documents in the gazetteer index this store was built from
+     */
+    public int getIndexDocs() {
+        return indexDocs;
+    }
+
+    public File getFile() {
+        return storeFile;
+    }
+
+    /**
+     * Lookup a Place by its gazetteer row id.  A new Place object is returned for each call, as
+     * callers populate Place objects further during geocoding.
+     *
+     * @param id gazetteer id, as returned by the tagger
+     * @return Place or null if not found
+     */
+    public Place get(Object id) {
+        long key = parseId(id);
+        if (key < 0) {
+            return null;
+        }
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long val = ids.getLong(mid * 8);
+            if (val < key) {
+                lo = mid + 1;
+            } else if (val > key) {
+                hi = mid - 1;
+            } else {
+                return readPlace(rows.getInt(mid * 4));
+            }
+        }
+        return null;
+    }
+
+    private static long parseId(Object id) {
+        if (id == null) {
+            return -1;
+        }
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        try {
+            return Long.parseLong(id.toString());
+        } catch (NumberFormatException err) {
+            return -1;
+        }
+    }
+
+    private GazetteerPlace readPlace(int row) {
+        int at = row * RECORD_LEN;
+        double lat = records.getDouble(at);
+        double lon = records.getDouble(at + 8);
+        int idBias = records.getInt(at + 16);
+
+        GazetteerPlace geo = new GazetteerPlace(string(records.getInt(at + 20)), string(records.getInt(at + 24)));
+        geo.setCountryCode(string(records.getInt(at + 28)));
+        geo.setAdmin1(string(records.getInt(at + 32)));
+        geo.setAdmin2(string(records.getInt(at + 36)));
+        geo.setFeatureClass(string(records.getInt(at + 40)));
+        geo.setFeatureCode(string(records.getInt(at + 44)));
+        char nt = (char) records.getInt(at + 48);
+        if (nt > 0) {
+            geo.setName_type(nt);
+        }
+        geo.setLatitude(lat);
+        geo.setLongitude(lon);
+        geo.setId_bias(idBias);
+        return geo.index();
+    }
+
+    private String string(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int len = strings.getShort(offset) & 0xFFFF;
+        byte[] buf = new byte[len];
+        for (int x = 0; x < len; ++x) {
+            buf[x] = strings.get(offset + 2 + x);
+        }
+        return new String(buf, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Nothing to release explicitly; the mapped regions are released when this object is collected.
+     */
+    @Override
+    public void close() {
+        log.debug("Closing Place store {}", storeFile);
+    }
+
+    /*
+     * =========================================
+     * Build
+     * =========================================
+     */
+
+    /**
+     * Accumulates distinct strings into a heap file. Returns offsets into that heap.
+     */
+    private static class StringHeapWriter implements Closeable {
+        final DataOutputStream out;
+        final Map<String, Integer> seen = new HashMap<>();
+        long length = 0;
+
+        StringHeapWriter(File f) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+        }
+
+        int add(String s) throws IOException {
+            if (s == null) {
+                return -1;
+            }
+            boolean dedup = s.length() <= DEDUP_MAX_LEN;
+            if (dedup) {
+                Integer known = seen.get(s);
+                if (known != null) {
+                    return known;
+                }
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            int len = Math.min(b.length, 0xFFFF);
+            if (length + 2 + len > Integer.MAX_VALUE) {
+                throw new IOException("Place store string heap exceeds 2GB");
+            }
+            int offset = (int) length;
+            out.writeShort(len);
+            out.write(b, 0, len);
+            length += 2 + len;
+            if (dedup) {
+                seen.put(s, offset);
+            }
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Build a store from all records of the gazetteer core, paging with a Solr cursor.
+     *
+     * @param index gazetteer solr client
+     * @param f     target file
+     * @throws IOException         on I/O err or if gazetteer ids are not numeric
+     * @throws SolrServerException on Solr err
+     */
+    public static void build(SolrClient index, File f) throws IOException, SolrServerException {
+        build(index, f, indexStamp(index));
+    }
+
+    private static void build(SolrClient index, File f, LukeResponse stamp) throws IOException, SolrServerException {
+        log.info("Building Place store {} from gazetteer", f);
+        ModifiableSolrParams q = new ModifiableSolrParams();
+        q.set(CommonParams.Q, "*:*");
+        q.set(CommonParams.FL, SolrGazetteer.DEFAULT_FIELDS);
+        q.set(CommonParams.ROWS, BUILD_BATCH);
+        q.set(CommonParams.SORT, "id asc");
+
+        File recordsTmp = File.createTempFile("placestore", ".rec", f.getAbsoluteFile().getParentFile());
+        File stringsTmp = File.createTempFile("placestore", ".str", f.getAbsoluteFile().getParentFile());
+        /* Packed (id << 32 | row), sorted after load */
+        long[] keys = new long[BUILD_BATCH];
+        int row = 0;
+        long stringsLen;
+
+        try (DataOutputStream recs = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(recordsTmp)));
+             StringHeapWriter heap = new StringHeapWriter(stringsTmp)) {
+
+            String cursor = CursorMarkParams.CURSOR_MARK_START;
+            while (true) {
+                q.set(CursorMarkParams.CURSOR_MARK_PARAM, cursor);
+                QueryResponse response = index.query(q, SolrRequest.METHOD.POST);
+                for (SolrDocument gazEntry : response.getResults()) {
+                    long id = parseId(SolrUtil.getString(gazEntry, "id"));
+                    if (id < 0 || id > Integer.MAX_VALUE) {
+                        throw new IOException("Gazetteer id is not a positive integer: " + gazEntry.get("id"));
+                    }
+                    String xy = SolrUtil.getString(gazEntry, "geo");
+                    if (xy == null) {
+                        /* Not resolvable as a Place; Caller falls back to Solr for these */
+                        log.debug("Record has no location, id={}", id);
+                        continue;
+                    }
+                    double[] latlon = SolrUtil.getCoordinate(xy);
+                    recs.writeDouble(latlon[0]);
+                    recs.writeDouble(latlon[1]);
+                    recs.writeInt(SolrUtil.getInteger(gazEntry, "id_bias"));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "place_id")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "name")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "cc")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "adm1")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "adm2")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "feat_class")));
+                    recs.writeInt(heap.add(SolrUtil.getString(gazEntry, "feat_code")));
+                    recs.writeInt(SolrUtil.getChar(gazEntry, "name_type"));
+
+                    if (row == keys.length) {
+                        keys = Arrays.copyOf(keys, keys.length * 2);
+                    }
+                    keys[row] = (id << 32) | row;
+                    ++row;
+                }
+                String next = response.getNextCursorMark();
+                if (cursor.equals(next)) {
+                    break;
+                }
+                cursor = next;
+                if (row % 1000000 < BUILD_BATCH) {
+                    log.info("Place store rows={}", row);
+                }
+            }
+            stringsLen = heap.length;
+        }
+
+        Arrays.sort(keys, 0, row);
+
+        File storeTmp = File.createTempFile("placestore", ".tmp", f.getAbsoluteFile().getParentFile());
+        /*
+         * Written to a temp file and moved into place, never rewritten in place: matchers may still have the
+         * previous store mapped, and a build that fails midway must not leave a partial store behind.
+         */
+        try (FileChannel out = FileChannel.open(storeTmp.toPath(), StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LEN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(row).putInt(stamp.getNumDocs());
+            header.putLong(stringsLen).putLong(indexVersion(stamp));
+            header.flip();
+            out.write(header);
+
+            ByteBuffer buf = ByteBuffer.allocate(8 * BUILD_BATCH);
+            for (int x = 0; x < row; ++x) {
+                if (!buf.hasRemaining()) {
+                    buf.flip();
+                    out.write(buf);
+                    buf.clear();
+                }
+                buf.putLong(keys[x] >>> 32);
+            }
+            buf.flip();
+            out.write(buf);
+            buf.clear();
+            for (int x = 0; x < row; ++x) {
+                if (!buf.hasRemaining()) {
+                    buf.flip();
+                    out.write(buf);
+                    buf.clear();
+                }
+                buf.putInt((int) keys[x]);
+            }
+            buf.flip();
+            out.write(buf);
+
+            appendFile(out, recordsTmp);
+            appendFile(out, stringsTmp);
+            out.force(false);
+        } catch (IOException err) {
+            if (!storeTmp.delete()) {
+                log.debug("Unable to remove temp file for Place store");
+            }
+            throw err;
+        } finally {
+            if (!recordsTmp.delete() || !stringsTmp.delete()) {
+                log.debug("Unable to remove temp files for Place store");
+            }
+        }
+        Files.move(storeTmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        log.info("Built Place store {}, records={}", f, row);
+    }
+
+    private static void appendFile(FileChannel out, File src) throws IOException {
+        try (FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ)) {
+            long pos = 0;
+            long size = in.size();
+            while (pos < size) {
+                pos += in.transferTo(pos, size - pos, out);
+            }
+        }
+    }
+}
@@ -69,6 +69,7 @@ public class PostalGeocoder implements MatchSchema, Extractor, BoundaryObserver,
     private final PostalCodeAssociationRule assocFilter = new PostalCodeAssociationRule();
     private PostalTagger postalTagger = null;
     private PlaceGeocoder nameTagger = null;
+    private boolean ownNameTagger = false;
 
     private final GeocodeRule chooser = new PostalLocationChooser();
 
@@ -98,13 +99,28 @@ public class PostalGeocoder implements MatchSchema, Extractor, BoundaryObserver,
             postalTagger = new PostalTagger();
             postalTagger.configure();
 
-            nameTagger = new PlaceGeocoder();
-            nameTagger.configure();
+            if (nameTagger == null) {
+                nameTagger = new PlaceGeocoder();
+                nameTagger.configure();
+                ownNameTagger = true;
+            }
         } catch (IOException err) {
             throw new ConfigException("Failed to load country metadata", err);
         }
     }
 
+    /**
+     * Use a configured PlaceGeocoder for general place matches instead of creating one in configure().
+     * PlaceGeocoder may serve many threads, so pooled PostalGeocoders can share one.  A geocoder set here
+     * is not closed by cleanup().  Call before configure().
+     *
+     * @param geocoder configured geocoder
+     */
+    public void setPlaceGeocoder(PlaceGeocoder geocoder) {
+        nameTagger = geocoder;
+        ownNameTagger = false;
+    }
+
     @Override
     public void configure(String patfile) throws ConfigException {
         throw new ConfigException("Not an option for this extractor");
@@ -234,7 +250,9 @@ public class PostalGeocoder implements MatchSchema, Extractor, BoundaryObserver,
     public void cleanup() {
         postalTagger.reportMemory();
         postalTagger.close();
-        nameTagger.close();
+        if (ownNameTagger) {
+            nameTagger.close();
+        }
     }
 
     public void reset() {
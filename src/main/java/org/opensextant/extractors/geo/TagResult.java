@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.common.params.SolrParams;
+
+/**
+ * State and metrics for a single GazetteerMatcher.tagText() call.  Each call owns its
+ * tagger request parameters and counters, so one matcher may serve many threads.
+ *
+ * @author ubaldino
+ */
+public class TagResult {
+
+    /** Tagger request parameters for this call */
+    final SolrParams params;
+    /** True if lower case matches are allowed for this call, see GazetteerMatcher.setAllowLowerCase() */
+    final boolean allowLowerCase;
+    /** True if all lower case matches are filtered out for this call */
+    final boolean caseSensitive;
+    /** Script runs {start, end, script} if text was tagged per script, each on its own name field; else null */
+    List<int[]> scriptRuns = null;
+
+    public List<PlaceCandidate> candidates = new ArrayList<>();
+
+    /** Time in tagger, milliseconds */
+    public int tagNamesTime = 0;
+    /** Time to retrieve gazetteer records and filter tags, milliseconds */
+    public int getNamesTime = 0;
+    /** Total time for the call, milliseconds */
+    public int totalTime = 0;
+
+    /** Tags filtered by default rules */
+    public int defaultFilterCount = 0;
+    /** Tags filtered by the user match filter */
+    public int userFilterCount = 0;
+    /** Tags resolved from the name resolution cache */
+    public int nameCacheHits = 0;
+    /** True if text was not tagged as it could not yield candidates */
+    public boolean skipped = false;
+
+    TagResult(SolrParams p, boolean lowerCase, boolean caseSensitive) {
+        params = p;
+        allowLowerCase = lowerCase;
+        this.caseSensitive = caseSensitive;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("candidates=%d, filtered=%d/%d, name cache hits=%d, tagging=%d ms, retrieval=%d ms, total=%d ms",
+                candidates.size(), defaultFilterCount, userFilterCount, nameCacheHits, tagNamesTime, getNamesTime, totalTime);
+    }
+}
@@ -10,19 +10,13 @@ import org.opensextant.extractors.geo.ScoredPlace;
 
 public class ContextualOrganizationRule extends GeocodeRule {
 
-    final Set<String> reEval = new HashSet<>();
-
-    @Override
-    public void reset() {
-        reEval.clear();
-    }
-
     @Override
     public void evaluate(List<PlaceCandidate> names) {
         if (!isRelevant()) {
             return;
         }
 
+        final Set<String> reEval = new HashSet<>();
         for (PlaceCandidate name : names) {
             if (!name.hasRule(PersonNameFilter.NAME_IN_ORG_RULE)) {
                 continue;
@@ -36,8 +30,9 @@ public class ContextualOrganizationRule extends GeocodeRule {
             // with any state or division "ADM2" or "ADM1" references.
             // E.g., "Xyz City Council" where city "Xyz City" may reside in a state "S"
             // mentioned elsewhere in document.
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geoScore : name.getPlaces()) {
-                if (boundaryObserver.placeMentionCount().containsKey(geoScore.getPlace().getHierarchicalPath())) {
+                if (boundaryObserver().placeMentionCount().containsKey(geoScore.getPlace().getHierarchicalPath())) {
                     name.setFilteredOut(false);
                     name.addRule("ContextualOrg");
                     reEval.add(name.getTextnorm());
@@ -17,11 +17,15 @@
 package org.opensextant.extractors.geo.rules;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.opensextant.data.Geocoding;
 import org.opensextant.data.Place;
 import org.opensextant.extraction.TextMatch;
+import org.opensextant.extractors.geo.GeocodingContext;
+import org.opensextant.extractors.geo.LocationObserver;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.xcoord.GeocoordMatch;
 import org.opensextant.util.GeodeticUtility;
@@ -43,7 +47,12 @@ public class CoordinateAssociationRule extends GeocodeRule {
     public static final String COORD_PROXIMITY_RULE = "Coordinate";
     public static final String GEOHASH_CONTAINS_RULE = "Geohash";
 
-    private List<Geocoding> coordinates = new ArrayList<>();
+    /**
+     * Coordinates found in the current document
+     */
+    private static class State {
+        List<Geocoding> coordinates = new ArrayList<>();
+    }
 
     public CoordinateAssociationRule() {
         weight = 5;
@@ -53,34 +62,48 @@ public class CoordinateAssociationRule extends GeocodeRule {
         associationScheme = distScheme;
     }
 
+    private List<Geocoding> coordinates() {
+        return documentState(State::new).coordinates;
+    }
+
     public void setCoordinates(List<Geocoding> geos) {
-        coordinates = geos;
+        documentState(State::new).coordinates = geos;
     }
 
     public void addCoordinate(Geocoding geo) {
-        coordinates.add(geo);
+        coordinates().add(geo);
     }
 
     public void addCoordinates(List<TextMatch> found) {
+        LocationObserver observer = coordObserver();
         for (TextMatch g : found) {
             if (g instanceof GeocoordMatch) {
                 this.addCoordinate((GeocoordMatch) g);
-                if (this.coordObserver != null) {
-                    this.coordObserver.locationInScope((GeocoordMatch) g);
+                if (observer != null) {
+                    observer.locationInScope((GeocoordMatch) g);
                 }
             }
         }
     }
 
-    @Override
-    public void reset() {
-        if (coordinates != null) {
-            coordinates.clear();
+    /**
+     * Add coordinates found in the document of the given context.
+     *
+     * @param ctx   document context
+     * @param found coordinate matches
+     */
+    public void addCoordinates(GeocodingContext ctx, List<TextMatch> found) {
+        GeocodingContext prev = ctx.enter();
+        try {
+            addCoordinates(found);
+        } finally {
+            GeocodingContext.restore(prev);
         }
     }
 
     @Override
     public boolean isRelevant() {
+        List<Geocoding> coordinates = coordinates();
         if (coordinates != null) {
             return !coordinates.isEmpty();
         }
@@ -99,6 +122,7 @@ public class CoordinateAssociationRule extends GeocodeRule {
         if (name.isCountry) {
             return;
         }
+        List<Geocoding> coordinates = coordinates();
 
         switch (associationScheme) {
 
@@ -136,4 +160,22 @@ public class CoordinateAssociationRule extends GeocodeRule {
         }
 
     }
+
+    @Override
+    public Set<Evidence> reads() {
+        return EnumSet.of(Evidence.STATUS, Evidence.COORDINATES);
+    }
+
+    @Override
+    public Set<Evidence> writes() {
+        return EnumSet.of(Evidence.SCORES);
+    }
+
+    /**
+     * Coordinates are only read here; they are added before rules are evaluated.
+     */
+    @Override
+    public boolean isDataParallel() {
+        return true;
+    }
 }
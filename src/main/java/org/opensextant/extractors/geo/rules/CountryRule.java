@@ -19,6 +19,7 @@ package org.opensextant.extractors.geo.rules;
 import java.util.List;
 
 import org.opensextant.data.Place;
+import org.opensextant.extractors.geo.CountryObserver;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.geo.ScoredPlace;
 
@@ -45,6 +46,7 @@ public class CountryRule extends GeocodeRule {
                     continue;
                 }
             }
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geo : name.getPlaces()) {
                 if (filterOutByFrequency(name, geo.getPlace())) {
                     continue;
@@ -105,16 +107,18 @@ public class CountryRule extends GeocodeRule {
     void addCountryName(PlaceCandidate name, Place geo) {
         name.isCountry = true;
         name.incrementPlaceScore(geo, weight + 2.0, CNAME);
-        if (countryObserver != null) {
-            countryObserver.countryInScope(geo.getCountryCode());
+        CountryObserver observer = countryObserver();
+        if (observer != null) {
+            observer.countryInScope(geo.getCountryCode());
         }
     }
 
     void addCountryCode(PlaceCandidate name, Place geo) {
         name.isCountry = true;
         name.incrementPlaceScore(geo, weight + 0.0, CCODE);
-        if (countryObserver != null) {
-            countryObserver.countryInScope(geo.getCountryCode());
+        CountryObserver observer = countryObserver();
+        if (observer != null) {
+            observer.countryInScope(geo.getCountryCode());
         }
     }
 }
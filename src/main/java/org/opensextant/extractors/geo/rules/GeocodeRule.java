@@ -17,12 +17,17 @@
 
 package org.opensextant.extractors.geo.rules;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.opensextant.data.Place;
 import org.opensextant.data.TextInput;
+import org.opensextant.extraction.DocumentContext;
 import org.opensextant.extractors.geo.BoundaryObserver;
 import org.opensextant.extractors.geo.CountryObserver;
+import org.opensextant.extractors.geo.GeocodingContext;
 import org.opensextant.extractors.geo.LocationObserver;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.geo.ScoredPlace;
@@ -30,6 +35,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import static org.opensextant.util.GeodeticUtility.geohash;
 
+/**
+ * Base of all geocoding rules.  A rule holds configuration only; observations made on a document and any working
+ * state of the rule live in the GeocodingContext of that document, so one rule instance may evaluate documents on
+ * many threads.  Use evaluate(GeocodingContext, names) and, within rules, documentState() and the observer
+ * accessors countryObserver(), boundaryObserver() and coordObserver().
+ */
 public abstract class GeocodeRule {
 
     public static final int AVG_WORD_LEN = 8;
@@ -67,15 +78,128 @@ public abstract class GeocodeRule {
         boundaryObserver = o;
     }
 
+    /**
+     * @return the country observer of the document being evaluated, or the one set on this rule.
+     */
+    protected CountryObserver countryObserver() {
+        GeocodingContext ctx = GeocodingContext.current();
+        return ctx != null ? ctx : countryObserver;
+    }
+
+    /**
+     * @return the location observer of the document being evaluated, or the one set on this rule.
+     */
+    protected LocationObserver coordObserver() {
+        GeocodingContext ctx = GeocodingContext.current();
+        return ctx != null ? ctx : coordObserver;
+    }
+
+    /**
+     * @return the boundary observer of the document being evaluated, or the one set on this rule.
+     */
+    protected BoundaryObserver boundaryObserver() {
+        GeocodingContext ctx = GeocodingContext.current();
+        return ctx != null ? ctx : boundaryObserver;
+    }
+
+    /**
+     * State used when a rule is evaluated without a GeocodingContext; cleared by reset().
+     */
+    private Object localState = null;
+
+    /**
+     * Working state of this rule for the document being evaluated, created on first use.
+     * Without a GeocodingContext bound to this thread the state is kept on the rule until reset(),
+     * which is only safe for single-threaded use.
+     *
+     * @param init creates empty state
+     * @param <S>  state type
+     * @return state for the current document
+     */
+    protected <S> S documentState(Supplier<S> init) {
+        return documentState(GeocodingContext.current(), init);
+    }
+
+    /**
+     * @param ctx  document context, or null
+     * @param init creates empty state
+     * @param <S>  state type
+     * @return state for the given document
+     */
+    @SuppressWarnings("unchecked")
+    protected <S> S documentState(GeocodingContext ctx, Supplier<S> init) {
+        if (ctx != null) {
+            return ctx.ruleState(this, init);
+        }
+        synchronized (this) {
+            if (localState == null) {
+                localState = init.get();
+            }
+            return (S) localState;
+        }
+    }
+
+    /**
+     * Evidence rules read or write.  RuleGraph orders rules by what they declare in reads() and writes().
+     */
+    public enum Evidence {
+        /** Countries in scope, see CountryObserver */
+        COUNTRY_SCOPE,
+        /** Provinces in scope, see BoundaryObserver */
+        BOUNDARY_SCOPE,
+        /** Coordinates and locations in scope, see LocationObserver */
+        COORDINATES,
+        /** Place scores and evidence of candidates */
+        SCORES,
+        /** Filtered-out, valid and chosen status of candidates */
+        STATUS,
+        /** Other candidates in the document, e.g., names related to each other */
+        NEIGHBORS
+    }
+
+    /**
+     * Override to declare the evidence this rule reads.  By default a rule reads everything.
+     *
+     * @return evidence read by evaluate()
+     */
+    public Set<Evidence> reads() {
+        return EnumSet.allOf(Evidence.class);
+    }
+
+    /**
+     * Override to declare the evidence this rule writes.  By default a rule writes everything.
+     *
+     * @return evidence written by evaluate()
+     */
+    public Set<Evidence> writes() {
+        return EnumSet.allOf(Evidence.class);
+    }
+
+    /**
+     * A data-parallel rule evaluates each candidate on its own: evaluate(names) may be given any sublist of the
+     * document's names, on any thread, concurrently with other sublists.  Such a rule reads and writes only the
+     * candidate at hand, reads document scope it does not write and only reads its own document state.
+     * By default rules are not data-parallel.
+     *
+     * @return true if candidates may be partitioned across threads for this rule
+     */
+    public boolean isDataParallel() {
+        return false;
+    }
+
     public void setDefaultMethod(String m) {
         defaultMethod = m;
     }
 
     /** for the purposes of Geocoder Rule reasoning determine the case. */
     public int textCase(TextInput t) {
-        if (t.isLower) {
+        return textCase(DocumentContext.of(t));
+    }
+
+    public static int textCase(DocumentContext doc) {
+        if (doc.isLower()) {
             return LOWERCASE;
-        } else if (t.isUpper) {
+        } else if (doc.isUpper()) {
             return UPPERCASE;
         }
         return 0;
@@ -83,10 +207,28 @@ public abstract class GeocodeRule {
 
     protected int textCase = 0;
 
+    /**
+     * @return text case of the document being evaluated, or the case set on this rule.
+     */
+    protected int textCase() {
+        GeocodingContext ctx = GeocodingContext.current();
+        return ctx != null ? textCase(ctx.getDocument()) : textCase;
+    }
+
     public void setTextCase(TextInput t) {
         textCase = textCase(t);
     }
 
+    /**
+     * Set document-level facts, e.g., text case, from the context shared by the matcher and all rules for a document.
+     * Not needed when rules are evaluated with a GeocodingContext.
+     *
+     * @param doc document context
+     */
+    public void setDocument(DocumentContext doc) {
+        textCase = textCase(doc);
+    }
+
 
     /**
      * Override if rule instance has another view of relevance, e.g.
@@ -213,6 +355,64 @@ public abstract class GeocodeRule {
         return name.getChosen() != null;
     }
 
+    /**
+     * Evaluate names of the document of the given context. The context is bound to this thread during evaluation,
+     * so observations and rule state go to that document only.
+     *
+     * @param ctx   document context
+     * @param names list of found place names
+     */
+    public void evaluate(GeocodingContext ctx, List<PlaceCandidate> names) {
+        evaluate(ctx, names, true);
+    }
+
+    /**
+     * Evaluate names, profiling the rule, see getStats().
+     *
+     * @param ctx      document context
+     * @param names    found place names
+     * @param document true if names are the whole document, false for a partition of it
+     */
+    void evaluate(GeocodingContext ctx, List<PlaceCandidate> names, boolean document) {
+        RuleStats st = getStats();
+        RuleStats.Probe probe = st.start(names);
+        GeocodingContext prev = ctx.enter();
+        try {
+            evaluate(names);
+        } finally {
+            GeocodingContext.restore(prev);
+            st.stop(probe, names, document);
+        }
+    }
+
+    private volatile RuleStats stats = null;
+
+    /**
+     * @return profile of this rule across documents evaluated with a GeocodingContext
+     */
+    public RuleStats getStats() {
+        RuleStats st = stats;
+        if (st == null) {
+            synchronized (this) {
+                if (stats == null) {
+                    stats = new RuleStats(NAME != null ? NAME : getClass().getSimpleName());
+                }
+                st = stats;
+            }
+        }
+        return st;
+    }
+
+    /**
+     * Rules iterating over the places of candidates on their own count the candidate x place pairs they consider
+     * here, once per candidate or per call rather than per pair.
+     *
+     * @param n pairs considered
+     */
+    protected void countPairs(long n) {
+        getStats().addPairs(n);
+    }
+
     /**
      * @param names list of found place names
      */
@@ -221,6 +421,7 @@ public abstract class GeocodeRule {
             return;
         }
 
+        long pairs = 0;
         for (PlaceCandidate name : names) {
             // Each rule must decide if iterating over name/geo combinations
             // contributes evidence. But can just as easily see if name.chosen is already
@@ -237,6 +438,7 @@ public abstract class GeocodeRule {
                 if (filterOutByFrequency(name, geoScore.getPlace())) {
                     continue;
                 }
+                ++pairs;
                 evaluate(name, geoScore.getPlace());
                 if (name.getChosen() != null) {
                     // DONE
@@ -244,6 +446,7 @@ public abstract class GeocodeRule {
                 }
             }
         }
+        countPairs(pairs);
     }
 
     /**
@@ -280,9 +483,12 @@ public abstract class GeocodeRule {
     public abstract void evaluate(PlaceCandidate name, Place geo);
 
     /**
-     * no-op, unless overriden.
+     * Clear state kept on this rule when evaluated without a GeocodingContext.
+     * Subclasses overriding this must call super.reset().
      */
     public void reset() {
-
+        synchronized (this) {
+            localState = null;
+        }
     }
 }
@@ -9,11 +9,24 @@ import org.opensextant.extractors.geo.ScoredPlace;
 
 public class HeatMapRule extends GeocodeRule {
 
-    final Map<String, List<Place>> heatmap = new HashMap<>();
-    final Map<String, Set<String>> heatmapNames = new HashMap<>();
-    final Set<String> visitedPlaces = new HashSet<>();
-    final Map<String, List<PlaceCandidate>> mentionMap = new HashMap<>();
-    private boolean useAdminBoundary = true;
+    /**
+     * Buckets of places for the current document
+     */
+    static class State {
+        final Map<String, List<Place>> heatmap = new HashMap<>();
+        final Map<String, Set<String>> heatmapNames = new HashMap<>();
+        final Set<String> visitedPlaces = new HashSet<>();
+        final Map<String, List<PlaceCandidate>> mentionMap = new HashMap<>();
+        boolean useAdminBoundary = true;
+
+        void clear() {
+            heatmap.clear();
+            visitedPlaces.clear();
+            heatmapNames.clear();
+            mentionMap.clear();
+            useAdminBoundary = true;
+        }
+    }
 
     private static final int AVERAGE_NAME_LEN = 8;
     public static final String HEATMAP_RULE = "CollocatedNames.geohash";
@@ -32,15 +45,6 @@ public class HeatMapRule extends GeocodeRule {
         IGNORE_FEATURE_LIST.add("H/STMM");
     }
 
-    @Override
-    public void reset() {
-        heatmap.clear();
-        visitedPlaces.clear();
-        heatmapNames.clear();
-        mentionMap.clear();
-        useAdminBoundary = true;
-    }
-
     private boolean ignoreFeatures(Place pl) {
         if (IGNORE_FEATURES.contains(pl.getFeatureClass())) {
             return true;
@@ -69,12 +73,13 @@ public class HeatMapRule extends GeocodeRule {
 
         // String feature key = X/XXX/geohash.
         String placeID = internalPlaceID(geo);
+        State st = documentState(State::new);
 
-        addMention(name, geo);
-        if (visitedPlaces.contains(placeID)) {
+        addMention(st, name, geo);
+        if (st.visitedPlaces.contains(placeID)) {
             return;
         }
-        visitedPlaces.add(placeID);
+        st.visitedPlaces.add(placeID);
         // String gh2 = geo.getGeohash().substring(0, 2); // Geohash 2-char is too
         // coarse to be useful.
         String gh3 = geo.getGeohash().substring(0, 3);
@@ -82,41 +87,43 @@ public class HeatMapRule extends GeocodeRule {
 
         // Geometric buckets
         // addPlace(geo, gh2);
-        addPlace(name.getNDTextnorm(), geo, gh3);
-        addPlace(name.getNDTextnorm(), geo, gh4);
+        addPlace(st, name.getNDTextnorm(), geo, gh3);
+        addPlace(st, name.getNDTextnorm(), geo, gh4);
         // Geographic/geopolitical buckets:
-        if (useAdminBoundary) {
-            addPlace(name.getNDTextnorm(), geo, geo.getHierarchicalPath());
+        if (st.useAdminBoundary) {
+            addPlace(st, name.getNDTextnorm(), geo, geo.getHierarchicalPath());
         }
     }
 
     /**
      * Add a place NAME to a grid or geohash to create clusters.
      *
+     * @param st   document state
      * @param name
      * @param geo
      * @param gh
      */
-    private void addPlace(String name, Place geo, String gh) {
+    private void addPlace(State st, String name, Place geo, String gh) {
         if (gh == null) {
             return;
         }
-        Set<String> bucketNames = heatmapNames.computeIfAbsent(gh, newBucket -> new HashSet<>());
+        Set<String> bucketNames = st.heatmapNames.computeIfAbsent(gh, newBucket -> new HashSet<>());
         bucketNames.add(name);
 
-        List<Place> bucket = heatmap.computeIfAbsent(gh, newPlaceList -> new ArrayList<>());
+        List<Place> bucket = st.heatmap.computeIfAbsent(gh, newPlaceList -> new ArrayList<>());
         bucket.add(geo);
     }
 
     /**
      * Map Geo Place ID to PlaceCandidate that referred it.
      *
+     * @param st   document state
      * @param name
      * @param geo
      */
-    private void addMention(PlaceCandidate name, Place geo) {
+    private void addMention(State st, PlaceCandidate name, Place geo) {
 
-        List<PlaceCandidate> tracking = mentionMap.computeIfAbsent(geo.getPlaceID(), k -> new ArrayList<>());
+        List<PlaceCandidate> tracking = st.mentionMap.computeIfAbsent(geo.getPlaceID(), k -> new ArrayList<>());
         if (!tracking.contains(name)) {
             tracking.add(name);
         }
@@ -137,7 +144,8 @@ public class HeatMapRule extends GeocodeRule {
          * For large encyclopedic documents that cover the world, state/province
          * boundaries become useless.
          */
-        useAdminBoundary = names.size() < 50 && this.countryObserver.countryCount() < 5;
+        State st = documentState(State::new);
+        st.useAdminBoundary = names.size() < 50 && countryObserver().countryCount() < 5;
 
         /*
          * Aggregate Named places geographically into buckets
@@ -147,6 +155,7 @@ public class HeatMapRule extends GeocodeRule {
                 log.debug("Ignore for HeatMap: {}", name.getText());
                 continue;
             }
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geoScore : name.getPlaces()) {
                 Place geo = geoScore.getPlace();
                 evaluate(name, geo);
@@ -159,14 +168,14 @@ public class HeatMapRule extends GeocodeRule {
          * in areas of varying size. Smaller areas are more dense (higher score),
          * All places in a bucket will be raised together.
          */
-        visitedPlaces.clear();
+        st.visitedPlaces.clear();
         Set<Integer> offsets = new HashSet<>();
         double nameDiversity = 0;
         double locationSpecifity = 0;
         double evidenceWeight = 0;
 
-        for (String loc : heatmap.keySet()) {
-            Set<String> distinctNames = heatmapNames.get(loc);
+        for (String loc : st.heatmap.keySet()) {
+            Set<String> distinctNames = st.heatmapNames.get(loc);
             // Nothing to be gained by trivial clusters of points
             if (distinctNames.size() < 2) {
                 // Nothing to be gained by mentions of the same name at the same location
@@ -212,19 +221,19 @@ public class HeatMapRule extends GeocodeRule {
             locationSpecifity = (double) locLength / 2;
             evidenceWeight = countScale * (locationSpecifity + nameDiversity) / 10;
 
-            List<Place> places = heatmap.get(loc);
+            List<Place> places = st.heatmap.get(loc);
             if (places == null) {
                 log.debug("experimental HeatMap not working");
                 continue;
             }
             for (Place pl : places) {
                 String pid = internalPlaceID(pl);
-                if (visitedPlaces.contains(pid)) {
+                if (st.visitedPlaces.contains(pid)) {
                     continue;
                 }
-                visitedPlaces.add(pid);
+                st.visitedPlaces.add(pid);
                 PlaceEvidence ev = new PlaceEvidence(pl, ruleName, evidenceWeight);
-                List<PlaceCandidate> trackedMentions = mentionMap.get(pl.getPlaceID());
+                List<PlaceCandidate> trackedMentions = st.mentionMap.get(pl.getPlaceID());
                 if (trackedMentions == null) {
                     // Something is wrong if you get here.
                     continue;
@@ -244,6 +253,6 @@ public class HeatMapRule extends GeocodeRule {
             log.debug("{} {} {}", loc, distinctNames, places);
         }
         /* CLEAR here as memory consumption or object trails may linger with unwanted consequences. */
-        reset();
+        st.clear();
     }
 }
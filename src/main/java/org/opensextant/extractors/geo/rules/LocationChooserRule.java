@@ -26,21 +26,19 @@ import static org.opensextant.extractors.geo.rules.RuleTool.hasOnlyDefaultRules;
 public class LocationChooserRule extends GeocodeRule implements MatchSchema {
 
     /**
-     * These are set.
+     * Document context and preferences, set per document.
      */
-    private Map<String, CountryCount> countryContext = null;
-    private Map<String, PlaceCount> boundaryContext = null;
-    private final Map<String, PlaceCount> namespace = new HashMap<>();
-    private final HashMap<String, CountryCount> inferredCountries = new HashMap<>();
-    private final HashSet<String> preferredCountries = new HashSet<>();
-    private final HashSet<String> preferredLocations = new HashSet<>();
+    static class State {
+        Map<String, CountryCount> countryContext = null;
+        Map<String, PlaceCount> boundaryContext = null;
+        final Map<String, PlaceCount> namespace = new HashMap<>();
+        final HashMap<String, CountryCount> inferredCountries = new HashMap<>();
+        final HashSet<String> preferredCountries = new HashSet<>();
+        final HashSet<String> preferredLocations = new HashSet<>();
+    }
 
-    @Override
-    public void reset() {
-        namespace.clear();
-        inferredCountries.clear();
-        preferredCountries.clear();
-        preferredLocations.clear();
+    private State state() {
+        return documentState(State::new);
     }
 
     @Override
@@ -48,6 +46,25 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
         evaluate(names, null);
     }
 
+    /**
+     * Choose locations for the document of the given context, applying preferences given by the request.
+     *
+     * @param ctx         document context
+     * @param names       candidates
+     * @param preferences request parameters, or null
+     */
+    public void evaluate(GeocodingContext ctx, List<PlaceCandidate> names, Parameters preferences) {
+        RuleStats st = getStats();
+        RuleStats.Probe probe = st.start(names);
+        GeocodingContext prev = ctx.enter();
+        try {
+            evaluate(names, preferences);
+        } finally {
+            GeocodingContext.restore(prev);
+            st.stop(probe, names, true);
+        }
+    }
+
     /**
      * Walk the entire list.
      */
@@ -62,16 +79,17 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
         // # of distinct countries == density, focus. Is this document about one or two
         // countries, or is it a world news report on everything.
         //
-        countryContext = countryObserver.countryMentionCount();
-        boundaryContext = boundaryObserver.placeMentionCount();
+        State st = state();
+        st.countryContext = countryObserver().countryMentionCount();
+        st.boundaryContext = boundaryObserver().placeMentionCount();
         //
         // PREFS:
         if (preferences != null) {
             if (preferences.preferredGeography.containsKey("countries")) {
-                preferredCountries.addAll(preferences.preferredGeography.get("countries"));
+                st.preferredCountries.addAll(preferences.preferredGeography.get("countries"));
             }
             if (preferences.preferredGeography.containsKey("geohashes")) {
-                preferredLocations.addAll(preferences.preferredGeography.get("geohashes"));
+                st.preferredLocations.addAll(preferences.preferredGeography.get("geohashes"));
             }
         }
 
@@ -97,6 +115,7 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
             // + Choose top score
             // + Cache result for a given NAME = CHOSEN, so we don't repeat the same logic unnecessarily.
             //
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geoScore : name.getPlaces()) {
                 evaluate(name, geoScore.getPlace());
             }
@@ -132,7 +151,7 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
         if (cc == null) {
             return;
         }
-        CountryCount counter = inferredCountries.computeIfAbsent(cc, newCount -> new CountryCount(cc));
+        CountryCount counter = state().inferredCountries.computeIfAbsent(cc, newCount -> new CountryCount(cc));
         ++counter.count;
     }
 
@@ -144,8 +163,9 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
      * @return
      */
     public int getInferredCountryCount(String cc) {
-        if (inferredCountries.containsKey(cc)) {
-            return inferredCountries.get(cc).count;
+        CountryCount counter = state().inferredCountries.get(cc);
+        if (counter != null) {
+            return counter.count;
         }
         return 0;
     }
@@ -157,6 +177,7 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
      * @param names
      */
     private void debuggingHistograms(List<PlaceCandidate> names) {
+        State st = state();
         /*
          * Uniqueness or popularity of a given name.
          */
@@ -164,23 +185,23 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
             if (name.isFilteredOut()) {
                 continue;
             }
-            PlaceCount x = namespace.computeIfAbsent(name.getTextnorm(), newCount -> new PlaceCount(name.getTextnorm()));
+            PlaceCount x = st.namespace.computeIfAbsent(name.getTextnorm(), newCount -> new PlaceCount(name.getTextnorm()));
             ++x.count;
             x.total = names.size(); // The total count of mentions.
         }
 
-        for (Map.Entry<String, CountryCount> e : countryContext.entrySet()) {
+        for (Map.Entry<String, CountryCount> e : st.countryContext.entrySet()) {
             CountryCount count = e.getValue();
             log.debug("Country: {}", count);
         }
 
-        for (PlaceCount count : boundaryContext.values()) {
+        for (PlaceCount count : st.boundaryContext.values()) {
             log.debug("Boundary: {}", count);
             String cc = count.getCountryCode();
-            CountryCount ccnt = inferredCountries.computeIfAbsent(cc, newCount -> new CountryCount(cc));
+            CountryCount ccnt = st.inferredCountries.computeIfAbsent(cc, newCount -> new CountryCount(cc));
             ++ccnt.count;
         }
-        log.debug("Places: {}/{}", namespace.size(), namespace);
+        log.debug("Places: {}/{}", st.namespace.size(), st.namespace);
     }
 
     protected static final double ADMIN_CONTAINS_PLACE_WT = 3.0;
@@ -225,14 +246,15 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
         // nudge choice of Springfield, OH as such. Such as with a preferred location
         // (geohash).
 
-        if (!preferredCountries.isEmpty()) {
-            if (preferredCountries.contains(geo.getCountryCode())) {
+        State st = state();
+        if (!st.preferredCountries.isEmpty()) {
+            if (st.preferredCountries.contains(geo.getCountryCode())) {
                 // Get a half-point for being within the country
                 name.incrementPlaceScore(geo, 0.5, PREF_COUNTRY);
             }
         }
-        if (!preferredLocations.isEmpty()) {
-            for (String gh : preferredLocations) {
+        if (!st.preferredLocations.isEmpty()) {
+            for (String gh : st.preferredLocations) {
                 if (geo.getGeohash().startsWith(gh)) {
                     // Increment a full point for being within the geohash. Note geohash length of 4
                     // or more chars is reasonably good resolution.
@@ -241,6 +263,8 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
             }
         }
 
+        Map<String, CountryCount> countryContext = st.countryContext;
+        Map<String, PlaceCount> boundaryContext = st.boundaryContext;
         if (boundaryContext.isEmpty() && countryContext.isEmpty()) {
             // So without context, there is nothing more we can do to influence the
             // connection between the one named place and the candidate location
@@ -394,6 +418,8 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
      * @param pc
      */
     public void assessConfidence(PlaceCandidate pc) {
+        CountryObserver countryObserver = countryObserver();
+        int textCase = textCase();
 
         /*
          * Countries are used to qualify other place names by way of geographic
@@ -546,7 +572,7 @@ public class LocationChooserRule extends GeocodeRule implements MatchSchema {
         }
         //
 
-        if (this.countryObserver.countryObserved(pc.getChosenPlace().getCountryCode())) {
+        if (countryObserver.countryObserved(pc.getChosenPlace().getCountryCode())) {
             points += MATCHCONF_QUALIFIER_COUNTRY_MENTIONED;
         }
 
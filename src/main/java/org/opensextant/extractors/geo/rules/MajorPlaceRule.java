@@ -16,12 +16,15 @@
  */
 package org.opensextant.extractors.geo.rules;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.opensextant.data.Place;
+import org.opensextant.extractors.geo.BoundaryObserver;
+import org.opensextant.extractors.geo.CountryObserver;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.geo.PlaceEvidence;
 import org.opensextant.extractors.geo.ScoredPlace;
@@ -53,8 +56,6 @@ public class MajorPlaceRule extends GeocodeRule {
     private static final int GEOHASH_RESOLUTION = 5;
     private static final int POP_MIN = 50000;
 
-    final Set<String> visitedPlaces = new HashSet<>();
-
     /**
      * Major Place assigns a score to places that are national capitals, provinces,
      * or cities with sizable population.
@@ -77,11 +78,6 @@ public class MajorPlaceRule extends GeocodeRule {
         locationOnly = true;
     }
 
-    @Override
-    public void reset() {
-        visitedPlaces.clear();
-    }
-
     @Override
     public void evaluate(List<PlaceCandidate> names) {
         for (PlaceCandidate name : names) {
@@ -100,6 +96,7 @@ public class MajorPlaceRule extends GeocodeRule {
             boolean isAbbrev = name.isShortName();
             boolean matchedAdmin = false;
 
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geoScore : name.getPlaces()) {
                 Place geo = geoScore.getPlace();
                 if (filterOutByFrequency(name, geo)) {
@@ -159,6 +156,8 @@ public class MajorPlaceRule extends GeocodeRule {
         setGeohash(geo);
 
         String pid = String.format("%s/%s", geo.getPlaceID(), geo.getPlaceName());
+        /* Places visited in this document */
+        Set<String> visitedPlaces = documentState(HashSet::new);
         if (visitedPlaces.contains(pid)) {
             return;
         }
@@ -223,8 +222,9 @@ public class MajorPlaceRule extends GeocodeRule {
             name.incrementPlaceScore(geo, ev.getWeight(), ev.getRule());
             log.debug("PlaceEvidence score {}, on Place {}", ev.getWeight(), geo);
 
-            if (this.countryObserver != null) {
-                if (this.countryObserver.countryObserved(geo.getCountryCode())) {
+            CountryObserver countryObserver = countryObserver();
+            if (countryObserver != null) {
+                if (countryObserver.countryObserved(geo.getCountryCode())) {
                     PlaceEvidence ev2 = new PlaceEvidence(geo, MENTIONED_COUNTRY, 2.0);
                     name.addEvidence(ev2);
                     name.incrementPlaceScore(geo, ev2.getWeight(), ev2.getRule());
@@ -242,17 +242,29 @@ public class MajorPlaceRule extends GeocodeRule {
      * @param capital
      */
     void inferCountry(final Place capital) {
-        if (this.countryObserver == null) {
+        CountryObserver countryObserver = countryObserver();
+        if (countryObserver == null) {
             return;
         }
         if (countryObserver.countryCount() == 0) {
-            this.countryObserver.countryInScope(capital.getCountryCode());
+            countryObserver.countryInScope(capital.getCountryCode());
         }
     }
 
     void inferBoundary(String nameNorm, Place prov) {
-        if (this.boundaryObserver != null) {
-            this.boundaryObserver.boundaryLevel1InScope(nameNorm, prov);
+        BoundaryObserver boundaryObserver = boundaryObserver();
+        if (boundaryObserver != null) {
+            boundaryObserver.boundaryLevel1InScope(nameNorm, prov);
         }
     }
+
+    @Override
+    public Set<Evidence> reads() {
+        return EnumSet.of(Evidence.STATUS, Evidence.COUNTRY_SCOPE);
+    }
+
+    @Override
+    public Set<Evidence> writes() {
+        return EnumSet.of(Evidence.STATUS, Evidence.SCORES, Evidence.COUNTRY_SCOPE, Evidence.BOUNDARY_SCOPE);
+    }
 }
@@ -18,8 +18,10 @@ package org.opensextant.extractors.geo.rules;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.opensextant.data.Place;
+import org.opensextant.extractors.geo.BoundaryObserver;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.geo.PlaceEvidence;
 import org.opensextant.extractors.geo.ScoredPlace;
@@ -69,15 +71,15 @@ public class NameCodeRule extends GeocodeRule {
         return name.hasRule(NAME_ADMCODE_RULE) || name.hasRule(NameCodeRule.NAME_ADMNAME_RULE);
     }
 
-    private final HashSet<String> ignoreTerms = new HashSet<>();
-
-    @Override
-    public void reset() {
-        ignoreTerms.clear();
+    /**
+     * @return terms to ignore in the current document
+     */
+    private Set<String> ignoreTerms() {
+        return documentState(HashSet::new);
     }
 
     private void trackIgnoreTerms(PlaceCandidate nm) {
-        ignoreTerms.add(nm.getText());
+        ignoreTerms().add(nm.getText());
     }
 
     static class PairValidation {
@@ -102,7 +104,7 @@ public class NameCodeRule extends GeocodeRule {
     private PairValidation validMatch(PlaceCandidate nm) {
         PairValidation validation = new PairValidation();
         /* Optimization: */
-        if (ignoreTerms.contains(nm.getText())) {
+        if (ignoreTerms().contains(nm.getText())) {
             nm.setFilteredOut(true);
             nm.addRule("IgnoredPrecedent");
             validation.valid = false;
@@ -325,7 +327,7 @@ public class NameCodeRule extends GeocodeRule {
      */
     @Override
     public void evaluate(final List<PlaceCandidate> names) {
-        reset();
+        ignoreTerms().clear();
         /*
          * Objective:  associate NAME, CODE pairs
          */
@@ -546,6 +548,7 @@ public class NameCodeRule extends GeocodeRule {
         code.addEvidence(ev);
         code.incrementPlaceScore(codeGeo, wt, rl);
 
+        BoundaryObserver boundaryObserver = boundaryObserver();
         if (boundaryObserver != null) {
             boundaryObserver.boundaryLevel1InScope(code.getNDTextnorm(), codeGeo);
         }
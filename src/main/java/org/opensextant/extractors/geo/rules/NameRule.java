@@ -1,5 +1,6 @@
 package org.opensextant.extractors.geo.rules;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -72,6 +73,7 @@ public class NameRule extends GeocodeRule {
             /*
              * Increment the score for locations whose feature lines up with the nomenclature in the text match.
              */
+            countPairs(name.getPlaces().size());
             for (ScoredPlace geoScore : name.getPlaces()) {
                 Place geo = geoScore.getPlace();
                 if (filterOutByFrequency(name, geo)) {
@@ -138,4 +140,21 @@ public class NameRule extends GeocodeRule {
          */
     }
 
+    @Override
+    public Set<Evidence> reads() {
+        return EnumSet.of(Evidence.STATUS);
+    }
+
+    @Override
+    public Set<Evidence> writes() {
+        return EnumSet.of(Evidence.STATUS, Evidence.SCORES);
+    }
+
+    /**
+     * Qualifiers, codes and case are read from the name at hand only.
+     */
+    @Override
+    public boolean isDataParallel() {
+        return true;
+    }
 }
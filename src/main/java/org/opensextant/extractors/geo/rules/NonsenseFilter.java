@@ -1,5 +1,6 @@
 package org.opensextant.extractors.geo.rules;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -270,6 +271,7 @@ public class NonsenseFilter extends GeocodeRule {
         String ph1 = p.getNDTextnorm();
         String diacriticRule = null;
         log.debug("Testing phrase {} phonetic:{}", p.getTextnorm(), ph1);
+        countPairs(p.getPlaces().size());
         for (ScoredPlace geoScore : p.getPlaces()) {
             Place geo = geoScore.getPlace();
             log.debug("\tPLACE={}, {}", geo, geo.getNamenorm());
@@ -379,4 +381,22 @@ public class NonsenseFilter extends GeocodeRule {
     public void evaluate(PlaceCandidate name, Place geo) {
         // no op
     }
+
+    @Override
+    public Set<Evidence> reads() {
+        return EnumSet.of(Evidence.STATUS);
+    }
+
+    @Override
+    public Set<Evidence> writes() {
+        return EnumSet.of(Evidence.STATUS);
+    }
+
+    /**
+     * Each name is judged on its own text and places.
+     */
+    @Override
+    public boolean isDataParallel() {
+        return true;
+    }
 }
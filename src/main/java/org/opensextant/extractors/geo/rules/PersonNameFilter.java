@@ -19,6 +19,7 @@ package org.opensextant.extractors.geo.rules;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -120,18 +121,42 @@ public class PersonNameFilter extends GeocodeRule {
      */
     public PersonNameFilter(String namesPath, String persTitlesPath, String persSuffixesPath) throws ConfigException {
         try {
-            nameFilter = FileUtility.loadDictionary(namesPath, false);
-            titles = FileUtility.loadDictionary(persTitlesPath, false);
-            suffixes = FileUtility.loadDictionary(persSuffixesPath, false);
+            nameFilter = sharedDictionary(namesPath);
+            titles = sharedDictionary(persTitlesPath);
+            suffixes = sharedDictionary(persSuffixesPath);
             debug();
         } catch (IOException filterErr) {
             throw new ConfigException("Default filter not found", filterErr);
         }
     }
 
-    private final Map<String, String> resolvedPersons = new HashMap<>();
-    private final Map<String, String> resolvedOrgs = new HashMap<>();
-    private final Map<String, String> protectedLocations = new HashMap<>();
+    /**
+     * Dictionaries loaded by resource path, shared by all filters built from the same resources, e.g., by
+     * pooled PlaceGeocoders. Filters only read them.
+     */
+    private static final Map<String, Set<String>> sharedDictionaries = new HashMap<>();
+
+    private static synchronized Set<String> sharedDictionary(String path) throws IOException {
+        Set<String> dict = sharedDictionaries.get(path);
+        if (dict == null) {
+            dict = Collections.unmodifiableSet(FileUtility.loadDictionary(path, false));
+            sharedDictionaries.put(path, dict);
+        }
+        return dict;
+    }
+
+    /**
+     * Names resolved in the current document
+     */
+    static class State {
+        final Map<String, String> resolvedPersons = new HashMap<>();
+        final Map<String, String> resolvedOrgs = new HashMap<>();
+        final Map<String, String> protectedLocations = new HashMap<>();
+    }
+
+    private State state() {
+        return documentState(State::new);
+    }
 
     private static final Pattern delPeriod = Pattern.compile("\\.+$");
 
@@ -143,19 +168,12 @@ public class PersonNameFilter extends GeocodeRule {
         return s;
     }
 
-    @Override
-    public void reset() {
-        resolvedPersons.clear();
-        resolvedOrgs.clear();
-        protectedLocations.clear();
-    }
-
     public Map<String, String> getPersonNames() {
-        return resolvedPersons;
+        return state().resolvedPersons;
     }
 
     public Map<String, String> getOrgNames() {
-        return resolvedOrgs;
+        return state().resolvedOrgs;
     }
 
     /**
@@ -204,12 +222,12 @@ public class PersonNameFilter extends GeocodeRule {
 
             // We already resolved this first or last name to a known
             // person/celebrity
-            if (resolvedPersons.containsKey(pc.getTextnorm())) {
+            if (state().resolvedPersons.containsKey(pc.getTextnorm())) {
                 pc.setFilteredOut(true);
                 pc.addRule("ResolvedPerson");
                 continue;
             }
-            if (resolvedOrgs.containsKey(pc.getTextnorm())) {
+            if (state().resolvedOrgs.containsKey(pc.getTextnorm())) {
                 pc.setFilteredOut(true);
                 pc.addRule("ResolvedOrg");
                 continue;
@@ -265,19 +283,19 @@ public class PersonNameFilter extends GeocodeRule {
          * Shunt:  Look up feature by name.  But as names may be spelled differently
          *  we also key known feature types by their place ID or key
          */
-        if (protectedLocations.containsKey(pc.getTextnorm())) {
+        if (state().protectedLocations.containsKey(pc.getTextnorm())) {
             return true;
         }
         for (ScoredPlace pl : pc.getPlaces()) {
             Place feature = pl.getPlace();
-            if (protectedLocations.containsKey(feature.getKey())) {
+            if (state().protectedLocations.containsKey(feature.getKey())) {
                 return true;
             }
 
             // If feature type is known to represent both ORG AND SITE location, return true.
             if (FEAT_CODE_ORG_LOCATIONS.contains(feature.getFeatureCode())) {
-                protectedLocations.put(feature.getKey(), feature.getFeatureCode());
-                protectedLocations.put(pc.getTextnorm(), feature.getFeatureCode());
+                state().protectedLocations.put(feature.getKey(), feature.getFeatureCode());
+                state().protectedLocations.put(pc.getTextnorm(), feature.getFeatureCode());
                 return true;
             }
         }
@@ -301,7 +319,7 @@ public class PersonNameFilter extends GeocodeRule {
             if (pc.isSameMatch(name)) {
                 pc.setFilteredOut(true);
                 pc.isCountry = false;
-                resolvedOrgs.put(pc.getTextnorm(), name.getText());
+                state().resolvedOrgs.put(pc.getTextnorm(), name.getText());
                 pc.addRule("ResolvedOrg");
                 return true;
             } else if (pc.isWithin(name) && !pc.isCountry) {
@@ -350,7 +368,7 @@ public class PersonNameFilter extends GeocodeRule {
 
             if (rule != null) {
                 pc.setFilteredOut(true);
-                resolvedPersons.put(pc.getTextnorm(), name.getText());
+                state().resolvedPersons.put(pc.getTextnorm(), name.getText());
                 pc.addRule(rule);
                 return true;
             }
@@ -391,11 +409,11 @@ public class PersonNameFilter extends GeocodeRule {
          * Name matches not yet filtered out, but may be co-referrenced to prior
          * mention
          */
-        if (resolvedPersons.containsKey(name.getTextnorm())) {
+        if (state().resolvedPersons.containsKey(name.getTextnorm())) {
             name.setFilteredOut(true);
             name.addRule("ResolvedPerson.CoRef");
             return true;
-        } else if (resolvedOrgs.containsKey(name.getTextnorm())) {
+        } else if (state().resolvedOrgs.containsKey(name.getTextnorm())) {
             name.setFilteredOut(true);
             name.addRule("ResolvedOrg.CoRef");
             return true;
@@ -406,7 +424,7 @@ public class PersonNameFilter extends GeocodeRule {
     private boolean isPersonName(PlaceCandidate name) {
         if (nameFilter.contains(name.getTextnorm())) {
             name.setFilteredOut(true);
-            resolvedPersons.put(name.getTextnorm(), name.getText());
+            state().resolvedPersons.put(name.getTextnorm(), name.getText());
             name.addRule("PersonName");
             return true;
         }
@@ -444,7 +462,7 @@ public class PersonNameFilter extends GeocodeRule {
         String post = toks[0].toLowerCase();
         if (suffixes.contains(withoutPeriod(post))) {
             nm.setFilteredOut(true);
-            resolvedPersons.put(val(nm.getTextnorm(), post), nm.getText());
+            state().resolvedPersons.put(val(nm.getTextnorm(), post), nm.getText());
             nm.addRule("PersonSuffix");
             return true;
         }
@@ -466,13 +484,13 @@ public class PersonNameFilter extends GeocodeRule {
         if (isNotBlank(pre)) {
             if (titles.contains(withoutPeriod(pre))) {
                 nm.setFilteredOut(true);
-                resolvedPersons.put(val(pre, nm.getTextnorm()), nm.getText());
+                state().resolvedPersons.put(val(pre, nm.getTextnorm()), nm.getText());
                 nm.addRule("PersonTitle");
                 nm.addRule("Prefix=" + pre);
                 return true;
             } else if (nameFilter.contains(pre)) {
                 nm.setFilteredOut(true);
-                resolvedPersons.put(nm.getTextnorm(), String.format("%s %s", pre, nm.getTextnorm()));
+                state().resolvedPersons.put(nm.getTextnorm(), String.format("%s %s", pre, nm.getTextnorm()));
                 nm.addRule("PersonName");
                 nm.addRule("Prefix=" + pre);
                 return true;
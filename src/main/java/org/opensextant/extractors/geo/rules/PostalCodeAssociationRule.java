@@ -93,7 +93,7 @@ public class PostalCodeAssociationRule extends GeocodeRule implements MatchSchem
                 // Geographic checks:
                 if (sameBoundary(geo1, geo2)) {
                     // Use this to collect evidence. Boundary for geo1 and geo2 are the same.
-                    this.boundaryObserver.boundaryLevel1InScope(p1.getNDTextnorm(), geo1);
+                    boundaryObserver().boundaryLevel1InScope(p1.getNDTextnorm(), geo1);
                     p1.markValid();
                     p2.markValid();
                     if (geo1Postal) {
@@ -114,7 +114,7 @@ public class PostalCodeAssociationRule extends GeocodeRule implements MatchSchem
                     // TODO: Consider loosening this association.  A Postal code really should line up with
                     // any named place by a known ADMIN code, and not just "same country".
                     // Use this to collect evidence. Boundary for geo1 and geo2 are the same.
-                    this.countryObserver.countryInScope(geo1.getCountryCode());
+                    countryObserver().countryInScope(geo1.getCountryCode());
 
                     p1.markValid();
                     p2.markValid();
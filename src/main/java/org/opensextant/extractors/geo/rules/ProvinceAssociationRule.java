@@ -17,8 +17,10 @@
 package org.opensextant.extractors.geo.rules;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.opensextant.data.Place;
 import org.opensextant.extractors.geo.PlaceCandidate;
@@ -34,21 +36,22 @@ import org.opensextant.extractors.geo.PlaceCount;
  */
 public class ProvinceAssociationRule extends GeocodeRule {
 
-    private final HashSet<String> relevantProvinceID = new HashSet<>();
-
     public ProvinceAssociationRule() {
         weight = 5;
     }
 
-    @Override
-    public void reset() {
-        relevantProvinceID.clear();
+    /**
+     * @return province IDs relevant to the current document
+     */
+    private Set<String> relevantProvinceID() {
+        return documentState(HashSet::new);
     }
 
     public void setProvinces(Collection<PlaceCount> p) {
         if (p == null) {
             return;
         }
+        Set<String> relevantProvinceID = relevantProvinceID();
         for (PlaceCount count : p) {
             relevantProvinceID.add(count.label);
         }
@@ -59,7 +62,7 @@ public class ProvinceAssociationRule extends GeocodeRule {
      */
     @Override
     public boolean isRelevant() {
-        return !relevantProvinceID.isEmpty();
+        return !relevantProvinceID().isEmpty();
     }
 
     /**
@@ -80,6 +83,7 @@ public class ProvinceAssociationRule extends GeocodeRule {
             return;
         }
 
+        Set<String> relevantProvinceID = relevantProvinceID();
         for (PlaceCandidate name : names) {
             /*
              * This was filtered out already so ignore.
@@ -110,4 +114,21 @@ public class ProvinceAssociationRule extends GeocodeRule {
         // Don't evaluate individual Geos -- too many.
     }
 
+    @Override
+    public Set<Evidence> reads() {
+        return EnumSet.of(Evidence.STATUS, Evidence.BOUNDARY_SCOPE);
+    }
+
+    @Override
+    public Set<Evidence> writes() {
+        return EnumSet.of(Evidence.SCORES);
+    }
+
+    /**
+     * Provinces in scope are only read here; they are set before rules are evaluated.
+     */
+    @Override
+    public boolean isDataParallel() {
+        return true;
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opensextant.extractors.geo.GeocodingContext;
+import org.opensextant.extractors.geo.PlaceCandidate;
+import org.opensextant.extractors.geo.rules.GeocodeRule.Evidence;
+
+/**
+ * Evaluation plan for a list of rules, built from the evidence each rule reads and writes.
+ * Rules are assigned to levels: a rule is placed after every earlier rule it depends on, i.e., one that writes what
+ * it reads, reads what it writes, or writes the same evidence other than scores (score increments add up in any
+ * order).  Levels are evaluated in order.
+ * <p>
+ * A level holds either data-parallel rules only or a single rule that is not.  For a data-parallel level with
+ * enough candidates the candidates are partitioned across threads, each partition evaluated by the level's rules
+ * in list order.  So every candidate sees the same rules in the same order as in a sequential evaluation and
+ * gets the same evidence, in the same order, whatever the partitioning.  Rules that declare nothing are barriers,
+ * evaluated alone and in list order.
+ *
+ * @author ubaldino
+ */
+public class RuleGraph {
+
+    /** Fewest candidates worth partitioning across threads */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+    /** Fewest candidates in one partition */
+    public static final int MIN_PARTITION = 200;
+
+    private static final class Level {
+        final List<GeocodeRule> rules = new ArrayList<>();
+        boolean dataParallel = true;
+
+        boolean accepts(GeocodeRule r) {
+            return r.isDataParallel() ? dataParallel : rules.isEmpty();
+        }
+
+        void add(GeocodeRule r) {
+            rules.add(r);
+            dataParallel &= r.isDataParallel();
+        }
+    }
+
+    private final List<Level> levels = new ArrayList<>();
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param rules rules in the order they would be evaluated one after another
+     */
+    public RuleGraph(List<GeocodeRule> rules) {
+        int[] levelOf = new int[rules.size()];
+        for (int x = 0; x < rules.size(); ++x) {
+            GeocodeRule r = rules.get(x);
+            int lev = 0;
+            for (int prior = 0; prior < x; ++prior) {
+                if (dependsOn(r, rules.get(prior))) {
+                    lev = Math.max(lev, levelOf[prior] + 1);
+                }
+            }
+            while (lev < levels.size() && !levels.get(lev).accepts(r)) {
+                ++lev;
+            }
+            if (lev == levels.size()) {
+                levels.add(new Level());
+            }
+            levels.get(lev).add(r);
+            levelOf[x] = lev;
+        }
+    }
+
+    /**
+     * @param r     a rule
+     * @param prior a rule before r in the list
+     * @return true if r must be evaluated after prior
+     */
+    public static boolean dependsOn(GeocodeRule r, GeocodeRule prior) {
+        if (intersects(prior.writes(), r.reads()) || intersects(prior.reads(), r.writes())) {
+            return true;
+        }
+        Set<Evidence> w = EnumSet.noneOf(Evidence.class);
+        w.addAll(prior.writes());
+        w.retainAll(r.writes());
+        w.remove(Evidence.SCORES);
+        return !w.isEmpty();
+    }
+
+    private static boolean intersects(Set<Evidence> a, Set<Evidence> b) {
+        for (Evidence e : a) {
+            if (b.contains(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param n minimum number of candidates to partition a data-parallel level across threads
+     */
+    public void setParallelThreshold(int n) {
+        parallelThreshold = n;
+    }
+
+    /**
+     * @param n maximum number of threads evaluating one level, including the calling thread
+     */
+    public void setParallelism(int n) {
+        parallelism = Math.max(1, n);
+    }
+
+    /**
+     * @return rules by level, in evaluation order
+     */
+    public List<List<GeocodeRule>> getLevels() {
+        List<List<GeocodeRule>> plan = new ArrayList<>();
+        for (Level lev : levels) {
+            plan.add(Collections.unmodifiableList(lev.rules));
+        }
+        return plan;
+    }
+
+    /**
+     * Evaluate all rules over the names of the document of ctx.
+     *
+     * @param ctx   document context
+     * @param names place candidates
+     * @param exec  executor for partitions beyond the calling thread, or null to evaluate on the calling thread only
+     */
+    public void evaluate(GeocodingContext ctx, List<PlaceCandidate> names, Executor exec) {
+        for (Level lev : levels) {
+            if (lev.dataParallel && exec != null && parallelism > 1 && names.size() >= parallelThreshold) {
+                evaluatePartitioned(ctx, lev.rules, names, exec);
+            } else {
+                for (GeocodeRule r : lev.rules) {
+                    r.evaluate(ctx, names);
+                }
+            }
+        }
+    }
+
+    /**
+     * A helper evaluating partitions on the executor.  If it has not started by the time the calling thread runs out
+     * of partitions it is skipped, so the calling thread never waits on a queued task.
+     */
+    private static final class Helper implements Runnable {
+        private static final int NEW = 0, RUNNING = 1, SKIPPED = 2;
+        final AtomicInteger state = new AtomicInteger(NEW);
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final Runnable work;
+
+        Helper(Runnable work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(NEW, RUNNING)) {
+                return;
+            }
+            try {
+                work.run();
+                done.complete(null);
+            } catch (Throwable err) {
+                done.completeExceptionally(err);
+            }
+        }
+
+        void await() {
+            if (!state.compareAndSet(NEW, SKIPPED)) {
+                done.join();
+            }
+        }
+    }
+
+    private void evaluatePartitioned(GeocodingContext ctx, List<GeocodeRule> rules, List<PlaceCandidate> names,
+                                     Executor exec) {
+        int size = Math.max(MIN_PARTITION, (names.size() + 2 * parallelism - 1) / (2 * parallelism));
+        int partitions = (names.size() + size - 1) / size;
+        AtomicInteger next = new AtomicInteger();
+        Runnable work = () -> {
+            int p;
+            while ((p = next.getAndIncrement()) < partitions) {
+                List<PlaceCandidate> part = names.subList(p * size, Math.min(names.size(), (p + 1) * size));
+                for (GeocodeRule r : rules) {
+                    r.evaluate(ctx, part, false);
+                }
+            }
+        };
+
+        List<Helper> helpers = new ArrayList<>();
+        for (int h = 1; h < Math.min(parallelism, partitions); ++h) {
+            Helper helper = new Helper(work);
+            try {
+                exec.execute(helper);
+                helpers.add(helper);
+            } catch (RejectedExecutionException err) {
+                break;
+            }
+        }
+        try {
+            work.run();
+        } finally {
+            for (Helper helper : helpers) {
+                helper.await();
+            }
+        }
+        for (GeocodeRule r : rules) {
+            r.getStats().addDocument();
+        }
+    }
+}
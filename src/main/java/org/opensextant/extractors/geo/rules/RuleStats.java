@@ -0,0 +1,206 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo.rules;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.opensextant.extractors.geo.PlaceCandidate;
+
+/**
+ * Profile of one geocoding rule aggregated across documents: time spent, candidates visited, candidate x place
+ * pairs considered, evidence added and candidates filtered out.  Counts are kept by GeocodeRule.evaluate(ctx, names)
+ * and are safe to update from many threads.  When a rule is evaluated on partitions of a document in parallel
+ * (see RuleGraph) its time is summed across threads.
+ *
+ * @author ubaldino
+ */
+public class RuleStats implements RuleStatsMXBean {
+
+    public static final String JMX_DOMAIN = "org.opensextant.xponents";
+
+    private final String ruleName;
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder pairs = new LongAdder();
+    private final LongAdder evidence = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+
+    public RuleStats(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    /**
+     * State of the candidates before a rule is evaluated, to measure what the rule changed.
+     */
+    static final class Probe {
+        final long t0 = System.nanoTime();
+        final boolean[] wasFiltered;
+        final long evidence;
+
+        Probe(List<PlaceCandidate> names) {
+            wasFiltered = new boolean[names.size()];
+            long ev = 0;
+            int x = 0;
+            for (PlaceCandidate name : names) {
+                wasFiltered[x++] = name.isFilteredOut();
+                ev += name.getEvidence().size();
+            }
+            evidence = ev;
+        }
+    }
+
+    Probe start(List<PlaceCandidate> names) {
+        return new Probe(names);
+    }
+
+    /**
+     * @param probe    state before evaluation
+     * @param names    candidates evaluated
+     * @param document true if names are a whole document, not a partition of one
+     */
+    void stop(Probe probe, List<PlaceCandidate> names, boolean document) {
+        nanos.add(System.nanoTime() - probe.t0);
+        long ev = 0;
+        int filteredOut = 0;
+        int x = 0;
+        for (PlaceCandidate name : names) {
+            if (name.isFilteredOut() && !probe.wasFiltered[x]) {
+                ++filteredOut;
+            }
+            ev += name.getEvidence().size();
+            ++x;
+        }
+        if (document) {
+            documents.increment();
+        }
+        candidates.add(names.size());
+        evidence.add(ev - probe.evidence);
+        filtered.add(filteredOut);
+    }
+
+    /**
+     * Count a document evaluated in partitions, see RuleGraph.
+     */
+    void addDocument() {
+        documents.increment();
+    }
+
+    /**
+     * @param n candidate x place pairs considered
+     */
+    public void addPairs(long n) {
+        pairs.add(n);
+    }
+
+    @Override
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    @Override
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    @Override
+    public double getTimeMillis() {
+        return nanos.sum() / 1e6;
+    }
+
+    @Override
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    @Override
+    public long getPairs() {
+        return pairs.sum();
+    }
+
+    @Override
+    public long getEvidenceAdded() {
+        return evidence.sum();
+    }
+
+    @Override
+    public long getFilteredOut() {
+        return filtered.sum();
+    }
+
+    @Override
+    public void reset() {
+        documents.reset();
+        nanos.reset();
+        candidates.reset();
+        pairs.reset();
+        evidence.reset();
+        filtered.reset();
+    }
+
+    /**
+     * @return a one-line summary suitable for logging metrics.
+     */
+    public String report() {
+        return String.format("Rule %s docs=%d, time=%.1f ms, candidates=%d, pairs=%d, evidence=%d, filtered=%d",
+                ruleName, getDocuments(), getTimeMillis(), getCandidates(), getPairs(), getEvidenceAdded(),
+                getFilteredOut());
+    }
+
+    /**
+     * @param group name of the geocoder owning the rule
+     * @return JMX name of these stats
+     * @throws JMException on invalid names
+     */
+    public ObjectName objectName(String group) throws JMException {
+        return new ObjectName(String.format("%s:type=GeocodeRule,geocoder=%s,name=%s", JMX_DOMAIN,
+                ObjectName.quote(group), ObjectName.quote(ruleName)));
+    }
+
+    /**
+     * Register with the platform MBean server, replacing stats registered under the same name.
+     *
+     * @param group name of the geocoder owning the rule
+     * @throws JMException on registration failure
+     */
+    public void register(String group) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = objectName(group);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    /**
+     * @param group name of the geocoder owning the rule
+     * @throws JMException on failure
+     */
+    public void unregister(String group) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = objectName(group);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.extractors.geo.rules;
+
+/**
+ * JMX view of the profile of one geocoding rule, see RuleStats.
+ *
+ * @author ubaldino
+ */
+public interface RuleStatsMXBean {
+
+    String getRuleName();
+
+    /** @return documents evaluated */
+    long getDocuments();
+
+    /** @return time spent in the rule, milliseconds, summed across threads */
+    double getTimeMillis();
+
+    /** @return candidates visited */
+    long getCandidates();
+
+    /** @return candidate x place pairs considered */
+    long getPairs();
+
+    /** @return evidence added to candidates */
+    long getEvidenceAdded();
+
+    /** @return candidates the rule filtered out */
+    long getFilteredOut();
+
+    /** Zero all counts */
+    void reset();
+}
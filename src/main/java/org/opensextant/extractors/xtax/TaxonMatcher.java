@@ -34,6 +34,7 @@ package org.opensextant.extractors.xtax;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import org.apache.solr.client.solrj.SolrClient;
@@ -49,6 +50,7 @@ import org.apache.solr.common.util.NamedList;
 import org.opensextant.ConfigException;
 import org.opensextant.data.Taxon;
 import org.opensextant.data.TextInput;
+import org.opensextant.extraction.DocumentContext;
 import org.opensextant.extraction.ExtractionException;
 import org.opensextant.extraction.Extractor;
 import org.opensextant.extraction.TagFilter;
@@ -279,6 +281,18 @@ public class TaxonMatcher extends SolrMatcherSupport implements Extractor {
         return extractorImpl(input, params);
     }
 
+    /**
+     * Parameterized extraction as above, on the executor of this matcher (see setExecutor()).
+     * Errors complete the future exceptionally with a CompletionException wrapping the ExtractionException.
+     *
+     * @param input text to tag
+     * @param params tagging parameters, or null
+     * @return future list of matches
+     */
+    public CompletableFuture<List<TextMatch>> extractAsync(TextInput input, Parameters params) {
+        return async(() -> extractorImpl(input, params));
+    }
+
     public void setAllowLowerCase(boolean b) {
         this.tagLowerCase = b;
     }
@@ -324,9 +338,8 @@ public class TaxonMatcher extends SolrMatcherSupport implements Extractor {
 
         String docid = (input.id != null ? input.id : NO_DOC_ID);
         List<TextMatch> matches = new ArrayList<>();
-        if (params != null) {
-            this.setAllowLowerCase(params.tag_lowercase);
-        }
+        /* Per-call setting, so concurrent calls with different parameters do not interfere */
+        boolean lowerCase = params != null ? params.tag_lowercase : tagLowerCase;
 
         Map<Object, Object> beanMap = new HashMap<>(100);
         QueryResponse response = tagTextCallSolrTagger(input.buffer, docid, beanMap);
@@ -336,10 +349,66 @@ public class TaxonMatcher extends SolrMatcherSupport implements Extractor {
         }
 
         List<NamedList<?>> tags = (List<NamedList<?>>) response.getResponse().get("tags");
+        return assembleMatches(input, tags, beanMap, lowerCase);
+    }
+
+    /**
+     * Tag many short texts with one tagger request per batch of texts, rather than one request per text.
+     * Texts are concatenated with BATCH_SEPARATOR and tags are demultiplexed back to each text by offset.
+     *
+     * @param inputs texts to tag
+     * @param params tagging parameters
+     * @return list of matches for each input, in order of inputs
+     * @throws ExtractionException on Solr Tagger error
+     */
+    public List<List<TextMatch>> extract(List<TextInput> inputs, Parameters params) throws ExtractionException {
+        boolean lowerCase = params != null ? params.tag_lowercase : tagLowerCase;
+        List<String> texts = new ArrayList<>(inputs.size());
+        for (TextInput input : inputs) {
+            texts.add(input.buffer);
+        }
+
+        List<List<TextMatch>> results = new ArrayList<>(inputs.size());
+        int next = 0;
+        for (TagBatch batch : TagBatch.partition(texts, DEFAULT_BATCH_LENGTH)) {
+            String docid = inputs.get(next).id != null ? inputs.get(next).id : NO_DOC_ID;
+            Map<Object, Object> beanMap = new HashMap<>(100);
+            QueryResponse response = tagTextCallSolrTagger(batch.buffer, docid, beanMap);
+            @SuppressWarnings("unchecked")
+            List<NamedList<?>> tags = (List<NamedList<?>>) response.getResponse().get("tags");
+            for (List<NamedList<?>> inputTags : batch.split(tags)) {
+                TextInput input = inputs.get(next);
+                ++next;
+                if (beanMap.isEmpty()) {
+                    results.add(new ArrayList<>());
+                } else {
+                    results.add(assembleMatches(input, inputTags, beanMap, lowerCase));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Filter tags and assemble matches for one input.
+     *
+     * @param input   text
+     * @param tags    tags with offsets relative to input.buffer
+     * @param beanMap id =&gt; Taxon
+     * @param lowerCase true if lower case matches are allowed
+     * @return list of matches
+     * @throws ExtractionException on err
+     */
+    private List<TextMatch> assembleMatches(TextInput input, List<NamedList<?>> tags, Map<Object, Object> beanMap,
+                                            boolean lowerCase)
+            throws ExtractionException {
+        List<TextMatch> matches = new ArrayList<>();
         log.debug("TAGS SIZE = {}", tags.size());
 
         TaxonMatch m;
         int tag_count = 0;
+        /* Same characterization as the gazetteer matcher, if it already tagged this input on this thread */
+        DocumentContext doc = DocumentContext.of(input);
 
         for (NamedList<?> tag : tags) {
             ++tag_count;
@@ -363,7 +432,7 @@ public class TaxonMatcher extends SolrMatcherSupport implements Extractor {
                 continue;
             }
 
-            if (!tagLowerCase && TextUtils.isLower(matchtext)) {
+            if (!lowerCase && TextUtils.isLower(matchtext)) {
                 continue;
             }
 
@@ -377,7 +446,7 @@ public class TaxonMatcher extends SolrMatcherSupport implements Extractor {
             m.setText(matchtext);
             if (ruleFilter.filterOut(m.getText())) {
                 m.setFilteredOut(true);
-            } else if (ruleFilter.filterOut(m, input)) {
+            } else if (ruleFilter.filterOut(m, doc)) {
                 m.setFilteredOut(true);
             }
 
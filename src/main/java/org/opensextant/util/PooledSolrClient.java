@@ -0,0 +1,207 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Solr client for a remote tier of Solr replicas serving the same core, e.g., a shared gazetteer.
+ * Requests are load balanced over the replicas through one pooled HTTP connection manager; a replica
+ * that fails is taken out of rotation and checked in the background until it is alive again.
+ * <p>
+ * A circuit breaker sits in front of the replicas: after a run of consecutive failures (e.g., no replica
+ * reachable) requests fail fast for a cool-down period instead of each waiting on connection timeouts.
+ * After the cool-down a single trial request is let through; if it succeeds the circuit closes.
+ * <p>
+ * Settings are read from system properties when using create(), e.g., <code>-Dopensextant.solr.maxConnectionsPerHost=64</code>:
+ * <ul>
+ * <li>opensextant.solr.maxConnections -- pool size over all replicas (128)</li>
+ * <li>opensextant.solr.maxConnectionsPerHost -- pool size per replica (32)</li>
+ * <li>opensextant.solr.keepAlive -- max idle time of a pooled connection, ms (60000)</li>
+ * <li>opensextant.solr.connectTimeout -- ms (5000)</li>
+ * <li>opensextant.solr.socketTimeout -- ms (60000)</li>
+ * <li>opensextant.solr.aliveCheckInterval -- health check of failed replicas, ms (10000)</li>
+ * <li>opensextant.solr.failureThreshold -- consecutive failures that open the circuit (5)</li>
+ * <li>opensextant.solr.circuitOpenTime -- cool-down before a trial request, ms (30000)</li>
+ * </ul>
+ *
+ * @author ubaldino
+ */
+public class PooledSolrClient extends SolrClient {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = LoggerFactory.getLogger(PooledSolrClient.class);
+
+    private final SolrClient delegate;
+    private final transient CloseableHttpClient httpClient;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger failures = new AtomicInteger();
+    /** Time the circuit may let a trial request through; 0 if circuit is closed */
+    private volatile long openUntil = 0;
+    private final AtomicBoolean trialRunning = new AtomicBoolean(false);
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Circuit breaker over any client.
+     *
+     * @param client           the client to protect
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openMillis       time circuit stays open before a trial request
+     */
+    public PooledSolrClient(SolrClient client, int failureThreshold, long openMillis) {
+        this(client, null, failureThreshold, openMillis);
+    }
+
+    private PooledSolrClient(SolrClient client, CloseableHttpClient http, int failureThreshold, long openMillis) {
+        this.delegate = client;
+        this.httpClient = http;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Create a load-balanced client for a core on several Solr servers, with settings from system properties.
+     *
+     * @param baseUrls Solr servers, e.g., http://solr1:8983/solr, http://solr2:8983/solr
+     * @param core     core name, e.g., gazetteer
+     * @return client
+     */
+    public static PooledSolrClient create(List<URL> baseUrls, String core) {
+        int maxConn = Integer.getInteger("opensextant.solr.maxConnections", 128);
+        int maxPerHost = Integer.getInteger("opensextant.solr.maxConnectionsPerHost", 32);
+        long keepAlive = Long.getLong("opensextant.solr.keepAlive", 60000L);
+        int connectTimeout = Integer.getInteger("opensextant.solr.connectTimeout", 5000);
+        int socketTimeout = Integer.getInteger("opensextant.solr.socketTimeout", 60000);
+        int aliveCheck = Integer.getInteger("opensextant.solr.aliveCheckInterval", 10000);
+        int threshold = Integer.getInteger("opensextant.solr.failureThreshold", 5);
+        long openTime = Long.getLong("opensextant.solr.circuitOpenTime", 30000L);
+
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+        pool.setMaxTotal(maxConn);
+        pool.setDefaultMaxPerRoute(maxPerHost);
+        pool.setValidateAfterInactivity(2000);
+        CloseableHttpClient http = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeout)
+                        .setSocketTimeout(socketTimeout).build())
+                .build();
+
+        String[] coreUrls = new String[baseUrls.size()];
+        for (int x = 0; x < coreUrls.length; ++x) {
+            String base = baseUrls.get(x).toString();
+            coreUrls[x] = (base.endsWith("/") ? base : base + "/") + core;
+        }
+        LBHttpSolrClient balancer = new LBHttpSolrClient.Builder()
+                .withHttpClient(http)
+                .withConnectionTimeout(connectTimeout)
+                .withSocketTimeout(socketTimeout)
+                .withBaseSolrUrls(coreUrls)
+                .build();
+        balancer.setAliveCheckInterval(aliveCheck);
+
+        log.info("Solr CORE:{} on {} replicas, connections={}/{} per host", core, coreUrls.length, maxConn, maxPerHost);
+        return new PooledSolrClient(balancer, http, threshold, openTime);
+    }
+
+    /* SolrClient declares this method with a raw SolrRequest; SolrRequest<?> would not override it. */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+        boolean trial = false;
+        long until = openUntil;
+        if (until != 0) {
+            if (System.currentTimeMillis() < until || !trialRunning.compareAndSet(false, true)) {
+                rejected.increment();
+                throw new SolrServerException("Solr circuit open; failing fast after " + failureThreshold + " failures");
+            }
+            trial = true;
+        }
+        try {
+            NamedList<Object> response = delegate.request(request, collection);
+            failures.set(0);
+            if (openUntil != 0) {
+                openUntil = 0;
+                log.info("Solr circuit closed");
+            }
+            return response;
+        } catch (SolrServerException | IOException err) {
+            if (trial || failures.incrementAndGet() >= failureThreshold) {
+                if (openUntil == 0) {
+                    log.warn("Solr circuit opened for {} ms; {}", openMillis, err.getMessage());
+                }
+                openUntil = System.currentTimeMillis() + openMillis;
+            }
+            throw err;
+        } finally {
+            if (trial) {
+                trialRunning.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return true if requests are currently failing fast
+     */
+    public boolean isCircuitOpen() {
+        return openUntil != 0;
+    }
+
+    /**
+     * @return count of requests rejected while circuit was open
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the underlying client, e.g., LBHttpSolrClient
+     */
+    public SolrClient getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+}
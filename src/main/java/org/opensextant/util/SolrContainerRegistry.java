@@ -0,0 +1,234 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.core.CoreContainer;
+import org.opensextant.ConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide registry of embedded Solr containers, keyed by solr home.
+ * <p>
+ * Xponents opens the gazetteer, taxcat and postal cores from many places in one process --
+ * PlaceGeocoder, its SolrGazetteer, TaxonMatcher, PostalTagger, etc.  Each of those used to load
+ * a private CoreContainer, holding duplicate tagger FSTs in heap.  Here one CoreContainer is loaded per
+ * solr home and every caller leases an EmbeddedSolrServer view on a named core.  Leases are reference
+ * counted; the container is shutdown only when the last lease is released.
+ * <pre>
+ *   EmbeddedSolrServer gaz = SolrContainerRegistry.acquire(home, "gazetteer");
+ *   ...
+ *   SolrContainerRegistry.release(home, "gazetteer");  // Do not call gaz.close()
+ * </pre>
+ *
+ * @author ubaldino
+ */
+public final class SolrContainerRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SolrContainerRegistry.class);
+
+    /**
+     * Key for a container created from Solr defaults, i.e., no solr home given.
+     */
+    private static final String DEFAULT_HOME = "<default>";
+
+    private static final Map<String, SharedContainer> containers = new HashMap<>();
+
+    /**
+     * Running total of container loads avoided, and the heap estimated to be saved as a result.
+     */
+    private static long avoidedLoads = 0;
+    private static long heapSaved = 0;
+
+    private SolrContainerRegistry() {
+    }
+
+    /**
+     * A loaded CoreContainer and the per-core views handed out on it.
+     */
+    private static class SharedContainer {
+        final CoreContainer container;
+        final Map<String, EmbeddedSolrServer> views = new HashMap<>();
+        final Map<String, Integer> coreRefs = new HashMap<>();
+        /* Approximate heap consumed by loading this container, in bytes. */
+        final long loadBytes;
+        int refCount = 0;
+
+        SharedContainer(CoreContainer c, long bytes) {
+            container = c;
+            loadBytes = bytes;
+        }
+    }
+
+    /**
+     * Normalize solr home so that "./solr", "solr/" and an absolute path resolve to the same container.
+     */
+    private static String homeKey(String solrHome) {
+        if (solrHome == null) {
+            return DEFAULT_HOME;
+        }
+        return new File(solrHome).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static long usedHeap() {
+        Runtime R = Runtime.getRuntime();
+        return R.totalMemory() - R.freeMemory();
+    }
+
+    /**
+     * Lease a view on the named core.  The first lease on a solr home loads the CoreContainer;
+     * subsequent leases share it.
+     *
+     * @param solrHome solr home, or null for Solr defaults
+     * @param coreName core name
+     * @return embedded solr server bound to the shared container. Caller must not close() it, but release() it.
+     * @throws ConfigException if container fails to load or core is not present
+     */
+    public static synchronized EmbeddedSolrServer acquire(String solrHome, String coreName) throws ConfigException {
+        String key = homeKey(solrHome);
+        SharedContainer shared = containers.get(key);
+        if (shared == null) {
+            try {
+                long m0 = usedHeap();
+                CoreContainer solrContainer = solrHome == null ? new CoreContainer() : new CoreContainer(solrHome);
+                solrContainer.load();
+                shared = new SharedContainer(solrContainer, Math.max(0, usedHeap() - m0));
+                containers.put(key, shared);
+                log.info("Loaded Solr container at {}; approx. heap (MB)={}", key, shared.loadBytes / 1048576);
+            } catch (Exception err) {
+                throw new ConfigException("Failed to set up Embedded Solr at " + solrHome + " CORE:" + coreName, err);
+            }
+        } else {
+            ++avoidedLoads;
+            heapSaved += shared.loadBytes;
+            log.info("Sharing Solr container at {} for CORE:{}; est. heap saved (MB)={}", key, coreName,
+                    heapSaved / 1048576);
+        }
+
+        if (!shared.container.isLoaded(coreName) && shared.container.getCoreDescriptor(coreName) == null) {
+            if (shared.refCount == 0) {
+                shutdown(key, shared);
+            }
+            throw new ConfigException("Solr core does not exist at " + key + " CORE:" + coreName);
+        }
+
+        final SharedContainer current = shared;
+        EmbeddedSolrServer view = shared.views.computeIfAbsent(coreName,
+                nm -> new EmbeddedSolrServer(current.container, nm));
+        shared.coreRefs.merge(coreName, 1, Integer::sum);
+        ++shared.refCount;
+        return view;
+    }
+
+    /**
+     * Release a lease obtained by acquire().  The container is shutdown once all leases are released.
+     *
+     * @param solrHome solr home, as given to acquire()
+     * @param coreName core name
+     */
+    public static synchronized void release(String solrHome, String coreName) {
+        String key = homeKey(solrHome);
+        SharedContainer shared = containers.get(key);
+        if (shared == null) {
+            log.debug("No container to release at {}", key);
+            return;
+        }
+        Integer refs = shared.coreRefs.get(coreName);
+        if (refs == null) {
+            log.debug("No lease to release at {} CORE:{}", key, coreName);
+            return;
+        }
+        if (refs <= 1) {
+            shared.coreRefs.remove(coreName);
+            shared.views.remove(coreName);
+            /* Core may be rebuilt before it is acquired again */
+            StripedLruCache.clearShared(coreName);
+        } else {
+            shared.coreRefs.put(coreName, refs - 1);
+        }
+        --shared.refCount;
+        if (shared.refCount <= 0) {
+            shutdown(key, shared);
+        }
+    }
+
+    /**
+     * Reload a core of a loaded container, e.g., after its index is rebuilt.  Leases remain valid.
+     * Shared caches of data read from the core are cleared, see StripedLruCache.
+     *
+     * @param solrHome solr home, as given to acquire()
+     * @param coreName core name
+     * @throws ConfigException if no container is loaded at solr home or reload fails
+     */
+    public static synchronized void reload(String solrHome, String coreName) throws ConfigException {
+        String key = homeKey(solrHome);
+        SharedContainer shared = containers.get(key);
+        if (shared == null) {
+            throw new ConfigException("No Solr container loaded at " + key);
+        }
+        try {
+            shared.container.reload(coreName);
+        } catch (Exception err) {
+            throw new ConfigException("Failed to reload Solr at " + key + " CORE:" + coreName, err);
+        } finally {
+            StripedLruCache.clearShared(coreName);
+        }
+        log.info("Reloaded Solr at {} CORE:{}", key, coreName);
+    }
+
+    private static void shutdown(String key, SharedContainer shared) {
+        containers.remove(key);
+        shared.container.shutdown();
+        log.info("Released Solr container at {}", key);
+    }
+
+    /**
+     * @param solrHome solr home
+     * @return number of open leases on the container at this solr home.
+     */
+    public static synchronized int getReferenceCount(String solrHome) {
+        SharedContainer shared = containers.get(homeKey(solrHome));
+        return shared != null ? shared.refCount : 0;
+    }
+
+    /**
+     * @return number of distinct containers currently loaded.
+     */
+    public static synchronized int getContainerCount() {
+        return containers.size();
+    }
+
+    /**
+     * @return approximate heap, in bytes, saved by sharing containers instead of loading duplicates.
+     */
+    public static synchronized long getHeapSaved() {
+        return heapSaved;
+    }
+
+    /**
+     * @return a one-line summary suitable for logging metrics.
+     */
+    public static synchronized String report() {
+        return String.format("Solr containers=%d, shared leases avoided %d loads, est. heap saved (MB)=%d",
+                containers.size(), avoidedLoads, heapSaved / 1048576);
+    }
+}
@@ -17,6 +17,7 @@
 package org.opensextant.util;
 
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -90,8 +91,24 @@ public class SolrProxy extends SolrUtil {
         solrClient = initializeHTTP(this.server_url);
     }
 
+    /**
+     * Initializes a load-balanced client for a core served by several Solr servers. See PooledSolrClient
+     * for connection pool, health check and circuit breaker settings.
+     *
+     * @param urls Solr servers, e.g., http://solr1:8983/solr
+     * @param core name of solr core
+     */
+    public SolrProxy(List<URL> urls, String core) {
+        this.server_url = null;
+        this.server_urls = urls;
+        this.coreName = core;
+        solrClient = PooledSolrClient.create(urls, core);
+    }
+
     /**
      * Initializes a Solr server from the SOLR_HOME environment variable.
+     * If the value is one or more http URLs, separated by commas, e.g., from <code>-Dsolr.url=http://solr1:8983/solr,http://solr2:8983/solr</code>
+     * a pooled, load-balanced client is used for the remote Solr servers.
      *
      * @param core name of solr core
      * @throws ConfigException cfg err
@@ -100,7 +117,37 @@ public class SolrProxy extends SolrUtil {
         this.server_url = null;
         this.solrHome = deriveSolrHome(null);
         this.coreName = core;
-        solrClient = setupCore(solrHome, core);
+        if (isRemote(solrHome)) {
+            server_urls = parseURLs(solrHome);
+            solrClient = PooledSolrClient.create(server_urls, core);
+            return;
+        }
+        solrClient = SolrContainerRegistry.acquire(solrHome, core);
+        sharedContainer = true;
+    }
+
+    private static boolean isRemote(String solrLocation) {
+        return solrLocation.startsWith("http:") || solrLocation.startsWith("https:");
+    }
+
+    /**
+     * @param urls comma-separated URLs
+     * @return list of URL
+     * @throws ConfigException if a URL is malformed
+     */
+    private static List<URL> parseURLs(String urls) throws ConfigException {
+        List<URL> result = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            try {
+                result.add(new URL(url.strip()));
+            } catch (MalformedURLException err) {
+                throw new ConfigException("Invalid Solr URL " + url, err);
+            }
+        }
+        return result;
     }
 
     /**
@@ -114,14 +161,21 @@ public class SolrProxy extends SolrUtil {
         this.server_url = null;
         solrHome = solr_home;
         this.coreName = core;
-        solrClient = setupCore(solrHome, core);
+        solrClient = SolrContainerRegistry.acquire(solrHome, core);
+        sharedContainer = true;
     }
 
     protected Logger logger = LoggerFactory.getLogger(SolrProxy.class);
     protected SolrClient solrClient;
     private UpdateRequest solrUpdate = null;
     protected URL server_url;
+    /** Remote Solr servers for a load-balanced client; null otherwise */
+    protected List<URL> server_urls = null;
     private boolean writable = false;
+    /**
+     * True if solrClient is a lease on a container shared through SolrContainerRegistry.
+     */
+    private boolean sharedContainer = false;
 
     public void setWritable(boolean b) {
         writable = b;
@@ -149,6 +203,8 @@ public class SolrProxy extends SolrUtil {
     /**
      * Creates an EmbeddedSolrServer given solr home &amp; the core to use.
      * These may be null and you get the default.
+     * This loads a private CoreContainer which is shutdown when the returned server is closed.
+     * SolrProxy instances share containers instead, see {@link SolrContainerRegistry}.
      *
      * @param _solrHome solr home
      * @param _coreName name of core
@@ -254,8 +310,11 @@ public class SolrProxy extends SolrUtil {
         if (solrClient == null) {
             if (server_url != null) {
                 solrClient = initializeHTTP(server_url);
+            } else if (server_urls != null) {
+                solrClient = PooledSolrClient.create(server_urls, coreName);
             } else {
-                solrClient = setupCore(solrHome, coreName);
+                solrClient = SolrContainerRegistry.acquire(solrHome, coreName);
+                sharedContainer = true;
             }
         }
     }
@@ -318,6 +377,9 @@ public class SolrProxy extends SolrUtil {
     }
 
     /**
+     * Close the client. For embedded Solr the lease on the shared container is released;
+     * the container itself is shutdown once no other SolrProxy uses it.
+     *
      * @throws IOException
      */
     public void close() throws IOException {
@@ -326,7 +388,12 @@ public class SolrProxy extends SolrUtil {
         }
 
         if (solrClient != null) {
-            solrClient.close();
+            if (sharedContainer) {
+                SolrContainerRegistry.release(solrHome, coreName);
+                sharedContainer = false;
+            } else {
+                solrClient.close();
+            }
             solrClient = null;
         }
     }
@@ -0,0 +1,226 @@
+/*
+ *
+ * Copyright 2012-2026 The MITRE Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.opensextant.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded LRU cache shared across documents and threads, for data derived from a Solr core.
+ * The cache is bounded by an estimate of heap consumed, evicting least-recently used entries.
+ * It is lock-striped; each stripe is an access-ordered LinkedHashMap.
+ * <p>
+ * Shared instances are kept per Solr core and cache type, see getShared().  They are cleared
+ * by clearShared() when the core is reloaded or released in SolrContainerRegistry, as cached
+ * entries are only valid for the index they were read from.
+ *
+ * @param <K> key type
+ * @param <V> cached value type
+ * @author ubaldino
+ */
+public class StripedLruCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    /* Shared caches, by Solr core and cache type */
+    private static final Map<String, Map<Class<?>, StripedLruCache<?, ?>>> shared = new HashMap<>();
+
+    private final class Stripe {
+        final LinkedHashMap<K, V> entries = new LinkedHashMap<>(256, 0.75f, true);
+        long bytes = 0;
+
+        synchronized V get(K key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(K key, V val) {
+            V old = entries.put(key, val);
+            bytes += weigher.applyAsInt(key, val);
+            if (old != null) {
+                bytes -= weigher.applyAsInt(key, old);
+            }
+            Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytesPerStripe && eldest.hasNext()) {
+                Map.Entry<K, V> e = eldest.next();
+                bytes -= weigher.applyAsInt(e.getKey(), e.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            bytes = 0;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private final String label;
+    private final ToIntBiFunction<K, V> weigher;
+    private final List<Stripe> stripes = new ArrayList<>(STRIPES);
+    private final long maxBytesPerStripe;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param label    name of cache for report()
+     * @param maxBytes approximate heap limit for cached entries
+     * @param weigher  approximate heap size of an entry, in bytes
+     */
+    public StripedLruCache(String label, long maxBytes, ToIntBiFunction<K, V> weigher) {
+        this.label = label;
+        this.weigher = weigher;
+        maxBytesPerStripe = Math.max(1, maxBytes / STRIPES);
+        for (int x = 0; x < STRIPES; ++x) {
+            stripes.add(new Stripe());
+        }
+    }
+
+    /**
+     * Get the shared cache of the given type for a Solr core, creating it on first use.
+     *
+     * @param coreName  Solr core, e.g., "gazetteer"
+     * @param type      cache type
+     * @param property  system property giving cache size in MB; 0 disables the cache
+     * @param defaultMB size if property is not set
+     * @param create    creates a cache of the given size in bytes
+     * @param <C>       cache type
+     * @return shared cache or null if caching is disabled
+     */
+    protected static synchronized <C extends StripedLruCache<?, ?>> C getShared(String coreName, Class<C> type,
+                                                                               String property, int defaultMB,
+                                                                               LongFunction<C> create) {
+        int mb = Integer.getInteger(property, defaultMB);
+        if (mb <= 0) {
+            return null;
+        }
+        Map<Class<?>, StripedLruCache<?, ?>> caches = shared.computeIfAbsent(coreName, nm -> new HashMap<>());
+        return type.cast(caches.computeIfAbsent(type, t -> create.apply(mb * 1048576L)));
+    }
+
+    /**
+     * Drop the entries of all shared caches for a Solr core, e.g., when the core is reloaded.
+     *
+     * @param coreName Solr core
+     */
+    public static synchronized void clearShared(String coreName) {
+        Map<Class<?>, StripedLruCache<?, ?>> caches = shared.get(coreName);
+        if (caches != null) {
+            for (StripedLruCache<?, ?> cache : caches.values()) {
+                cache.clear();
+            }
+        }
+    }
+
+    private Stripe stripe(Object key) {
+        int h = key.hashCode();
+        return stripes.get((h ^ (h >>> 16)) & (STRIPES - 1));
+    }
+
+    /**
+     * @param key key
+     * @return cached value or null; counted as a hit or miss.
+     */
+    public V get(K key) {
+        V val = peek(key);
+        if (val == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return val;
+    }
+
+    /**
+     * Lookup without counting a hit or miss, for subclasses that qualify the cached value first.
+     *
+     * @param key key
+     * @return cached value or null
+     */
+    protected V peek(K key) {
+        return stripe(key).get(key);
+    }
+
+    protected void recordHit() {
+        hits.increment();
+    }
+
+    protected void recordMiss() {
+        misses.increment();
+    }
+
+    public void put(K key, V val) {
+        stripe(key).put(key, val);
+    }
+
+    /**
+     * Drop all cached entries. Counters are not reset.
+     */
+    public void clear() {
+        for (Stripe s : stripes) {
+            s.clear();
+        }
+    }
+
+    public int size() {
+        int sz = 0;
+        for (Stripe s : stripes) {
+            sz += s.size();
+        }
+        return sz;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return ratio of hits to all lookups, or 0 if there are no lookups.
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * @return a one-line summary suitable for logging metrics.
+     */
+    public String report() {
+        return String.format("%s size=%d, hits=%d, misses=%d, evictions=%d, hit ratio=%.3f",
+                label, size(), getHits(), getMisses(), getEvictions(), getHitRatio());
+    }
+}
@@ -26,6 +26,8 @@ public abstract class TaggerResource extends ServerResource {
     public static final String POSTAL_TAGGER = "xpostal";
     public static final String DATE_TAGGER = "xtemp";
     public static final String TAXON_TAGGER = "xtax"; // Unused.
+    /** Pool of PostalGeocoders, which serve one document at a time */
+    public static final String POSTAL_POOL = "xpostal.pool";
 
     protected static final HashSet<String> extractorSet = new HashSet<>();
 
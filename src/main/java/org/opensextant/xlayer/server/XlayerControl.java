@@ -1,7 +1,12 @@
 package org.opensextant.xlayer.server;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.opensextant.data.TextInput;
 import org.opensextant.extraction.Extractor;
+import org.opensextant.extraction.ExtractorPool;
+import org.opensextant.extractors.geo.PlaceGeocoder;
+import org.opensextant.extractors.geo.rules.RuleStats;
 import org.opensextant.processing.Parameters;
 import org.restlet.Context;
 import org.restlet.ext.json.JsonRepresentation;
@@ -25,6 +30,11 @@ public class XlayerControl extends TaggerResource {
         if (x != null) {
             x.cleanup();
         }
+        Object postal = this.getApplication().getContext().getAttributes().get(POSTAL_POOL);
+        if (postal instanceof ExtractorPool) {
+            info(((ExtractorPool<?>) postal).report());
+            ((ExtractorPool<?>) postal).close();
+        }
         System.exit(0);
     }
 
@@ -50,10 +60,44 @@ public class XlayerControl extends TaggerResource {
         return new JsonRepresentation("{\"message\":\"not implemented\"}");
     }
 
+    /**
+     * Profile of each geocoding rule, aggregated across documents since start or the last reset.
+     *
+     * @param reset true to zero the profiles after reporting them
+     * @return JSON {"rules": [ {"rule":..., "documents":..., "time_ms":..., ...}, ...]}
+     */
+    public Representation ruleStats(boolean reset) {
+        Extractor x = getExtractor(GEO_TAGGER);
+        if (!(x instanceof PlaceGeocoder)) {
+            return status("failed", "geocoder not available");
+        }
+        PlaceGeocoder geocoder = (PlaceGeocoder) x;
+        JSONArray rules = new JSONArray();
+        for (RuleStats st : geocoder.getRuleStats()) {
+            JSONObject rule = new JSONObject();
+            rule.put("rule", st.getRuleName());
+            rule.put("documents", st.getDocuments());
+            rule.put("time_ms", st.getTimeMillis());
+            rule.put("candidates", st.getCandidates());
+            rule.put("pairs", st.getPairs());
+            rule.put("evidence_added", st.getEvidenceAdded());
+            rule.put("filtered_out", st.getFilteredOut());
+            rules.put(rule);
+        }
+        if (reset) {
+            geocoder.resetRuleStats();
+        }
+        JSONObject result = new JSONObject();
+        result.put(FLD_STATUS, "OK");
+        result.put("rules", rules);
+        return new JsonRepresentation(result);
+    }
+
     /**
      * /control/OPERATION, for example:
      * /control/ping
      * /control/stop
+     * /control/rules -- rule profiles; /control/rules-reset also zeroes them
      *
      * @param params
      * @return
@@ -62,6 +106,10 @@ public class XlayerControl extends TaggerResource {
     public Representation control(Representation params) {
         if ("ping".equalsIgnoreCase(operation)) {
             return ping();
+        } else if ("rules".equalsIgnoreCase(operation)) {
+            return ruleStats(false);
+        } else if ("rules-reset".equalsIgnoreCase(operation)) {
+            return ruleStats(true);
         } else if ("stop".equalsIgnoreCase(operation)) {
             info("Stopping Xponents Xlayer Service Requested by CLIENT=" + getRequest().getClientInfo().getAddress());
             stop();
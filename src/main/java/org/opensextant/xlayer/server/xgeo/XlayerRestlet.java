@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.URL;
 
 import org.opensextant.ConfigException;
+import org.opensextant.extraction.ExtractorPool;
 import org.opensextant.extraction.MatchFilter;
 import org.opensextant.extractors.geo.PlaceGeocoder;
 import org.opensextant.extractors.geo.PostalGeocoder;
@@ -42,7 +43,9 @@ public class XlayerRestlet extends XlayerApp {
             Context ctx = getContext();
             ctx.getAttributes().put(XponentsGeotagger.GEO_TAGGER, tagger);
             ctx.getAttributes().put(XponentsGeotagger.DATE_TAGGER, dateTagger);
-            ctx.getAttributes().put(XponentsGeotagger.POSTAL_TAGGER, postalGeocoder);
+            if (postalPool != null) {
+                ctx.getAttributes().put(XponentsGeotagger.POSTAL_POOL, postalPool);
+            }
             ctx.getAttributes().put(XponentsGeotagger.TAXON_TAGGER, phraseTagger);
 
             ctx.getAttributes().put("version", this.version);
@@ -60,7 +63,12 @@ public class XlayerRestlet extends XlayerApp {
 
     private PlaceGeocoder tagger = null;
     private XTemporal dateTagger = null;
-    private PostalGeocoder postalGeocoder = null;
+    private ExtractorPool<PostalGeocoder> postalPool = null;
+
+    /**
+     * Number of PostalGeocoders for concurrent requests; system property xlayer.postal.pool
+     */
+    public static final int DEFAULT_POSTAL_POOL_SIZE = 4;
     private TaxonMatcher phraseTagger = null;
 
     /**
@@ -75,6 +83,8 @@ public class XlayerRestlet extends XlayerApp {
         taggerParams.resolve_localities = true;
         tagger.setParameters(taggerParams);
         tagger.configure();
+        // Rule profiles: JMX and /control/rules
+        tagger.registerMBeans("xlayer");
 
         phraseTagger = new TaxonMatcher();
 
@@ -102,9 +112,16 @@ public class XlayerRestlet extends XlayerApp {
         dateTagger.configure();
 
         // NEW: Tag Postal Codes -- if available.
+        // PostalGeocoder serves one document at a time, so requests lease one from a pool.
+        // All share the PlaceGeocoder above.
         try {
-            postalGeocoder = new PostalGeocoder();
-            postalGeocoder.configure();
+            int poolSize = Integer.getInteger("xlayer.postal.pool", DEFAULT_POSTAL_POOL_SIZE);
+            postalPool = new ExtractorPool<>("postal", poolSize, () -> {
+                PostalGeocoder postalGeocoder = new PostalGeocoder();
+                postalGeocoder.setPlaceGeocoder(tagger);
+                postalGeocoder.configure();
+                return postalGeocoder;
+            });
         } catch (Exception err) {
             /* */
             error("Postal index/tagger is available in Xponents 3.5+ Solr Index", err);
@@ -2,12 +2,15 @@ package org.opensextant.xlayer.server.xgeo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import jodd.json.JsonObject;
 import org.json.JSONException;
 import org.opensextant.data.Place;
 import org.opensextant.data.TextInput;
 import org.opensextant.extraction.Extractor;
+import org.opensextant.extraction.ExtractorPool;
 import org.opensextant.extraction.TextMatch;
 import org.opensextant.extractors.geo.PlaceCandidate;
 import org.opensextant.extractors.geo.PlaceGeocoder;
@@ -34,7 +37,6 @@ public class XponentsGeotagger extends TaggerResource {
 
     static {
         extractorSet.add(GEO_TAGGER);
-        extractorSet.add(POSTAL_TAGGER);
         extractorSet.add(DATE_TAGGER);
         extractorSet.add(TAXON_TAGGER);
     }
@@ -48,6 +50,18 @@ public class XponentsGeotagger extends TaggerResource {
         log = Context.getCurrentLogger();
     }
 
+    /**
+     * @return pool of postal geocoders from global attributes, or null if postal tagging is not available.
+     */
+    @SuppressWarnings("unchecked")
+    public ExtractorPool<PostalGeocoder> getPostalPool() {
+        Object pool = this.getApplication().getContext().getAttributes().get(POSTAL_POOL);
+        if (pool == null) {
+            error("Postal geocoder is mis-configured or not available.", null);
+        }
+        return (ExtractorPool<PostalGeocoder>) pool;
+    }
+
     /**
      * get Xponents Exxtractor object from global attributes.
      */
@@ -140,7 +154,7 @@ public class XponentsGeotagger extends TaggerResource {
      * Process the text for the given document. NOTE: Please note this is NOT MT-safe. Internally there are single stateful instances of
      *  Extractor taggers, which may have significant memory and initialization phases.  As a prototype
      *  that is one limitation.  If you need multiple clients to hit this service, you ideally load-balance
-     *  a bank of Xponents REST server.
+     *  a bank of Xponents REST server.  PostalGeocoders are leased from a pool, see XlayerRestlet.
      *
      * @param input     the input
      * @param jobParams the job params
@@ -157,29 +171,45 @@ public class XponentsGeotagger extends TaggerResource {
         try {
             List<TextMatch> matches = new ArrayList<>();
 
+            // Solr tagging runs on the tagger executor while patterns are tagged here.
+            CompletableFuture<List<TextMatch>> tagging = null;
             // BOTH geo and taxons could be requested:  features = "geo", "all-taxons"
             if (!tag_geo(jobParams) && tag_taxons(jobParams)) {
                 // Taxonomic tags only
                 TaxonMatcher phraseTagger = (TaxonMatcher) getExtractor(TAXON_TAGGER);
-                matches.addAll(phraseTagger.extract(input, jobParams));
+                tagging = phraseTagger.extractAsync(input, jobParams);
             } else if (tag_geo(jobParams) || tag_taxons(jobParams)) {
                 // Geotagging
                 PlaceGeocoder xgeo = (PlaceGeocoder) getExtractor(GEO_TAGGER);
-                matches.addAll(xgeo.extract(input, jobParams));
+                tagging = xgeo.extractAsync(input, jobParams);
             }
 
+            List<TextMatch> patterns = null;
             if (jobParams.tag_patterns) {
                 XTemporal xt = (XTemporal) getExtractor(DATE_TAGGER);
-                matches.addAll(xt.extract(input));
+                patterns = xt.extract(input);
+            }
+            if (tagging != null) {
+                try {
+                    matches.addAll(tagging.join());
+                } catch (CompletionException err) {
+                    throw err.getCause() instanceof Exception ? (Exception) err.getCause() : err;
+                }
+            }
+            if (patterns != null) {
+                matches.addAll(patterns);
             }
             if (jobParams.tag_postal) {
-                PostalGeocoder pg = (PostalGeocoder) getExtractor(POSTAL_TAGGER);
-                if (tag_geo(jobParams)) {
+                ExtractorPool<PostalGeocoder> postal = getPostalPool();
+                if (postal != null) {
                     // OPTIMIZATION: reuse matches accumulated so far to prevent
-                    // PostalGeocoder from repeating extract()
-                    pg.setGeneralMatches(matches);
+                    // PostalGeocoder from repeating extract(). Otherwise clear any left from the prior lease.
+                    List<TextMatch> general = tag_geo(jobParams) ? matches : new ArrayList<>();
+                    matches.addAll(postal.apply(pg -> {
+                        pg.setGeneralMatches(general);
+                        return pg.extract(input);
+                    }));
                 }
-                matches.addAll(pg.extract(input));
             }
             if (isDebug()) {
                 debug(String.format("CURRENT MEM USAGE(K)=%d", RuntimeTools.reportMemory()));
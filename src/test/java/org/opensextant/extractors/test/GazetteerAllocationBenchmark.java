@@ -0,0 +1,73 @@
+package org.opensextant.extractors.test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opensextant.data.TextInput;
+import org.opensextant.extractors.geo.GazetteerMatcher;
+import org.opensextant.util.FileUtility;
+
+/**
+ * Allocation rate of GazetteerMatcher.tagText(): bytes allocated by the tagging thread per KB of input text.
+ * Run before and after a change to the tagging path on the same files, e.g.,
+ * <pre>
+ *   java -Dopensextant.solr=./xponents-solr/solr7 org.opensextant.extractors.test.GazetteerAllocationBenchmark ./test/data/*.txt
+ * </pre>
+ * Requires a HotSpot/OpenJDK JVM for per-thread allocation counters.
+ */
+public class GazetteerAllocationBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: GazetteerAllocationBenchmark FILE [FILE ...]");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Thread allocation counters not supported by this JVM");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        try (GazetteerMatcher matcher = new GazetteerMatcher()) {
+            List<TextInput> docs = new ArrayList<>();
+            long chars = 0;
+            for (String path : args) {
+                String text = FileUtility.readFile(new File(path), "UTF-8");
+                docs.add(new TextInput(path, text));
+                chars += text.length();
+            }
+
+            for (int r = 0; r < WARMUP; ++r) {
+                for (TextInput doc : docs) {
+                    matcher.tagText(doc, false);
+                }
+            }
+
+            long threadId = Thread.currentThread().getId();
+            long candidates = 0;
+            long t0 = System.nanoTime();
+            long bytes0 = threads.getThreadAllocatedBytes(threadId);
+            for (int r = 0; r < ROUNDS; ++r) {
+                for (TextInput doc : docs) {
+                    candidates += matcher.tagText(doc, false).size();
+                }
+            }
+            long bytes = threads.getThreadAllocatedBytes(threadId) - bytes0;
+            long ms = (System.nanoTime() - t0) / 1000000;
+
+            double inputKB = ROUNDS * chars / 1024.0;
+            System.out.println(String.format("Documents=%d, chars=%d, rounds=%d, candidates/round=%d",
+                    docs.size(), chars, ROUNDS, candidates / ROUNDS));
+            System.out.println(String.format("Allocated %,d bytes; %,.0f bytes per input KB; %.2f ms per input KB",
+                    bytes, bytes / inputKB, ms / inputKB));
+        } catch (Exception err) {
+            err.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.opensextant.data.TextInput;
+import org.opensextant.extraction.DocumentContext;
+import org.opensextant.extractors.geo.LanguageFilter;
+
+public class TestDocumentContext {
+
+    @Test
+    public void testCharacterization() {
+        TextInput lower = new TextInput("1", "the quick brown fox jumps over the lazy dog near the river bank");
+        DocumentContext doc = DocumentContext.of(lower);
+        assertTrue(doc.isLower());
+        assertFalse(doc.isUpper());
+        assertSame(doc, DocumentContext.of(lower));
+
+        TextInput upper = new TextInput("2", "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG NEAR THE RIVER BANK");
+        doc = DocumentContext.of(upper);
+        assertTrue(doc.isUpper());
+        assertFalse(doc.isLower());
+        assertEquals(upper.isUpper, doc.isUpper());
+    }
+
+    @Test
+    public void testFilters() {
+        TextInput ar = new TextInput("1", "text");
+        ar.langid = "ar";
+        DocumentContext doc = DocumentContext.of(ar);
+        LanguageFilter f = doc.filter(LanguageFilter.class, LanguageFilter::new);
+        assertSame(f, doc.filter(LanguageFilter.class, LanguageFilter::new));
+        assertTrue(f.filterOut(3));
+
+        TextInput en = new TextInput("2", "text");
+        en.langid = "en";
+        LanguageFilter g = DocumentContext.of(en).filter(LanguageFilter.class, LanguageFilter::new);
+        assertNotSame(f, g);
+        assertFalse(g.filterOut(3));
+
+        /* Back to Arabic: same filter instance as the first document */
+        TextInput ar2 = new TextInput("3", "more text");
+        ar2.langid = "ar";
+        assertSame(f, DocumentContext.of(ar2).filter(LanguageFilter.class, LanguageFilter::new));
+    }
+}
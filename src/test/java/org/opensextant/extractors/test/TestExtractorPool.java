@@ -0,0 +1,132 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.opensextant.ConfigException;
+import org.opensextant.extraction.ExtractionException;
+import org.opensextant.extraction.ExtractorPool;
+
+public class TestExtractorPool {
+
+    static class Resource implements AutoCloseable {
+        volatile boolean closed = false;
+        final AtomicInteger closes = new AtomicInteger();
+
+        @Override
+        public void close() {
+            closed = true;
+            closes.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testBorrowRelease() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ExtractorPool<Resource> pool = new ExtractorPool<>("test", 2, () -> {
+            created.incrementAndGet();
+            return new Resource();
+        });
+        assertEquals(2, created.get());
+        assertEquals(2, pool.getAvailable());
+
+        Resource a = pool.borrow();
+        Resource b = pool.borrow();
+        assertNotSame(a, b);
+        assertEquals(2, pool.getInUse());
+        try {
+            pool.borrow(10, TimeUnit.MILLISECONDS);
+            fail("Pool is exhausted");
+        } catch (ExtractionException expected) {
+            assertEquals(1, pool.getTimeoutCount());
+        }
+        pool.release(a);
+        try {
+            pool.release(a);
+            fail("Released twice");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        assertSame(a, pool.apply(r -> r));
+        pool.release(b);
+
+        assertEquals(0, pool.getInUse());
+        assertEquals(2, pool.getPeakInUse());
+        assertEquals(3, pool.getBorrowCount());
+
+        pool.close();
+        assertTrue(a.closed && b.closed);
+        try {
+            pool.borrow();
+            fail("Pool is closed");
+        } catch (ExtractionException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void testCloseWhileReleasing() throws Exception {
+        int size = 8;
+        for (int round = 0; round < 2000; ++round) {
+            List<Resource> all = new ArrayList<>();
+            ExtractorPool<Resource> pool = new ExtractorPool<>("test", size, () -> {
+                Resource r = new Resource();
+                all.add(r);
+                return r;
+            });
+            List<Resource> leased = new ArrayList<>();
+            for (int x = 0; x < size; ++x) {
+                leased.add(pool.borrow());
+            }
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> releasers = new ArrayList<>();
+            for (Resource r : leased) {
+                Thread t = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException err) {
+                        return;
+                    }
+                    pool.release(r);
+                });
+                t.start();
+                releasers.add(t);
+            }
+            go.countDown();
+            pool.close();
+            for (Thread t : releasers) {
+                t.join();
+            }
+
+            /* Every instance is cleaned up exactly once, none is left idle */
+            for (Resource r : all) {
+                assertEquals(1, r.closes.get());
+            }
+            assertEquals(0, pool.getAvailable());
+            assertEquals(0, pool.getInUse());
+        }
+    }
+
+    @Test
+    public void testFailedConfiguration() {
+        Resource first = new Resource();
+        AtomicInteger created = new AtomicInteger();
+        try {
+            new ExtractorPool<>("test", 3, () -> {
+                if (created.incrementAndGet() > 1) {
+                    throw new ConfigException("no more");
+                }
+                return first;
+            });
+            fail("Configuration fails");
+        } catch (ConfigException expected) {
+            assertTrue(first.closed);
+        }
+    }
+}
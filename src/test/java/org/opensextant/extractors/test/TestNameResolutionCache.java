@@ -0,0 +1,72 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.opensextant.extraction.TagList;
+import org.opensextant.extractors.geo.NameResolutionCache;
+import org.opensextant.util.StripedLruCache;
+
+public class TestNameResolutionCache {
+
+    @Test
+    public void testFingerprint() {
+        TagList tags = new TagList();
+        tags.startTag(0, 11);
+        tags.addId(100);
+        tags.addId(200);
+        tags.startTag(20, 31);
+        tags.addId(200);
+        tags.addId(100);
+        tags.startTag(40, 51);
+        tags.addId(100);
+        tags.addId(200);
+
+        long fp = NameResolutionCache.fingerprint(tags, 0);
+        assertEquals(fp, NameResolutionCache.fingerprint(tags, 2));
+        assertNotEquals(fp, NameResolutionCache.fingerprint(tags, 1));
+
+        NameResolutionCache cache = new NameResolutionCache(1048576);
+        NameResolutionCache.Key key = new NameResolutionCache.Key("name_tag", "Springfield", 0);
+        assertNull(cache.get(key, fp));
+        cache.put(key, fp, true, new int[] { 100 }, false, false);
+
+        assertNotNull(cache.get(new NameResolutionCache.Key("name_tag", "Springfield", 0), fp));
+        /* Other case profile, field or records */
+        assertNull(cache.get(new NameResolutionCache.Key("name_tag", "Springfield", 2), fp));
+        assertNull(cache.get(new NameResolutionCache.Key("name_tag_cjk", "Springfield", 0), fp));
+        assertNull(cache.get(key, NameResolutionCache.fingerprint(tags, 1)));
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getMisses());
+
+        cache.clear();
+        assertNull(cache.get(key, fp));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        NameResolutionCache cache = new NameResolutionCache(16 * 1024);
+        for (int x = 0; x < 10000; ++x) {
+            cache.put(new NameResolutionCache.Key("name_tag", "Name" + x, 0), x, true, new int[] { x }, false, false);
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.size() < 10000);
+    }
+
+    @Test
+    public void testSharedCacheCleared() {
+        NameResolutionCache cache = NameResolutionCache.getShared("test-gazetteer");
+        assertSame(cache, NameResolutionCache.getShared("test-gazetteer"));
+        assertNotSame(cache, NameResolutionCache.getShared("other-gazetteer"));
+
+        NameResolutionCache.Key key = new NameResolutionCache.Key("name_tag", "Springfield", 0);
+        cache.put(key, 1L, true, new int[] { 100 }, false, false);
+        NameResolutionCache.getShared("other-gazetteer").put(key, 1L, true, new int[] { 100 }, false, false);
+
+        /* As done when the core is reloaded */
+        StripedLruCache.clearShared("test-gazetteer");
+        assertNull(cache.get(key, 1L));
+        assertNotNull(NameResolutionCache.getShared("other-gazetteer").get(key, 1L));
+    }
+}
@@ -0,0 +1,106 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.opensextant.extractors.geo.PlaceCandidate;
+import org.opensextant.util.TextUtils;
+
+public class TestPlaceCandidateContext {
+
+    /** Access to context setup, as done by GazetteerMatcher for each candidate. */
+    static class Candidate extends PlaceCandidate {
+        Candidate(String buf, String name, int from) {
+            super(buf.indexOf(name, from), buf.indexOf(name, from) + name.length());
+            setText(name);
+        }
+
+        void context(String buf) {
+            setSurroundingTokens(buf);
+        }
+    }
+
+    private static final String DOC = "Officials met in Springfield, Mass. on Tuesday; "
+            + "later they drove north to Lowell and stayed near the Merrimack River until Friday.";
+
+    private static final int WIDTH = 40;
+
+    /** Tokens as they were split when context was set, before they were computed lazily */
+    private static String[] preTokens(String buf, PlaceCandidate pc) {
+        int[] w = TextUtils.get_text_window(pc.start, pc.end - pc.start, buf.length(), WIDTH);
+        return TextUtils.tokensRight(buf.substring(w[0], w[1]));
+    }
+
+    private static String[] postTokens(String buf, PlaceCandidate pc) {
+        int[] w = TextUtils.get_text_window(pc.start, pc.end - pc.start, buf.length(), WIDTH);
+        return TextUtils.tokensLeft(buf.substring(w[2], w[3]));
+    }
+
+    private static void assertContext(String buf, PlaceCandidate pc) {
+        assertArrayEquals(preTokens(buf, pc), pc.getPrematchTokens());
+        assertArrayEquals(postTokens(buf, pc), pc.getPostmatchTokens());
+        int[] w = TextUtils.get_text_window(pc.start, pc.end - pc.start, buf.length(), WIDTH);
+        assertEquals(buf.substring(w[0], w[1]), pc.getPrematchText().toString());
+        assertEquals(buf.substring(w[2], w[3]), pc.getPostmatchText().toString());
+    }
+
+    @Test
+    public void testContextTokens() {
+        for (String name : new String[]{"Officials", "Springfield, Mass.", "Lowell", "Merrimack River", "Friday"}) {
+            Candidate pc = new Candidate(DOC, name, 0);
+            pc.context(DOC);
+            assertContext(DOC, pc);
+            /* Repeated calls return the same tokens */
+            assertSame(pc.getPrematchTokens(), pc.getPrematchTokens());
+        }
+
+        /* Short document: context window is clipped at both ends */
+        String buf = "Lowell";
+        Candidate pc = new Candidate(buf, "Lowell", 0);
+        pc.context(buf);
+        assertContext(buf, pc);
+    }
+
+    @Test
+    public void testNoContext() {
+        Candidate pc = new Candidate(DOC, "Lowell", 0);
+        assertNull(pc.getPrematchTokens());
+        assertNull(pc.getPostmatchTokens());
+        assertEquals("", pc.getPrematchText().toString());
+
+        /* Tokens given explicitly take precedence over context, including null */
+        pc.context(DOC);
+        pc.setPrematchTokens(null);
+        String[] post = {"and"};
+        pc.setPostmatchTokens(post);
+        assertNull(pc.getPrematchTokens());
+        assertSame(post, pc.getPostmatchTokens());
+    }
+
+    @Test
+    public void testTextSense() {
+        String name = "Springfield, Mass.";
+        Candidate pc = new Candidate(DOC, name, 0);
+        pc.context(DOC);
+
+        /* Not split until inferTextSense() */
+        assertNull(pc.getTokens());
+        assertEquals(0, pc.getWordCount());
+
+        pc.inferTextSense(false, false);
+        String[] expected = PlaceCandidate.tokenizer.split(name);
+        assertArrayEquals(expected, pc.getTokens());
+        assertEquals(expected.length, pc.getWordCount());
+        assertEquals(2, pc.getWordCount());
+        assertContext(DOC, pc);
+
+        /* Tokens are of the text as of inferTextSense() */
+        Candidate renamed = new Candidate(DOC, "Merrimack River", 0);
+        renamed.inferTextSense(false, false);
+        renamed.setText("Merrimack");
+        assertEquals(2, renamed.getWordCount());
+        renamed.inferTextSense(false, false);
+        assertEquals(1, renamed.getWordCount());
+        assertArrayEquals(new String[]{"Merrimack"}, renamed.getTokens());
+    }
+}
@@ -0,0 +1,78 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import org.apache.solr.common.SolrDocument;
+import org.junit.Test;
+import org.opensextant.data.Place;
+import org.opensextant.extractors.geo.GazetteerPlace;
+import org.opensextant.extractors.geo.PlaceRecordCache;
+
+public class TestPlaceRecordCache {
+
+    private static SolrDocument gazEntry(String id, String name) {
+        SolrDocument doc = new SolrDocument();
+        doc.put("id", id);
+        doc.put("place_id", "USGS" + id);
+        doc.put("name", name);
+        doc.put("cc", "US");
+        doc.put("adm1", "US.17");
+        doc.put("feat_class", "P");
+        doc.put("feat_code", "PPL");
+        doc.put("name_type", "N");
+        doc.put("geo", "39.80,-89.64");
+        doc.put("id_bias", 1);
+        return doc;
+    }
+
+    @Test
+    public void testCopies() {
+        PlaceRecordCache cache = new PlaceRecordCache(1048576);
+        SolrDocument doc = gazEntry("1", "Springfield");
+        Place p1 = cache.getPlace("1", doc);
+        Place p2 = cache.getPlace("1", doc);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertNotSame(p1, p2);
+        assertEquals("Springfield", p2.getName());
+        assertEquals("US.17", p2.getAdmin1());
+        assertEquals(-89.64, p2.getLongitude(), 0.0001);
+
+        /* Callers modify Places; that must not leak into the cache. */
+        p2.setAdmin1("US.25");
+        assertEquals("US.17", cache.getPlace("1").getAdmin1());
+    }
+
+    @Test
+    public void testNameMetadata() {
+        PlaceRecordCache cache = new PlaceRecordCache(1048576);
+        SolrDocument doc = gazEntry("1", "Springfield");
+        cache.getPlace("1", doc);
+        GazetteerPlace p = (GazetteerPlace) cache.getPlace("1", doc);
+        assertTrue(p.hasFlag(GazetteerPlace.MAJOR_FEATURE));
+        assertFalse(p.hasFlag(GazetteerPlace.COUNTRY));
+        assertFalse(p.hasFlag(GazetteerPlace.SHORT_NAME));
+        assertFalse(p.hasFlag(GazetteerPlace.HISTORICAL_FEATURE));
+
+        String text = "SPRINGFIELD";
+        assertEquals(GazetteerPlace.foldedHash(text), p.foldedNameHash);
+        assertTrue(p.nameEqualsIgnoreCase(text, GazetteerPlace.foldedHash(text)));
+        assertFalse(p.nameEqualsIgnoreCase("Springfeld", GazetteerPlace.foldedHash("Springfeld")));
+        assertEquals(GazetteerPlace.foldedHash("in"), GazetteerPlace.foldedHash("In the IN", 7, 9));
+    }
+
+    @Test
+    public void testEviction() {
+        /* Tiny cache: a few records per stripe */
+        PlaceRecordCache cache = new PlaceRecordCache(16 * 500);
+        for (int x = 0; x < 1000; ++x) {
+            String id = Integer.toString(x);
+            cache.getPlace(id, gazEntry(id, "Place " + x));
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.size() < 1000);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.getPlace("999"));
+    }
+}
@@ -0,0 +1,109 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.LukeRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.opensextant.data.Place;
+import org.opensextant.extractors.geo.PlaceStore;
+
+public class TestPlaceStore {
+
+    /** Stand-in for a gazetteer core: one page of records, then the end of the cursor. */
+    static class StubGazetteer extends SolrClient {
+        private static final long serialVersionUID = 1L;
+        long version = 1;
+        int queries = 0;
+        String name = "Boston";
+
+        /* SolrClient declares this abstract method with a raw SolrRequest */
+        @Override
+        @SuppressWarnings("rawtypes")
+        public NamedList<Object> request(SolrRequest request, String collection) {
+            NamedList<Object> response = new NamedList<>();
+            if (request instanceof LukeRequest) {
+                NamedList<Object> index = new NamedList<>();
+                index.add("numDocs", 2);
+                index.add("version", version);
+                response.add("index", index);
+                return response;
+            }
+            ++queries;
+            SolrDocumentList docs = new SolrDocumentList();
+            String cursor = request.getParams().get(CursorMarkParams.CURSOR_MARK_PARAM);
+            if (CursorMarkParams.CURSOR_MARK_START.equals(cursor)) {
+                docs.add(record("7", name, "42.36,-71.06"));
+                docs.add(record("3", "Lowell", "42.63,-71.32"));
+            }
+            response.add("response", docs);
+            response.add(CursorMarkParams.CURSOR_MARK_NEXT, "end");
+            return response;
+        }
+
+        private static SolrDocument record(String id, String name, String geo) {
+            SolrDocument doc = new SolrDocument();
+            doc.setField("id", id);
+            doc.setField("name", name);
+            doc.setField("geo", geo);
+            doc.setField("place_id", "P" + id);
+            doc.setField("cc", "US");
+            doc.setField("adm1", "25");
+            doc.setField("feat_class", "P");
+            doc.setField("feat_code", "PPL");
+            doc.setField("id_bias", 0);
+            doc.setField("name_type", "N");
+            return doc;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testRebuildOnIndexChange() throws IOException, SolrServerException {
+        File f = File.createTempFile("placestore", ".bin");
+        assertTrue(f.delete());
+        StubGazetteer solr = new StubGazetteer();
+        try {
+            PlaceStore store = PlaceStore.openOrBuild(solr, f);
+            assertEquals(2, store.size());
+            assertEquals(1, store.getIndexVersion());
+            assertEquals(2, store.getIndexDocs());
+            Place p = store.get("7");
+            assertEquals("Boston", p.getName());
+            assertEquals("P7", p.getPlaceID());
+            assertNull(store.get(5));
+
+            /* Same index: store is reused as is */
+            int queries = solr.queries;
+            store = PlaceStore.openOrBuild(solr, f);
+            assertEquals(queries, solr.queries);
+
+            /* Gazetteer rebuilt: store must not resolve ids against the old records */
+            solr.version = 2;
+            solr.name = "Boston Center";
+            PlaceStore rebuilt = PlaceStore.openOrBuild(solr, f);
+            assertTrue(solr.queries > queries);
+            assertEquals(2, rebuilt.getIndexVersion());
+            assertEquals("Boston Center", rebuilt.get(7).getName());
+
+            /* Store replaced, not rewritten: the store still open reads the records it was built with */
+            assertEquals("Boston", store.get(7).getName());
+            store.close();
+            rebuilt.close();
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.SolrPing;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.opensextant.util.PooledSolrClient;
+
+public class TestPooledSolrClient {
+
+    /** Stand-in for a Solr tier that can be taken down and brought back. */
+    static class FlakySolr extends SolrClient {
+        private static final long serialVersionUID = 1L;
+        boolean down = false;
+        int calls = 0;
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public NamedList<Object> request(SolrRequest request, String collection) throws SolrServerException, IOException {
+            ++calls;
+            if (down) {
+                throw new SolrServerException("No live SolrServers available to handle this request");
+            }
+            return new NamedList<>();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static boolean ping(SolrClient client) {
+        try {
+            client.request(new SolrPing());
+            return true;
+        } catch (SolrServerException | IOException err) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testCircuit() throws Exception {
+        FlakySolr solr = new FlakySolr();
+        PooledSolrClient client = new PooledSolrClient(solr, 3, 50);
+        assertTrue(ping(client));
+
+        solr.down = true;
+        for (int x = 0; x < 3; ++x) {
+            assertFalse(ping(client));
+        }
+        assertTrue(client.isCircuitOpen());
+
+        /* Fail fast, without calling Solr */
+        int calls = solr.calls;
+        assertFalse(ping(client));
+        assertEquals(calls, solr.calls);
+        assertEquals(1, client.getRejectedCount());
+
+        /* Trial request after cool-down fails; circuit stays open */
+        Thread.sleep(60);
+        assertFalse(ping(client));
+        assertEquals(calls + 1, solr.calls);
+        assertTrue(client.isCircuitOpen());
+
+        /* Tier is back; trial request closes the circuit */
+        solr.down = false;
+        Thread.sleep(60);
+        assertTrue(ping(client));
+        assertFalse(client.isCircuitOpen());
+        assertTrue(ping(client));
+        client.close();
+    }
+}
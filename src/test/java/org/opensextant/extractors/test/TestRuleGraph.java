@@ -0,0 +1,179 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.opensextant.data.Place;
+import org.opensextant.data.TextInput;
+import org.opensextant.extractors.geo.GeocodingContext;
+import org.opensextant.extractors.geo.PlaceCandidate;
+import org.opensextant.extractors.geo.ScoredPlace;
+import org.opensextant.extractors.geo.rules.GeocodeRule;
+import org.opensextant.extractors.geo.rules.GeocodeRule.Evidence;
+import org.opensextant.extractors.geo.rules.RuleGraph;
+import org.opensextant.extractors.geo.rules.RuleStats;
+
+public class TestRuleGraph {
+
+    static class Declared extends GeocodeRule {
+        final Set<Evidence> in;
+        final Set<Evidence> out;
+        final boolean parallel;
+
+        Declared(Set<Evidence> in, Set<Evidence> out, boolean parallel) {
+            this.in = in;
+            this.out = out;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public Set<Evidence> reads() {
+            return in;
+        }
+
+        @Override
+        public Set<Evidence> writes() {
+            return out;
+        }
+
+        @Override
+        public boolean isDataParallel() {
+            return parallel;
+        }
+
+        @Override
+        public void evaluate(PlaceCandidate name, Place geo) {
+        }
+    }
+
+    /** Adds evidence for every place; filters out names starting with "X". */
+    static class Marking extends Declared {
+        Marking() {
+            super(EnumSet.of(Evidence.STATUS), EnumSet.of(Evidence.STATUS, Evidence.SCORES), true);
+            NAME = "Marking";
+        }
+
+        @Override
+        public void evaluate(PlaceCandidate name, Place geo) {
+            name.addEvidence(NAME, 1.0, geo);
+            if (name.getText().startsWith("X")) {
+                name.setFilteredOut(true);
+            }
+        }
+    }
+
+    static class Undeclared extends GeocodeRule {
+        @Override
+        public void evaluate(PlaceCandidate name, Place geo) {
+        }
+    }
+
+    @Test
+    public void testLevels() {
+        GeocodeRule filter = new Declared(EnumSet.of(Evidence.STATUS), EnumSet.of(Evidence.STATUS), true);
+        GeocodeRule coords = new Declared(EnumSet.of(Evidence.STATUS, Evidence.COORDINATES),
+                EnumSet.of(Evidence.SCORES), true);
+        GeocodeRule provs = new Declared(EnumSet.of(Evidence.STATUS, Evidence.BOUNDARY_SCOPE),
+                EnumSet.of(Evidence.SCORES), true);
+        GeocodeRule custom = new Undeclared();
+        GeocodeRule names = new Declared(EnumSet.of(Evidence.STATUS), EnumSet.of(Evidence.STATUS, Evidence.SCORES),
+                true);
+
+        assertTrue(RuleGraph.dependsOn(coords, filter));
+        assertFalse(RuleGraph.dependsOn(provs, coords));
+        assertTrue(RuleGraph.dependsOn(names, custom));
+
+        List<List<GeocodeRule>> levels = new RuleGraph(Arrays.asList(filter, coords, provs, custom, names)).getLevels();
+        assertEquals(4, levels.size());
+        assertEquals(Arrays.asList(filter), levels.get(0));
+        assertEquals(Arrays.asList(coords, provs), levels.get(1));
+        assertEquals(Arrays.asList(custom), levels.get(2));
+        assertEquals(Arrays.asList(names), levels.get(3));
+    }
+
+    private static List<PlaceCandidate> names(int count, String... texts) {
+        List<PlaceCandidate> names = new ArrayList<>();
+        for (int x = 0; x < count; ++x) {
+            PlaceCandidate pc = new PlaceCandidate(x * 10, x * 10 + 6);
+            String text = texts[x % texts.length];
+            pc.setText(text);
+            for (String id : new String[]{"a", "b"}) {
+                ScoredPlace geo = new ScoredPlace(id + x, text);
+                geo.getPlace().setFeatureClass("P");
+                geo.getPlace().setFeatureCode("PPL");
+                pc.addPlace(geo);
+            }
+            names.add(pc);
+        }
+        return names;
+    }
+
+    private static GeocodingContext context() {
+        return new GeocodingContext(new TextInput("doc", "text"), null, null, null);
+    }
+
+    @Test
+    public void testRuleStats() {
+        Marking rule = new Marking();
+        RuleStats stats = rule.getStats();
+        assertEquals("Marking", stats.getRuleName());
+
+        rule.evaluate(context(), names(3, "Boston", "Xenia", "Lowell"));
+        assertEquals(1, stats.getDocuments());
+        assertEquals(3, stats.getCandidates());
+        assertEquals(6, stats.getPairs());
+        assertEquals(6, stats.getEvidenceAdded());
+        assertEquals(1, stats.getFilteredOut());
+
+        /* Candidates filtered out before the rule ran are not counted again */
+        List<PlaceCandidate> doc = names(4, "Xenia", "Boston");
+        doc.get(0).setFilteredOut(true);
+        rule.evaluate(context(), doc);
+        assertEquals(2, stats.getDocuments());
+        assertEquals(7, stats.getCandidates());
+        assertEquals(2, stats.getFilteredOut());
+        assertEquals(stats.getPairs(), stats.getEvidenceAdded());
+
+        stats.reset();
+        assertEquals(0, stats.getDocuments());
+        assertEquals(0, stats.getCandidates());
+        assertEquals(0, stats.getEvidenceAdded());
+    }
+
+    @Test
+    public void testPartitionedStats() {
+        Marking rule = new Marking();
+        RuleGraph graph = new RuleGraph(Arrays.asList(rule));
+        graph.setParallelThreshold(1);
+        graph.setParallelism(4);
+        int count = 5 * RuleGraph.MIN_PARTITION;
+        ExecutorService exec = Executors.newFixedThreadPool(3);
+        try {
+            /* Evaluated in partitions across threads, but one document */
+            graph.evaluate(context(), names(count, "Boston", "Xenia"), exec);
+        } finally {
+            exec.shutdown();
+        }
+        RuleStats stats = rule.getStats();
+        assertEquals(1, stats.getDocuments());
+        assertEquals(count, stats.getCandidates());
+        assertEquals(2 * count, stats.getPairs());
+        assertEquals(2 * count, stats.getEvidenceAdded());
+        assertEquals(count / 2, stats.getFilteredOut());
+
+        /* Same counts when evaluated on the calling thread */
+        graph.evaluate(context(), names(count, "Boston", "Xenia"), null);
+        assertEquals(2, stats.getDocuments());
+        assertEquals(2 * count, stats.getCandidates());
+        assertEquals(4 * count, stats.getEvidenceAdded());
+        assertEquals(count, stats.getFilteredOut());
+    }
+}
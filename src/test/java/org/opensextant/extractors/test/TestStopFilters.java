@@ -12,6 +12,7 @@ import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
+import org.opensextant.extraction.StopTermIndex;
 import org.opensextant.extraction.TagFilter;
 import org.opensextant.extractors.geo.LanguageFilter;
 import org.opensextant.extractors.xtax.TaxonFilter;
@@ -115,4 +116,75 @@ public class TestStopFilters {
         String term2 = "المالية";
         assertFalse(filt.filterOut("ar", term2));
     }
+
+    @Test
+    public void testStopTermIndex() {
+        StopTermIndex index = StopTermIndex.builder()
+                .hyphenAsSpace(TagFilter.NON_PLACE)
+                .add("en", "the")
+                .add("en", "way")
+                .add("es", "la")
+                .add(TagFilter.NON_PLACE, "Way-Back")
+                .addAll("de", Set.of("der", "die"))
+                .build();
+        long en = index.languageMask("en");
+        long np = index.languageMask(TagFilter.NON_PLACE);
+
+        assertTrue(index.contains(en, "The"));
+        assertFalse(index.contains(en, "la"));
+        assertTrue(index.contains(en | index.languageMask("es"), "LA"));
+        assertFalse(index.contains(index.languageMask("fr"), "la"));
+        assertTrue(index.contains(index.allLanguages(), "die"));
+
+        /* Hyphen and space are equivalent for non-place names; spans of a buffer are probed in place */
+        String buf = "Go the WAY BACK home";
+        assertTrue(index.contains(np, buf, 7, 15));
+        assertTrue(index.contains(np, "way-back"));
+        assertFalse(index.contains(np, buf, 7, 10));
+        assertTrue(index.contains(en, buf, 7, 10));
+        assertTrue(index.contains(en, buf, 3, 6));
+        assertFalse(index.contains(en, buf, 3, 7));
+    }
+
+    @Test
+    public void testStopwordHyphens() {
+        StopTermIndex index = StopTermIndex.builder()
+                .hyphenAsSpace(TagFilter.NON_PLACE)
+                .add(TagFilter.NON_PLACE, "x-ray")
+                .add(TagFilter.NON_PLACE, "deep water")
+                .add("fr", "c'est-à-dire")
+                .add("fr", "au dessus")
+                .build();
+        long np = index.languageMask(TagFilter.NON_PLACE);
+        long fr = index.languageMask("fr");
+
+        /* Non-place names: hyphen in list or in text matches space */
+        assertTrue(index.contains(np, "X Ray"));
+        assertTrue(index.contains(np, "x-ray"));
+        assertTrue(index.contains(np, "Deep-Water"));
+
+        /* Language stopwords match hyphens as is */
+        assertTrue(index.contains(fr, "C'est-à-dire"));
+        assertFalse(index.contains(fr, "c'est à dire"));
+        assertTrue(index.contains(fr, "au dessus"));
+        assertFalse(index.contains(fr, "au-dessus"));
+
+        /* One probe over both kinds of list */
+        long both = np | fr;
+        assertTrue(index.contains(both, "x ray"));
+        assertTrue(index.contains(both, "deep-water"));
+        assertTrue(index.contains(both, "c'est-à-dire"));
+        assertFalse(index.contains(both, "au-dessus"));
+        assertFalse(index.contains(index.allLanguages() & ~np, "x ray"));
+    }
+
+    @Test
+    public void testTagFilterSpans() throws IOException {
+        TagFilter filt = new TagFilter();
+        assertTrue(filt.filterOut("lowercase"));
+        assertSame(TagFilter.getDefaultStopTerms(), TagFilter.getDefaultStopTerms());
+        String buf = "In Tokyo";
+        assertFalse(filt.filterOut(buf, 3, 8));
+        assertEquals(filt.filterOut("Tokyo"), filt.filterOut(buf, 3, 8));
+    }
 }
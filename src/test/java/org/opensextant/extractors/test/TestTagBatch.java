@@ -0,0 +1,158 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+import org.opensextant.extraction.SolrMatcherSupport;
+import org.opensextant.extraction.TagList;
+
+public class TestTagBatch {
+
+    /** Access to the batching used by the matchers; never instantiated. */
+    abstract static class Batching extends SolrMatcherSupport {
+
+        static String buffer(List<String> texts) {
+            return new TagBatch(texts).buffer;
+        }
+
+        static List<TagList> split(List<String> texts, TagList tags) {
+            return new TagBatch(texts).split(tags);
+        }
+
+        static List<List<NamedList<?>>> splitTags(List<String> texts, List<NamedList<?>> tags) {
+            return new TagBatch(texts).split(tags);
+        }
+
+        static List<Integer> partition(List<String> texts, int maxLen) {
+            List<Integer> sizes = new ArrayList<>();
+            for (TagBatch batch : TagBatch.partition(texts, maxLen)) {
+                sizes.add(batch.size());
+                if (batch.size() > 1) {
+                    assertTrue(batch.buffer.length() <= maxLen);
+                }
+            }
+            return sizes;
+        }
+    }
+
+    private static final List<String> TEXTS = Arrays.asList("Boston is near", "Visit Springfield", "Lowell");
+
+    /** Tag the first occurrence of each name, with offsets on the batch buffer */
+    private static TagList tag(String buf, String... names) {
+        TagList tags = new TagList();
+        for (String name : names) {
+            int x = buf.indexOf(name);
+            tags.startTag(x, x + name.length());
+            tags.addId(x);
+        }
+        return tags;
+    }
+
+    private static NamedList<?> namedTag(int start, int end) {
+        NamedList<Object> tag = new NamedList<>();
+        tag.add("startOffset", start);
+        tag.add("endOffset", end);
+        return tag;
+    }
+
+    @Test
+    public void testRebase() {
+        String buf = Batching.buffer(TEXTS);
+        assertEquals(String.join(SolrMatcherSupport.BATCH_SEPARATOR, TEXTS), buf);
+
+        List<TagList> split = Batching.split(TEXTS, tag(buf, "Boston", "Springfield", "Lowell"));
+        assertEquals(3, split.size());
+        String[] expected = { "Boston", "Springfield", "Lowell" };
+        for (int x = 0; x < expected.length; ++x) {
+            TagList tags = split.get(x);
+            assertEquals(1, tags.size());
+            assertEquals(expected[x], TEXTS.get(x).substring(tags.start(0), tags.end(0)));
+        }
+        assertEquals(buf.indexOf("Springfield"), split.get(1).id(0, 0));
+    }
+
+    @Test
+    public void testTagAcrossSeparator() {
+        String buf = Batching.buffer(TEXTS);
+        int x1 = buf.indexOf("near");
+        int x2 = buf.indexOf("Visit") + "Visit".length();
+        TagList tags = tag(buf, "Boston");
+        tags.startTag(x1, x2);
+        tags.addId(1);
+        tags.addTag(tag(buf, "Lowell"), 0, 0);
+
+        List<TagList> split = Batching.split(TEXTS, tags);
+        assertEquals(1, split.get(0).size());
+        assertEquals(0, split.get(1).size());
+        assertEquals(1, split.get(2).size());
+
+        /* Same for tagger response tags */
+        List<NamedList<?>> named = new ArrayList<>();
+        named.add(namedTag(0, 6));
+        named.add(namedTag(x1, x2));
+        int lowell = buf.indexOf("Lowell");
+        named.add(namedTag(lowell, lowell + 6));
+        List<List<NamedList<?>>> splitNamed = Batching.splitTags(TEXTS, named);
+        assertEquals(1, splitNamed.get(0).size());
+        assertEquals(0, splitNamed.get(1).size());
+        assertEquals(1, splitNamed.get(2).size());
+        assertEquals(0, splitNamed.get(2).get(0).get("startOffset"));
+        assertEquals(6, splitNamed.get(2).get(0).get("endOffset"));
+    }
+
+    @Test
+    public void testPartition() {
+        int max = SolrMatcherSupport.DEFAULT_BATCH_LENGTH;
+        String text = String.join("", Collections.nCopies(2000, "Boston is near Springfield. ")).substring(0, 20000);
+        /* Two 20K texts and separator fit in 50K, a third does not */
+        assertEquals(Arrays.asList(2, 2, 1), Batching.partition(Collections.nCopies(5, text), max));
+
+        /* A text over the limit is a batch by itself */
+        String big = text + text + text;
+        assertEquals(Arrays.asList(1, 1, 1), Batching.partition(Arrays.asList(text, big, text), max));
+
+        assertEquals(Collections.singletonList(3), Batching.partition(TEXTS, max));
+        assertTrue(Batching.partition(Collections.emptyList(), max).isEmpty());
+    }
+
+    @Test
+    public void testNonNumericIds() {
+        /* Tags as returned with records, from an index with non-numeric ids */
+        String buf = Batching.buffer(TEXTS);
+        List<NamedList<?>> named = new ArrayList<>();
+        NamedList<Object> boston = new NamedList<>();
+        boston.add("startOffset", 0);
+        boston.add("endOffset", 6);
+        boston.add("ids", Arrays.asList("35", "US.Boston"));
+        named.add(boston);
+        int lowell = buf.indexOf("Lowell");
+        NamedList<Object> lowellTag = new NamedList<>();
+        lowellTag.add("startOffset", lowell);
+        lowellTag.add("endOffset", lowell + 6);
+        lowellTag.add("ids", Arrays.asList("US.Lowell", "US.Boston"));
+        named.add(lowellTag);
+        TagList tags = new TagList();
+        tags.addAll(named);
+
+        assertEquals(35, tags.id(0, 0));
+        assertEquals(Integer.valueOf(35), tags.recordKey(0, 0));
+        assertEquals("US.Boston", tags.recordKey(0, 1));
+        assertEquals(tags.id(0, 1), tags.id(1, 1));
+        assertEquals(3, tags.distinctIds(0));
+        assertEquals(2, tags.distinctIds(1));
+
+        /* Keys survive the split, though surrogates are local to each list */
+        List<TagList> split = Batching.split(TEXTS, tags);
+        assertEquals("US.Boston", split.get(0).recordKey(0, 1));
+        assertEquals("US.Lowell", split.get(2).recordKey(0, 0));
+        assertEquals("US.Boston", split.get(2).recordKey(0, 1));
+        assertEquals(TagList.recordKey("US.Boston"), split.get(2).recordKey(0, 1));
+        assertEquals(TagList.recordKey("35"), split.get(0).recordKey(0, 0));
+    }
+}
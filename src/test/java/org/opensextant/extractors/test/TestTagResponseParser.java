@@ -0,0 +1,77 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Test;
+import org.opensextant.extraction.TagList;
+import org.opensextant.extraction.TagResponseParser;
+
+public class TestTagResponseParser {
+
+    private static NamedList<Object> tag(int start, int end, List<String> ids) {
+        NamedList<Object> tag = new NamedList<>();
+        tag.add("startOffset", start);
+        tag.add("endOffset", end);
+        tag.add("matchText", "ignored");
+        tag.add("ids", ids);
+        return tag;
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        SimpleOrderedMap<Object> header = new SimpleOrderedMap<>();
+        header.add("status", 0);
+        header.add("QTime", 3);
+        /* Nested "tags" must be left alone */
+        header.add("tags", "header value");
+
+        List<String> many = new ArrayList<>();
+        for (int x = 0; x < 100; ++x) {
+            many.add(Integer.toString(2000000000 + x));
+        }
+        List<Object> tags = new ArrayList<>();
+        tags.add(tag(38, 40, List.of("35")));
+        tags.add(tag(41, 49, List.of("750308", "2769912", "2770041")));
+        tags.add(tag(70000, 70008, many));
+
+        SolrDocumentList docs = new SolrDocumentList();
+        docs.setNumFound(104);
+
+        SimpleOrderedMap<Object> response = new SimpleOrderedMap<>();
+        response.add("responseHeader", header);
+        response.add("tagsCount", tags.size());
+        response.add("tags", tags);
+        response.add("response", docs);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JavaBinCodec().marshal(response, out);
+
+        TagList decoded = new TagList();
+        NamedList<Object> parsed = new TagResponseParser(decoded)
+                .processResponse(new ByteArrayInputStream(out.toByteArray()), null);
+
+        assertSame(decoded, parsed.get("tags"));
+        assertEquals(3, decoded.size());
+        assertEquals(38, decoded.start(0));
+        assertEquals(40, decoded.end(0));
+        assertEquals(1, decoded.idCount(0));
+        assertEquals(35, decoded.id(0, 0));
+        assertEquals(3, decoded.idCount(1));
+        assertEquals(2770041, decoded.id(1, 2));
+        assertEquals(70000, decoded.start(2));
+        assertEquals(100, decoded.idCount(2));
+        assertEquals(2000000099, decoded.id(2, 99));
+
+        assertEquals("header value", ((NamedList<?>) parsed.get("responseHeader")).get("tags"));
+        assertEquals(104, ((SolrDocumentList) parsed.get("response")).getNumFound());
+    }
+}
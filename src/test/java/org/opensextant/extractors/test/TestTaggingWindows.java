@@ -0,0 +1,71 @@
+package org.opensextant.extractors.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.opensextant.extractors.geo.GazetteerMatcher;
+
+public class TestTaggingWindows {
+
+    /** Access to the window arithmetic of the matcher; never instantiated, as that needs the gazetteer. */
+    abstract static class Windows extends GazetteerMatcher {
+        Windows() throws Exception {
+        }
+
+        static List<int[]> ranges(String buf, int size) {
+            return windowRanges(buf, size);
+        }
+
+        static int start(String buf, int ownStart, int overlap) {
+            return windowStart(buf, ownStart, overlap);
+        }
+    }
+
+    private static String text(int words) {
+        StringBuilder buf = new StringBuilder();
+        for (int x = 0; x < words; ++x) {
+            buf.append(x % 7 == 0 ? "Boston. " : "near Springfield ");
+        }
+        return buf.toString();
+    }
+
+    @Test
+    public void testWindowNearStart() {
+        String buf = text(100);
+        /* Overlap reaches back past the start of the buffer */
+        assertEquals(0, Windows.start(buf, 10, 40));
+        assertEquals(0, Windows.start(buf, 20, 40));
+        assertEquals(0, Windows.start(buf, 1, 500));
+        assertEquals(0, Windows.start(buf, 0, 40));
+
+        /* Mid-word window start moves to the next word */
+        int start = Windows.start(buf, 30, 20);
+        assertTrue(start > 20 && start <= 30);
+        assertTrue(Character.isWhitespace(buf.charAt(start - 1)));
+    }
+
+    @Test
+    public void testWindowRanges() {
+        String buf = text(2000);
+        int size = 4000;
+        int overlap = 200;
+        List<int[]> ranges = Windows.ranges(buf, size);
+        assertTrue(ranges.size() > 1);
+        int end = 0;
+        for (int[] r : ranges) {
+            assertEquals(end, r[0]);
+            assertTrue(r[1] - r[0] <= size);
+            int start = Windows.start(buf, r[0], overlap);
+            assertTrue(start >= 0 && start <= r[0]);
+            assertTrue(start == 0 || start == r[0] || Character.isWhitespace(buf.charAt(start - 1)));
+            end = r[1];
+        }
+        assertEquals(buf.length(), end);
+
+        /* Short text is one window */
+        assertEquals(1, Windows.ranges("Boston", size).size());
+        assertEquals(1, Windows.ranges("", size).size());
+    }
+}